@@ -20,6 +20,7 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.util.Collection;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.hadoop.fs.Path;
 import org.junit.Test;
@@ -156,6 +157,49 @@ public abstract class AbstractFsShellTest extends AbstractROFsShellTest {
 		assertEquals(shell.cat(name2).toString(), shell.cat(dst + fName2).toString());
 	}
 
+	@Test
+	public void testCpParallelDir() throws Exception {
+		String dir = "local/cpp/" + UUID.randomUUID() + "/";
+		for (int i = 0; i < 10; i++) {
+			TestUtils.writeToFS(cfg, dir + "sub" + (i % 2) + "/" + i + ".txt");
+		}
+		String dst = "local/cpp-dst/";
+		shell.mkdir(dst);
+
+		final AtomicReference<BulkCopier.CopyStatistics> statistics = new AtomicReference<BulkCopier.CopyStatistics>();
+		FsShell parallelShell = new FsShell(cfg, hadoopFs);
+		parallelShell.setCopyThreads(4);
+		parallelShell.setSkipIdenticalFiles(true);
+		parallelShell.setCopyListener(new BulkCopier.CopyListener() {
+
+			@Override
+			public void fileCopied(Path src, Path dst, long bytes, long elapsed) {
+			}
+
+			@Override
+			public void fileSkipped(Path src, Path dst) {
+			}
+
+			@Override
+			public void copyCompleted(BulkCopier.CopyStatistics copyStatistics) {
+				statistics.set(copyStatistics);
+			}
+		});
+		try {
+			parallelShell.cp(dir, dst);
+			assertEquals(10, statistics.get().getFiles());
+			String copied = dst + new Path(dir).getName() + "/";
+			for (int i = 0; i < 10; i++) {
+				String name = "sub" + (i % 2) + "/" + i + ".txt";
+				assertEquals(shell.cat(dir + name).toString(), shell.cat(copied + name).toString());
+			}
+			parallelShell.cp(dir, dst);
+			assertEquals(10, statistics.get().getFiles() + statistics.get().getSkippedFiles());
+		} finally {
+			parallelShell.close();
+		}
+	}
+
 	@Test
 	public void testGet() throws Exception {
 		testCopyToLocal();
@@ -194,6 +194,33 @@ public abstract class AbstractROFsShellTest {
 		assertTrue(s.contains(name2));
 	}
 
+	@Test
+	public void testDUParallel() throws Exception {
+		String base = "local/dup/" + UUID.randomUUID() + "/";
+		for (int i = 0; i < 3; i++) {
+			for (int j = 0; j <= i; j++) {
+				TestUtils.writeToFS(cfg, base + "dir" + i + "/" + UUID.randomUUID() + ".txt");
+			}
+		}
+		Resource res = TestUtils.writeToFS(cfg, base + UUID.randomUUID() + ".txt");
+		String name = res.getURI().getPath();
+		String dir = name.substring(0, name.lastIndexOf('/') + 1);
+
+		FsShell parallelShell = new FsShell(cfg, hadoopFs);
+		parallelShell.setSummaryThreads(4);
+		parallelShell.setSummaryCacheTtl(60000);
+		try {
+			Map<Path, Long> serial = shell.du(dir);
+			assertEquals(4, serial.size());
+			assertEquals(serial, parallelShell.du(dir));
+			// second call served from cache
+			assertEquals(serial, parallelShell.du(dir));
+			assertEquals(shell.count(dir + "*").size(), parallelShell.count(dir + "*").size());
+		} finally {
+			parallelShell.close();
+		}
+	}
+
 	@Test
 	public void testLSR() throws Exception {
 		String fName1 = UUID.randomUUID() + ".txt";
@@ -208,6 +235,30 @@ public abstract class AbstractROFsShellTest {
 		assertTrue(output.contains(name1));
 	}
 
+	@Test
+	public void testLSRParallel() throws Exception {
+		String base = "local/lsrp/" + UUID.randomUUID() + "/";
+		for (int i = 0; i < 3; i++) {
+			for (int j = 0; j < 3; j++) {
+				TestUtils.writeToFS(cfg, base + "dir" + i + "/sub" + j + "/" + UUID.randomUUID() + ".txt");
+			}
+		}
+		Resource res = TestUtils.writeToFS(cfg, base + UUID.randomUUID() + ".txt");
+		String name = res.getURI().getPath();
+		String dir = name.substring(0, name.lastIndexOf('/') + 1);
+
+		FsShell parallelShell = new FsShell(cfg, hadoopFs);
+		parallelShell.setListingParallelism(4);
+		try {
+			Collection<FileStatus> serial = shell.lsr(dir);
+			Collection<FileStatus> parallel = parallelShell.lsr(dir);
+			assertEquals(serial.toString(), parallel.toString());
+			assertEquals(1 + 1 + 3 + 9 + 9, parallel.size());
+		} finally {
+			parallelShell.close();
+		}
+	}
+
 	@Test
 	public void testLS() throws Exception {
 		String fName1 = UUID.randomUUID() + ".txt";
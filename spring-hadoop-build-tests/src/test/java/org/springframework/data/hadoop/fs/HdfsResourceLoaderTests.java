@@ -23,7 +23,12 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
 
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Path;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.core.io.Resource;
@@ -31,6 +36,7 @@ import org.springframework.data.hadoop.HadoopSystemConstants;
 import org.springframework.data.hadoop.TestUtils;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.util.FileCopyUtils;
 
 /**
  * Test for interacting with Hadoop HDFS with {@code HdfsResourceLoader}.
@@ -119,6 +125,53 @@ public class HdfsResourceLoaderTests {
 		assertFileCountViaLoaderWithPatter(loader, "/test/HdfsResourceLoaderTests/????/*", 4);
 	}
 
+	@Test
+	public void testPatternResourcesUseListedStatus() throws Exception {
+		String filePath1 = "/test/HdfsResourceLoaderTests-status/file1.txt";
+		String filePath2 = "/test/HdfsResourceLoaderTests-status/dir1/file2.txt";
+		TestUtils.writeToFS(loader, filePath1);
+		TestUtils.writeToFS(loader, filePath2);
+
+		Resource[] resources = loader.getResources("/test/HdfsResourceLoaderTests-status/**/*.txt");
+		assertThat(resources.length, is(2));
+		for (Resource r : resources) {
+			assertThat(r, instanceOf(HdfsResource.class));
+			FileStatus status = loader.getFileSystem().getFileStatus(((HdfsResource) r).getPath());
+			assertThat(r.exists(), is(true));
+			assertThat(r.contentLength(), is(status.getLen()));
+			assertThat(r.lastModified(), is(status.getModificationTime()));
+		}
+
+		Resource missing = loader.getResource("/test/HdfsResourceLoaderTests-status/missing.txt");
+		assertThat(missing.exists(), is(false));
+	}
+
+	@Test
+	public void testCompressedResourceWithReadOptions() throws Exception {
+		String filePath = "/test/HdfsResourceLoaderTests-compressed/file1.txt.gz";
+		OutputStream out = new GZIPOutputStream(loader.getFileSystem().create(new Path(filePath), true));
+		try {
+			FileCopyUtils.copy("hello compressed".getBytes("UTF-8"), out);
+		} finally {
+			out.close();
+		}
+
+		HdfsResourceLoader readLoader = new HdfsResourceLoader(loader.getFileSystem());
+		readLoader.setReadBufferSize(8192);
+		readLoader.setReadahead(65536);
+		try {
+			// second read reuses a decompressor returned by first
+			for (int i = 0; i < 2; i++) {
+				Resource resource = readLoader.getResource(filePath);
+				InputStream in = resource.getInputStream();
+				assertThat(new String(FileCopyUtils.copyToByteArray(in), "UTF-8"), is("hello compressed"));
+				in.close();
+			}
+		} finally {
+			readLoader.close();
+		}
+	}
+
 	@Test
 	public void testFilesNoprefix() throws Exception {
 		String fileName1 = "HdfsResourceLoaderTests-testFilesNoprefix1.txt";
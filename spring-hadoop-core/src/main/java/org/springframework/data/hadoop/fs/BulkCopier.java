@@ -0,0 +1,638 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.fs;
+
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileChecksum;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IOUtils;
+import org.springframework.util.Assert;
+
+/**
+ * Copies files and directory trees between file systems using a pool of
+ * threads, thus copying a lot of small files is not bound by a latency of
+ * a single file copy. Directories are created and listed in a calling thread
+ * and file contents are copied concurrently.
+ * <p>
+ * Every file is first written into a temporary file next to its target and
+ * renamed when complete. Optionally an existing target having a same length
+ * and checksum as its source is skipped, and large files copied into
+ * {@code hdfs} are split into chunks copied concurrently and joined with
+ * {@link FileSystem#concat(Path, Path[])}.
+ *
+ * @author agent
+ *
+ */
+@SuppressWarnings("deprecation")
+public class BulkCopier implements Closeable {
+
+	private final static Log log = LogFactory.getLog(BulkCopier.class);
+
+	private final static String COPYING_SUFFIX = "._COPYING_";
+
+	private final Configuration configuration;
+
+	private int threads;
+
+	private volatile boolean skipIdenticalFiles;
+
+	private volatile long chunkSize;
+
+	private volatile CopyListener listener;
+
+	private ExecutorService executor;
+
+	/**
+	 * Instantiates a new bulk copier copying files serially.
+	 *
+	 * @param configuration the hadoop configuration
+	 */
+	public BulkCopier(Configuration configuration) {
+		this(configuration, 1);
+	}
+
+	/**
+	 * Instantiates a new bulk copier.
+	 *
+	 * @param configuration the hadoop configuration
+	 * @param threads the max number of files copied concurrently
+	 */
+	public BulkCopier(Configuration configuration, int threads) {
+		Assert.notNull(configuration, "Configuration must be set");
+		Assert.isTrue(threads > 0, "Threads must be positive");
+		this.configuration = configuration;
+		this.threads = threads;
+	}
+
+	/**
+	 * Sets the max number of files copied concurrently. Default is one,
+	 * copying files serially in a calling thread.
+	 *
+	 * @param threads the new threads
+	 */
+	public synchronized void setThreads(int threads) {
+		Assert.isTrue(threads > 0, "Threads must be positive");
+		this.threads = threads;
+		close();
+	}
+
+	/**
+	 * Sets whether an existing target file having a same length and checksum
+	 * as its source is skipped. Checksums are compared only if both file
+	 * systems can provide a comparable checksum, i.e. local file system never
+	 * does. Default is <code>false</code>.
+	 *
+	 * @param skipIdenticalFiles the new skip identical files
+	 */
+	public void setSkipIdenticalFiles(boolean skipIdenticalFiles) {
+		this.skipIdenticalFiles = skipIdenticalFiles;
+	}
+
+	/**
+	 * Sets the size of chunks copied concurrently for files larger than
+	 * a chunk. Only used with {@code hdfs} target which supports joining
+	 * chunks with {@code concat}. Size is rounded up to a multiple of a target
+	 * block size. Default is zero, disabling chunking.
+	 *
+	 * @param chunkSize the new chunk size
+	 */
+	public void setChunkSize(long chunkSize) {
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Sets the listener notified about copied files.
+	 *
+	 * @param listener the new copy listener
+	 */
+	public void setCopyListener(CopyListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Copies files or directory trees into a target. If target is an existing
+	 * directory, sources are copied into it, otherwise a single source is
+	 * copied as target.
+	 *
+	 * @param srcFs the source file system
+	 * @param srcs the sources
+	 * @param dstFs the target file system
+	 * @param dst the target
+	 * @param overwrite whether existing target files are overwritten
+	 * @return the copy statistics
+	 * @throws IOException if copy failed
+	 */
+	public CopyStatistics copy(FileSystem srcFs, FileStatus[] srcs, FileSystem dstFs, Path dst, boolean overwrite)
+			throws IOException {
+		Assert.notNull(srcFs, "Source file system must be set");
+		Assert.notNull(srcs, "Sources must be set");
+		Assert.notNull(dstFs, "Target file system must be set");
+		Assert.notNull(dst, "Target must be set");
+		long start = System.currentTimeMillis();
+		Counters counters = new Counters();
+		List<FileCopy> files = new ArrayList<FileCopy>();
+		List<CopyTask> tasks = new ArrayList<CopyTask>();
+		boolean succeeded = false;
+		try {
+			FileStatus dstStatus = getStatus(dstFs, dst);
+			boolean dstIsDir = dstStatus != null && dstStatus.isDir();
+			for (FileStatus src : srcs) {
+				Path target = dstIsDir ? new Path(dst, src.getPath().getName()) : dst;
+				plan(srcFs, src, dstFs, target, overwrite, counters, files, tasks);
+			}
+			execute(tasks);
+			for (FileCopy file : files) {
+				file.complete();
+			}
+			succeeded = true;
+		} finally {
+			// no task is running anymore, thus temporary files can be removed
+			if (!succeeded) {
+				for (FileCopy file : files) {
+					file.cleanup();
+				}
+			}
+		}
+		CopyStatistics statistics = new CopyStatistics(counters.files.get(), counters.skippedFiles.get(),
+				counters.bytes.get(), System.currentTimeMillis() - start);
+		if (log.isDebugEnabled()) {
+			log.debug("Copied into " + dst + ": " + statistics);
+		}
+		CopyListener l = listener;
+		if (l != null) {
+			l.copyCompleted(statistics);
+		}
+		return statistics;
+	}
+
+	@Override
+	public synchronized void close() {
+		if (executor != null) {
+			executor.shutdown();
+			executor = null;
+		}
+	}
+
+	private void plan(FileSystem srcFs, FileStatus src, FileSystem dstFs, Path target, boolean overwrite,
+			Counters counters, List<FileCopy> files, List<CopyTask> tasks) throws IOException {
+		if (src.isDir()) {
+			checkNotSubdirectory(srcFs, src.getPath(), dstFs, target);
+			if (!dstFs.mkdirs(target)) {
+				throw new IOException("Failed to create directory " + target);
+			}
+			for (FileStatus child : srcFs.listStatus(src.getPath())) {
+				plan(srcFs, child, dstFs, new Path(target, child.getPath().getName()), overwrite, counters, files,
+						tasks);
+			}
+			return;
+		}
+		final FileCopy file = new FileCopy(srcFs, src, dstFs, target, overwrite, counters);
+		files.add(file);
+		long blockSize = getChunkBlockSize(dstFs, target, src.getLen());
+		if (blockSize > 0) {
+			// chunks are known before copying, thus target is checked up front
+			if (!file.prepare()) {
+				return;
+			}
+			long size = ((chunkSize + blockSize - 1) / blockSize) * blockSize;
+			for (long offset = 0; offset < src.getLen(); offset += size) {
+				final Path chunk = file.addChunk();
+				final long chunkOffset = offset;
+				final long chunkLength = Math.min(size, src.getLen() - offset);
+				final long chunkBlockSize = blockSize;
+				tasks.add(new CopyTask() {
+					@Override
+					void run() throws IOException {
+						file.copyRange(chunkOffset, chunkLength, chunk, chunkBlockSize);
+					}
+				});
+			}
+		} else {
+			tasks.add(new CopyTask() {
+				@Override
+				void run() throws IOException {
+					if (file.prepare()) {
+						file.copyRange(0, file.src.getLen(), file.addChunk(), 0);
+						file.complete();
+					}
+				}
+			});
+		}
+	}
+
+	private long getChunkBlockSize(FileSystem dstFs, Path target, long length) {
+		long size = chunkSize;
+		if (size <= 0 || length <= size || !"hdfs".equals(dstFs.getUri().getScheme())) {
+			return 0;
+		}
+		return dstFs.getDefaultBlockSize(target);
+	}
+
+	private void execute(List<CopyTask> tasks) throws IOException {
+		ExecutorService executor = tasks.size() > 1 ? getExecutor() : null;
+		if (executor == null) {
+			for (CopyTask task : tasks) {
+				task.run();
+			}
+			return;
+		}
+		final AtomicBoolean aborted = new AtomicBoolean();
+		List<Future<Void>> futures = new ArrayList<Future<Void>>(tasks.size());
+		try {
+			for (final CopyTask task : tasks) {
+				futures.add(executor.submit(new Callable<Void>() {
+
+					@Override
+					public Void call() throws Exception {
+						// tasks not yet started are skipped after a failure
+						if (!aborted.get()) {
+							task.run();
+						}
+						return null;
+					}
+				}));
+			}
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while copying files");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException("Failed to copy files", cause);
+		} finally {
+			aborted.set(true);
+			awaitAll(futures);
+		}
+	}
+
+	/**
+	 * Waits until no task is running, thus a caller can safely remove
+	 * files written by tasks.
+	 */
+	private static void awaitAll(List<Future<Void>> futures) {
+		boolean interrupted = Thread.interrupted();
+		for (Future<Void> future : futures) {
+			while (true) {
+				try {
+					future.get();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					break;
+				} catch (CancellationException e) {
+					break;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private synchronized ExecutorService getExecutor() {
+		if (threads == 1) {
+			return null;
+		}
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "bulk-copier-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return executor;
+	}
+
+	private static void checkNotSubdirectory(FileSystem srcFs, Path src, FileSystem dstFs, Path dst)
+			throws IOException {
+		if (!srcFs.getUri().equals(dstFs.getUri())) {
+			return;
+		}
+		String srcPath = srcFs.makeQualified(src).toUri().getPath() + Path.SEPARATOR;
+		String dstPath = dstFs.makeQualified(dst).toUri().getPath() + Path.SEPARATOR;
+		if (dstPath.startsWith(srcPath)) {
+			throw new IOException("Cannot copy " + src + " to its subdirectory " + dst);
+		}
+	}
+
+	private static FileStatus getStatus(FileSystem fs, Path path) throws IOException {
+		try {
+			return fs.getFileStatus(path);
+		} catch (FileNotFoundException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Listener notified about copied files and completed copies. Methods
+	 * about files are called from copying threads.
+	 */
+	public interface CopyListener {
+
+		/**
+		 * Called when a file is copied.
+		 *
+		 * @param src the source
+		 * @param dst the target
+		 * @param bytes the bytes copied
+		 * @param elapsed the elapsed time in millis
+		 */
+		void fileCopied(Path src, Path dst, long bytes, long elapsed);
+
+		/**
+		 * Called when a file is skipped as its target is identical.
+		 *
+		 * @param src the source
+		 * @param dst the target
+		 */
+		void fileSkipped(Path src, Path dst);
+
+		/**
+		 * Called when a copy is completed.
+		 *
+		 * @param statistics the copy statistics
+		 */
+		void copyCompleted(CopyStatistics statistics);
+	}
+
+	/**
+	 * Statistics of a completed copy.
+	 */
+	public static class CopyStatistics {
+
+		private final int files;
+
+		private final int skippedFiles;
+
+		private final long bytes;
+
+		private final long elapsed;
+
+		CopyStatistics(int files, int skippedFiles, long bytes, long elapsed) {
+			this.files = files;
+			this.skippedFiles = skippedFiles;
+			this.bytes = bytes;
+			this.elapsed = elapsed;
+		}
+
+		/**
+		 * Gets the number of copied files.
+		 *
+		 * @return the number of copied files
+		 */
+		public int getFiles() {
+			return files;
+		}
+
+		/**
+		 * Gets the number of skipped files.
+		 *
+		 * @return the number of skipped files
+		 */
+		public int getSkippedFiles() {
+			return skippedFiles;
+		}
+
+		/**
+		 * Gets the number of copied bytes.
+		 *
+		 * @return the number of copied bytes
+		 */
+		public long getBytes() {
+			return bytes;
+		}
+
+		/**
+		 * Gets the elapsed time in millis.
+		 *
+		 * @return the elapsed time
+		 */
+		public long getElapsed() {
+			return elapsed;
+		}
+
+		/**
+		 * Gets the copy throughput.
+		 *
+		 * @return the bytes per second
+		 */
+		public long getBytesPerSecond() {
+			return bytes * 1000 / Math.max(elapsed, 1);
+		}
+
+		@Override
+		public String toString() {
+			return "files=" + files + ", skippedFiles=" + skippedFiles + ", bytes=" + bytes + ", elapsed=" + elapsed
+					+ "ms, bytesPerSecond=" + getBytesPerSecond();
+		}
+	}
+
+	/**
+	 * Single file copied either as a whole or as chunks.
+	 */
+	private class FileCopy {
+
+		final FileSystem srcFs;
+
+		final FileStatus src;
+
+		final FileSystem dstFs;
+
+		final Path target;
+
+		final boolean overwrite;
+
+		final Counters counters;
+
+		final List<Path> chunks = new ArrayList<Path>();
+
+		long start;
+
+		boolean exists;
+
+		boolean done;
+
+		FileCopy(FileSystem srcFs, FileStatus src, FileSystem dstFs, Path target, boolean overwrite,
+				Counters counters) {
+			this.srcFs = srcFs;
+			this.src = src;
+			this.dstFs = dstFs;
+			this.target = target;
+			this.overwrite = overwrite;
+			this.counters = counters;
+		}
+
+		/**
+		 * Checks a target, returning false if file is skipped.
+		 */
+		boolean prepare() throws IOException {
+			start = System.currentTimeMillis();
+			FileStatus existing = getStatus(dstFs, target);
+			if (existing != null) {
+				if (existing.isDir()) {
+					throw new IOException("Target " + target + " is a directory");
+				}
+				if (skipIdenticalFiles && isIdentical(existing)) {
+					done = true;
+					counters.skippedFiles.incrementAndGet();
+					CopyListener l = listener;
+					if (l != null) {
+						l.fileSkipped(src.getPath(), target);
+					}
+					return false;
+				}
+				if (!overwrite) {
+					throw new IOException("Target " + target + " already exists");
+				}
+				exists = true;
+			}
+			return true;
+		}
+
+		synchronized Path addChunk() {
+			Path chunk = new Path(target.getParent(), target.getName() + COPYING_SUFFIX
+					+ (chunks.isEmpty() ? "" : chunks.size()));
+			chunks.add(chunk);
+			return chunk;
+		}
+
+		void copyRange(long offset, long length, Path dst, long blockSize) throws IOException {
+			int bufferSize = configuration.getInt("io.file.buffer.size", 4096);
+			FSDataInputStream in = srcFs.open(src.getPath(), bufferSize);
+			try {
+				if (offset > 0) {
+					in.seek(offset);
+				}
+				OutputStream out = blockSize > 0
+						? dstFs.create(dst, true, bufferSize, dstFs.getDefaultReplication(dst), blockSize)
+						: dstFs.create(dst, true, bufferSize);
+				IOUtils.copyBytes(in, out, length, true);
+			} finally {
+				IOUtils.closeStream(in);
+			}
+			counters.bytes.addAndGet(length);
+		}
+
+		/**
+		 * Joins chunks if needed and renames a copy as a target.
+		 */
+		synchronized void complete() throws IOException {
+			if (done) {
+				return;
+			}
+			Path copy = chunks.get(0);
+			if (chunks.size() > 1) {
+				List<Path> rest = chunks.subList(1, chunks.size());
+				dstFs.concat(copy, rest.toArray(new Path[rest.size()]));
+			}
+			if (exists) {
+				dstFs.delete(target, false);
+			}
+			if (!dstFs.rename(copy, target)) {
+				throw new IOException("Failed to rename " + copy + " to " + target);
+			}
+			done = true;
+			counters.files.incrementAndGet();
+			long elapsed = System.currentTimeMillis() - start;
+			if (log.isDebugEnabled()) {
+				log.debug("Copied " + src.getPath() + " to " + target + " " + src.getLen() + " bytes in " + elapsed
+						+ "ms");
+			}
+			CopyListener l = listener;
+			if (l != null) {
+				l.fileCopied(src.getPath(), target, src.getLen(), elapsed);
+			}
+		}
+
+		synchronized void cleanup() {
+			if (done) {
+				return;
+			}
+			for (Path chunk : chunks) {
+				try {
+					dstFs.delete(chunk, false);
+				} catch (IOException e) {
+					if (log.isWarnEnabled()) {
+						log.warn("Could not delete " + chunk, e);
+					}
+				}
+			}
+		}
+
+		private boolean isIdentical(FileStatus existing) throws IOException {
+			if (existing.getLen() != src.getLen()) {
+				return false;
+			}
+			FileChecksum checksum = srcFs.getFileChecksum(src.getPath());
+			return checksum != null && checksum.equals(dstFs.getFileChecksum(target));
+		}
+	}
+
+	/**
+	 * Task copying a file or a chunk of it.
+	 */
+	private abstract static class CopyTask {
+
+		abstract void run() throws IOException;
+	}
+
+	private static class Counters {
+
+		final AtomicInteger files = new AtomicInteger();
+
+		final AtomicInteger skippedFiles = new AtomicInteger();
+
+		final AtomicLong bytes = new AtomicLong();
+	}
+
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.fs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.fs.ContentSummary;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.springframework.util.Assert;
+
+/**
+ * Computes {@link ContentSummary}s for a batch of paths. Every directory is
+ * summarized with a single {@code getContentSummary} call, concurrently if
+ * threads are configured, and files are summarized from their
+ * {@link FileStatus} without calling a file system at all. Duplicate paths
+ * in a batch are summarized once.
+ * <p>
+ * Directory summaries can optionally be cached for a short time, thus
+ * repeated calls for same directories within a cache ttl don't reach
+ * a file system.
+ *
+ * @author agent
+ *
+ */
+@SuppressWarnings("deprecation")
+public class DiskUsageService implements Closeable {
+
+	private int threads;
+
+	private volatile long cacheTtl;
+
+	private final Map<Path, CachedSummary> cache = new ConcurrentHashMap<Path, CachedSummary>();
+
+	private ExecutorService executor;
+
+	/**
+	 * Instantiates a new disk usage service summarizing directories serially.
+	 */
+	public DiskUsageService() {
+		this(1);
+	}
+
+	/**
+	 * Instantiates a new disk usage service.
+	 *
+	 * @param threads the max number of directories summarized concurrently
+	 */
+	public DiskUsageService(int threads) {
+		Assert.isTrue(threads > 0, "Threads must be positive");
+		this.threads = threads;
+	}
+
+	/**
+	 * Sets the max number of directories summarized concurrently. Default
+	 * is one, summarizing directories serially in a calling thread.
+	 *
+	 * @param threads the new threads
+	 */
+	public synchronized void setThreads(int threads) {
+		Assert.isTrue(threads > 0, "Threads must be positive");
+		this.threads = threads;
+		close();
+	}
+
+	/**
+	 * Sets the time in millis directory summaries are cached. Default is zero,
+	 * disabling a cache.
+	 *
+	 * @param cacheTtl the new cache ttl
+	 */
+	public void setCacheTtl(long cacheTtl) {
+		this.cacheTtl = cacheTtl;
+		if (cacheTtl <= 0) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Gets content summaries for entries of a file system.
+	 *
+	 * @param fs the file system
+	 * @param statuses the entries to summarize
+	 * @param callback the callback notified as summaries complete, may be null
+	 * @return the summaries in order of given entries
+	 * @throws IOException if summary can't be retrieved
+	 */
+	public Map<Path, ContentSummary> getContentSummaries(final FileSystem fs, Collection<FileStatus> statuses,
+			SummaryCallback callback) throws IOException {
+		Assert.notNull(fs, "File system must be set");
+		Assert.notNull(statuses, "Statuses must be set");
+		long now = System.currentTimeMillis();
+		purge(now);
+		// null placeholders keep results in order of given entries
+		Map<Path, ContentSummary> results = new LinkedHashMap<Path, ContentSummary>();
+		List<Path> pending = new ArrayList<Path>();
+		for (FileStatus status : statuses) {
+			Path path = status.getPath();
+			if (results.containsKey(path)) {
+				continue;
+			}
+			ContentSummary summary = status.isDir() ? getCached(path, now) : summarizeFile(status);
+			results.put(path, summary);
+			if (summary == null) {
+				pending.add(path);
+			} else if (callback != null) {
+				callback.onSummary(path, summary);
+			}
+		}
+
+		ExecutorService executor = pending.size() > 1 ? getExecutor() : null;
+		if (executor == null) {
+			for (Path path : pending) {
+				complete(results, path, fs.getContentSummary(path), callback);
+			}
+			return results;
+		}
+		CompletionService<Object[]> completion = new ExecutorCompletionService<Object[]>(executor);
+		List<Future<Object[]>> futures = new ArrayList<Future<Object[]>>(pending.size());
+		try {
+			for (final Path path : pending) {
+				futures.add(completion.submit(new Callable<Object[]>() {
+
+					@Override
+					public Object[] call() throws Exception {
+						return new Object[] { path, fs.getContentSummary(path) };
+					}
+				}));
+			}
+			for (int i = 0; i < futures.size(); i++) {
+				Object[] result = completion.take().get();
+				complete(results, (Path) result[0], (ContentSummary) result[1], callback);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while summarizing directories");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException("Failed to summarize directories", cause);
+		} finally {
+			for (Future<Object[]> future : futures) {
+				future.cancel(true);
+			}
+		}
+		return results;
+	}
+
+	@Override
+	public synchronized void close() {
+		if (executor != null) {
+			executor.shutdown();
+			executor = null;
+		}
+	}
+
+	private void complete(Map<Path, ContentSummary> results, Path path, ContentSummary summary,
+			SummaryCallback callback) {
+		results.put(path, summary);
+		if (cacheTtl > 0) {
+			cache.put(path, new CachedSummary(summary, System.currentTimeMillis()));
+		}
+		if (callback != null) {
+			callback.onSummary(path, summary);
+		}
+	}
+
+	private ContentSummary getCached(Path path, long now) {
+		long ttl = cacheTtl;
+		if (ttl <= 0) {
+			return null;
+		}
+		CachedSummary cached = cache.get(path);
+		return (cached != null && now - cached.timestamp < ttl ? cached.summary : null);
+	}
+
+	private void purge(long now) {
+		long ttl = cacheTtl;
+		if (ttl <= 0) {
+			return;
+		}
+		for (Iterator<CachedSummary> iterator = cache.values().iterator(); iterator.hasNext();) {
+			if (now - iterator.next().timestamp >= ttl) {
+				iterator.remove();
+			}
+		}
+	}
+
+	private synchronized ExecutorService getExecutor() {
+		if (threads == 1) {
+			return null;
+		}
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "disk-usage-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return executor;
+	}
+
+	private static ContentSummary summarizeFile(FileStatus status) {
+		return new ContentSummary(status.getLen(), 1, 0, -1, status.getLen() * status.getReplication(), -1);
+	}
+
+	/**
+	 * Callback notified about summaries as they complete. Called from
+	 * a thread requesting summaries.
+	 */
+	public interface SummaryCallback {
+
+		/**
+		 * Called when a summary is available.
+		 *
+		 * @param path the path
+		 * @param summary the content summary
+		 */
+		void onSummary(Path path, ContentSummary summary);
+	}
+
+	private static class CachedSummary {
+
+		final ContentSummary summary;
+
+		final long timestamp;
+
+		CachedSummary(ContentSummary summary, long timestamp) {
+			this.summary = summary;
+			this.timestamp = timestamp;
+		}
+	}
+
+}
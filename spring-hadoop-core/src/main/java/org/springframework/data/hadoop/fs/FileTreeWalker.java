@@ -0,0 +1,242 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.fs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.springframework.util.Assert;
+
+/**
+ * Walks a directory tree listing directories concurrently. Every directory
+ * is listed with a single {@code listStatus} call and a {@link Filter} decides
+ * which entries are returned and which directories are descended into, thus
+ * subtrees which can't match are never listed.
+ * <p>
+ * Results are returned in a same depth-first order as a serial walk would
+ * give, every entry followed by entries of its subtree. With parallelism of
+ * one, tree is walked in a calling thread, otherwise directories are listed
+ * in a {@link ForkJoinPool} limited to a given parallelism.
+ *
+ * @author agent
+ *
+ */
+public class FileTreeWalker implements Closeable {
+
+	private final static Log log = LogFactory.getLog(FileTreeWalker.class);
+
+	private final int parallelism;
+
+	private ForkJoinPool pool;
+
+	/**
+	 * Instantiates a new file tree walker listing directories serially.
+	 */
+	public FileTreeWalker() {
+		this(1);
+	}
+
+	/**
+	 * Instantiates a new file tree walker.
+	 *
+	 * @param parallelism the max number of directories listed concurrently
+	 */
+	public FileTreeWalker(int parallelism) {
+		Assert.isTrue(parallelism > 0, "Parallelism must be positive");
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Walks a directory tree. Given directory itself is not
+	 * part of the results.
+	 *
+	 * @param fs the file system
+	 * @param dir the directory to start from
+	 * @param filter the filter for entries
+	 * @param failOnError whether listing errors are thrown or logged and skipped
+	 * @return the accepted entries
+	 * @throws IOException if directory can't be listed and failOnError is set
+	 */
+	public List<FileStatus> walk(FileSystem fs, Path dir, Filter filter, boolean failOnError) throws IOException {
+		Assert.notNull(fs, "File system must be set");
+		Assert.notNull(dir, "Directory must be set");
+		Assert.notNull(filter, "Filter must be set");
+		if (parallelism == 1) {
+			List<FileStatus> results = new ArrayList<FileStatus>();
+			walk(fs, dir, filter, failOnError, results);
+			return results;
+		}
+		try {
+			return getPool().invoke(new ListTask(fs, dir, filter, failOnError));
+		} catch (RuntimeException e) {
+			// pool may wrap exception thrown from another thread
+			for (Throwable t = e; t != null; t = t.getCause()) {
+				if (t instanceof IOException) {
+					throw (IOException) t;
+				}
+			}
+			throw e;
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		if (pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+	}
+
+	private synchronized ForkJoinPool getPool() {
+		if (pool == null) {
+			pool = new ForkJoinPool(parallelism);
+		}
+		return pool;
+	}
+
+	private static void walk(FileSystem fs, Path dir, Filter filter, boolean failOnError, List<FileStatus> results)
+			throws IOException {
+		for (FileStatus item : list(fs, dir, failOnError)) {
+			if (filter.accept(item)) {
+				results.add(item);
+			}
+			if (isDir(item) && filter.descend(item)) {
+				walk(fs, item.getPath(), filter, failOnError, results);
+			}
+		}
+	}
+
+	private static FileStatus[] list(FileSystem fs, Path dir, boolean failOnError) throws IOException {
+		FileStatus[] items = null;
+		try {
+			items = fs.listStatus(dir);
+		} catch (IOException ex) {
+			if (failOnError) {
+				throw ex;
+			}
+		}
+		if (items == null) {
+			if (!failOnError && log.isWarnEnabled()) {
+				log.warn("Could not retrieve contents of directory [" + dir.toUri().getPath() + "]");
+			}
+			return new FileStatus[0];
+		}
+		return items;
+	}
+
+	@SuppressWarnings("deprecation")
+	private static boolean isDir(FileStatus status) {
+		return status.isDir();
+	}
+
+	/**
+	 * Filter deciding what a walk returns and where it descends.
+	 */
+	public interface Filter {
+
+		/**
+		 * Checks whether an entry is returned.
+		 *
+		 * @param status the entry status
+		 * @return true, if entry is returned
+		 */
+		boolean accept(FileStatus status);
+
+		/**
+		 * Checks whether a directory is listed.
+		 *
+		 * @param status the directory status
+		 * @return true, if directory is listed
+		 */
+		boolean descend(FileStatus status);
+	}
+
+	/**
+	 * Lists a directory and forks tasks for its subdirectories.
+	 */
+	private static class ListTask extends RecursiveTask<List<FileStatus>> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final FileSystem fs;
+
+		private final Path dir;
+
+		private final Filter filter;
+
+		private final boolean failOnError;
+
+		ListTask(FileSystem fs, Path dir, Filter filter, boolean failOnError) {
+			this.fs = fs;
+			this.dir = dir;
+			this.filter = filter;
+			this.failOnError = failOnError;
+		}
+
+		@Override
+		protected List<FileStatus> compute() {
+			FileStatus[] items;
+			try {
+				items = list(fs, dir, failOnError);
+			} catch (IOException e) {
+				throw new WalkException(e);
+			}
+			// accepted entries and forked subtrees in walk order
+			List<Object> parts = new ArrayList<Object>(items.length);
+			for (FileStatus item : items) {
+				if (filter.accept(item)) {
+					parts.add(item);
+				}
+				if (isDir(item) && filter.descend(item)) {
+					ListTask task = new ListTask(fs, item.getPath(), filter, failOnError);
+					task.fork();
+					parts.add(task);
+				}
+			}
+			List<FileStatus> results = new ArrayList<FileStatus>(parts.size());
+			for (Object part : parts) {
+				if (part instanceof ListTask) {
+					results.addAll(((ListTask) part).join());
+				} else {
+					results.add((FileStatus) part);
+				}
+			}
+			return results;
+		}
+	}
+
+	/**
+	 * Carries a listing error out from a pool.
+	 */
+	private static class WalkException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		WalkException(IOException cause) {
+			super(cause);
+		}
+	}
+
+}
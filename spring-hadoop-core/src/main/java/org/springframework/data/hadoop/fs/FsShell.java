@@ -29,6 +29,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -73,6 +74,9 @@ public class FsShell implements Closeable, DisposableBean {
 	private FileSystem fs;
 	private final Configuration configuration;
 	private Trash trash;
+	private volatile FileTreeWalker walker = new FileTreeWalker();
+	private final BulkCopier copier;
+	private final DiskUsageService diskUsage = new DiskUsageService();
 
 
 	/**
@@ -92,6 +96,7 @@ public class FsShell implements Closeable, DisposableBean {
 	 */
 	public FsShell(Configuration configuration, FileSystem fs) {
 		this.configuration = configuration;
+		this.copier = new BulkCopier(configuration);
 		try {
 			this.fs = (fs != null ? fs : FileSystem.get(configuration));
 			this.internalFs = (fs == null);
@@ -108,12 +113,93 @@ public class FsShell implements Closeable, DisposableBean {
 
 	@Override
 	public void close() throws IOException {
+		walker.close();
+		copier.close();
+		diskUsage.close();
 		if (internalFs && fs != null) {
 			fs.close();
 			fs = null;
 		}
 	}
 
+	/**
+	 * Sets the max number of directories listed concurrently with recursive
+	 * listings. Default is one, listing directories serially.
+	 *
+	 * @param listingParallelism the listing parallelism
+	 */
+	public void setListingParallelism(int listingParallelism) {
+		FileTreeWalker old = walker;
+		walker = new FileTreeWalker(listingParallelism);
+		old.close();
+	}
+
+	/**
+	 * Sets the max number of files copied concurrently with {@code cp},
+	 * {@code copyFromLocal} and {@code copyToLocal}. Default is one,
+	 * copying files serially.
+	 *
+	 * @param copyThreads the copy threads
+	 * @see BulkCopier#setThreads(int)
+	 */
+	public void setCopyThreads(int copyThreads) {
+		copier.setThreads(copyThreads);
+	}
+
+	/**
+	 * Sets whether copying skips existing target files having a same length
+	 * and checksum as a source. Default is <code>false</code>.
+	 *
+	 * @param skipIdenticalFiles the skip identical files
+	 * @see BulkCopier#setSkipIdenticalFiles(boolean)
+	 */
+	public void setSkipIdenticalFiles(boolean skipIdenticalFiles) {
+		copier.setSkipIdenticalFiles(skipIdenticalFiles);
+	}
+
+	/**
+	 * Sets the size of chunks copied concurrently for large files copied
+	 * into hdfs. Default is zero, disabling chunking.
+	 *
+	 * @param copyChunkSize the copy chunk size
+	 * @see BulkCopier#setChunkSize(long)
+	 */
+	public void setCopyChunkSize(long copyChunkSize) {
+		copier.setChunkSize(copyChunkSize);
+	}
+
+	/**
+	 * Sets the listener notified about copied files and copy throughput.
+	 *
+	 * @param copyListener the copy listener
+	 */
+	public void setCopyListener(BulkCopier.CopyListener copyListener) {
+		copier.setCopyListener(copyListener);
+	}
+
+	/**
+	 * Sets the max number of directories summarized concurrently with
+	 * {@code du}, {@code dus} and {@code count}. Default is one, summarizing
+	 * directories serially.
+	 *
+	 * @param summaryThreads the summary threads
+	 * @see DiskUsageService#setThreads(int)
+	 */
+	public void setSummaryThreads(int summaryThreads) {
+		diskUsage.setThreads(summaryThreads);
+	}
+
+	/**
+	 * Sets the time in millis directory summaries are cached. Default is
+	 * zero, disabling a cache.
+	 *
+	 * @param summaryCacheTtl the summary cache ttl
+	 * @see DiskUsageService#setCacheTtl(long)
+	 */
+	public void setSummaryCacheTtl(long summaryCacheTtl) {
+		diskUsage.setCacheTtl(summaryCacheTtl);
+	}
+
 	private String getContent(InputStream in) throws IOException {
 		StringWriter writer = new StringWriter(in.available());
 		InputStreamReader reader = new InputStreamReader(in, "UTF-8");
@@ -262,7 +348,16 @@ public class FsShell implements Closeable, DisposableBean {
 
 		try {
 			FileSystem dstFs = getFS(dstPath);
-			dstFs.copyFromLocalFile(false, false, srcs.toArray(new Path[srcs.size()]), dstPath);
+			FileSystem localFs = FileSystem.getLocal(configuration);
+			if (srcs.size() > 1 && !dstFs.getFileStatus(dstPath).isDir()) {
+				throw new IOException("copying multiple files, but last argument `" + dstPath
+						+ "' is not a directory");
+			}
+			FileStatus[] statuses = new FileStatus[srcs.size()];
+			for (int i = 0; i < statuses.length; i++) {
+				statuses[i] = localFs.getFileStatus(srcs.get(i));
+			}
+			copier.copy(localFs, statuses, dstFs, dstPath, false);
 		} catch (IOException ex) {
 			throw new HadoopException("Cannot copy resources " + ex.getMessage(), ex);
 		}
@@ -282,12 +377,18 @@ public class FsShell implements Closeable, DisposableBean {
 			if (crc && !(srcFs instanceof ChecksumFileSystem)) {
 				crc = false;
 			}
-			FileStatus[] srcs = srcFs.globStatus(srcpath);
+			FileStatus[] srcs = expand(srcFs, srcpath);
 			boolean dstIsDir = dst.isDirectory();
 			if (srcs.length > 1 && !dstIsDir) {
 				throw new IllegalArgumentException("When copying multiple files, "
 						+ "destination should be a directory.");
 			}
+			if (!crc) {
+				// raw local fs as checksum files are not written without crc
+				FileSystem localFs = FileSystem.getLocal(configuration).getRawFileSystem();
+				copier.copy(srcFs, srcs, localFs, new Path(dst.getAbsoluteFile().toURI()), false);
+				return;
+			}
 			for (FileStatus status : srcs) {
 				Path p = status.getPath();
 				File f = dstIsDir ? new File(dst, p.getName()) : dst;
@@ -367,19 +468,18 @@ public class FsShell implements Closeable, DisposableBean {
 					}
 				});
 
-		for (String src : uris) {
-			try {
+		try {
+			Map<FileSystem, List<FileStatus>> batches = new LinkedHashMap<FileSystem, List<FileStatus>>();
+			for (String src : uris) {
 				Path srcPath = new Path(src);
 				final FileSystem fs = getFS(srcPath);
 				FileStatus[] statuses = fs.globStatus(srcPath);
 				Assert.notEmpty(statuses, "Can not find listing for " + src);
-				for (FileStatus s : statuses) {
-					Path p = s.getPath();
-					results.put(p, fs.getContentSummary(p));
-				}
-			} catch (IOException ex) {
-				throw new HadoopException("Cannot find listing " + ex.getMessage(), ex);
+				addBatch(batches, fs, statuses);
 			}
+			results.putAll(summarize(batches));
+		} catch (IOException ex) {
+			throw new HadoopException("Cannot find listing " + ex.getMessage(), ex);
 		}
 
 		return Collections.unmodifiableMap(results);
@@ -409,14 +509,12 @@ public class FsShell implements Closeable, DisposableBean {
 
 			for (Path path : srcs) {
 				FileSystem srcFs = path.getFileSystem(configuration);
-				Path[] from = FileUtil.stat2Paths(srcFs.globStatus(path), path);
+				FileStatus[] from = expand(srcFs, path);
 				if (!ObjectUtils.isEmpty(from) && from.length > 1 && !isDestDir) {
 					throw new IllegalArgumentException(
 							"When copying multiple files, destination should be a directory.");
 				}
-				for (Path fromPath : from) {
-					FileUtil.copy(srcFs, fromPath, dstFs, dstPath, false, configuration);
-				}
+				copier.copy(srcFs, from, dstFs, dstPath, true);
 			}
 		} catch (IOException ex) {
 			throw new HadoopException("Cannot copy resources " + ex.getMessage(), ex);
@@ -454,26 +552,29 @@ public class FsShell implements Closeable, DisposableBean {
 		});
 
 		try {
+			Map<FileSystem, List<FileStatus>> batches = new LinkedHashMap<FileSystem, List<FileStatus>>();
 			for (String src : strings) {
 				Path srcPath = new Path(src);
 				FileSystem srcFs = getFS(srcPath);
 				FileStatus[] fileStatus = srcFs.globStatus(srcPath);
 				if (summary) {
-					for (FileStatus status : fileStatus) {
-						results.put(status.getPath(), srcFs.getContentSummary(status.getPath()).getLength());
+					if (fileStatus == null) {
+						throw new HadoopException("Cannot access " + src + ": No such file or directory.");
 					}
+					addBatch(batches, srcFs, fileStatus);
 				}
 				else {
-					FileStatus items[] = srcFs.listStatus(FileUtil.stat2Paths(fileStatus, srcPath));
-					if (ObjectUtils.isEmpty(items) && (!srcFs.exists(srcPath))) {
+					// glob gives nothing only if nothing exists
+					if (ObjectUtils.isEmpty(fileStatus)) {
 						throw new HadoopException("Cannot access " + src + ": No such file or directory.");
 					}
-					for (FileStatus status : items) {
-						Long size = (status.isDir() ? srcFs.getContentSummary(status.getPath()).getLength() : status.getLen());
-						results.put(status.getPath(), size);
-					}
+					addBatch(batches, srcFs, srcFs.listStatus(FileUtil.stat2Paths(fileStatus)));
 				}
 			}
+			// files are sized from their status, directories with one summary each
+			for (Map.Entry<Path, ContentSummary> entry : summarize(batches).entrySet()) {
+				results.put(entry.getKey(), entry.getValue().getLength());
+			}
 		} catch (IOException ex) {
 			throw new HadoopException("Cannot inspect resources " + ex.getMessage(), ex);
 		}
@@ -586,23 +687,24 @@ public class FsShell implements Closeable, DisposableBean {
 		}
 	}
 
-	private void ls(FileStatus src, FileSystem srcFs, boolean recursive, Collection<FileStatus> results)
+	private void ls(FileStatus src, FileSystem srcFs, final boolean recursive, Collection<FileStatus> results)
 			throws IOException {
 
 		results.add(src);
 
 		if (src.isDir()) {
-			final FileStatus[] items = srcFs.listStatus(src.getPath());
-			if (!ObjectUtils.isEmpty(items)) {
-				for (FileStatus stat : items) {
-					if (recursive && stat.isDir()) {
-						ls(stat, srcFs, recursive, results);
-					}
-					else {
-						results.add(stat);
-					}
+			results.addAll(walker.walk(srcFs, src.getPath(), new FileTreeWalker.Filter() {
+
+				@Override
+				public boolean accept(FileStatus status) {
+					return true;
 				}
-			}
+
+				@Override
+				public boolean descend(FileStatus status) {
+					return recursive;
+				}
+			}, true));
 		}
 	}
 
@@ -1048,4 +1150,27 @@ public class FsShell implements Closeable, DisposableBean {
 		}
 		return fs;
 	}
-}
\ No newline at end of file
+
+	private static FileStatus[] expand(FileSystem fs, Path path) throws IOException {
+		FileStatus[] statuses = fs.globStatus(path);
+		// null is returned for a non glob path which doesn't exist
+		return (statuses != null ? statuses : new FileStatus[] { fs.getFileStatus(path) });
+	}
+
+	private static void addBatch(Map<FileSystem, List<FileStatus>> batches, FileSystem fs, FileStatus[] statuses) {
+		List<FileStatus> batch = batches.get(fs);
+		if (batch == null) {
+			batch = new ArrayList<FileStatus>();
+			batches.put(fs, batch);
+		}
+		batch.addAll(Arrays.asList(statuses));
+	}
+
+	private Map<Path, ContentSummary> summarize(Map<FileSystem, List<FileStatus>> batches) throws IOException {
+		Map<Path, ContentSummary> summaries = new LinkedHashMap<Path, ContentSummary>();
+		for (Map.Entry<FileSystem, List<FileStatus>> batch : batches.entrySet()) {
+			summaries.putAll(diskUsage.getContentSummaries(batch.getKey(), batch.getValue(), null));
+		}
+		return summaries;
+	}
+}
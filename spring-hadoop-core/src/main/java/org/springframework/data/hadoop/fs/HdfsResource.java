@@ -16,19 +16,23 @@
 package org.springframework.data.hadoop.fs;
 
 import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
 import java.net.URL;
 
+import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.LocalFileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.RawLocalFileSystem;
+import org.apache.hadoop.io.compress.CodecPool;
 import org.apache.hadoop.io.compress.CompressionCodec;
 import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.io.compress.Decompressor;
 import org.springframework.core.io.ContextResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.WritableResource;
@@ -47,9 +51,15 @@ class HdfsResource implements ContextResource, WritableResource {
 	private final String location;
 	private final Path path;
 	private final FileSystem fs;
-	private boolean exists;
-	private final FileStatus status;
+	private volatile boolean exists;
+	private volatile FileStatus status;
+	/** Whether status has been fetched or given */
+	private volatile boolean resolved;
 	private final CompressionCodecFactory codecsFactory;
+	/** Buffer size for opened streams, file system default if not positive */
+	private int bufferSize;
+	/** Readahead for opened streams, file system default if negative */
+	private long readahead = -1;
 
 	/**
 	 * Instantiates a new hdfs resource.
@@ -102,42 +112,81 @@ class HdfsResource implements ContextResource, WritableResource {
 		this.location = path.toString();
 		this.fs = fs;
 		this.path = path.makeQualified(fs);
+		this.codecsFactory = codecsFactory;
+	}
 
-		boolean exists = false;
-
-		try {
-			exists = fs.exists(path);
-		} catch (Exception ex) {
-		}
-		this.exists = exists;
+	/**
+	 * Instantiates a new hdfs resource from an already known status,
+	 * thus status is not fetched again from a file system.
+	 *
+	 * @param status the file status
+	 * @param fs the fs
+	 * @param codecsFactory the codecs factory
+	 */
+	@SuppressWarnings("deprecation")
+	HdfsResource(FileStatus status, FileSystem fs, CompressionCodecFactory codecsFactory) {
+		Assert.notNull(status, "a valid file status is required");
+		Assert.notNull(fs, "non null file system required");
 
-		FileStatus status = null;
-		try {
-			status = fs.getFileStatus(path);
-		} catch (Exception ex) {
-		}
+		this.location = status.getPath().toString();
+		this.fs = fs;
+		this.path = status.getPath().makeQualified(fs);
 		this.status = status;
+		this.exists = true;
+		this.resolved = true;
 		this.codecsFactory = codecsFactory;
 	}
 
+	/**
+	 * Gets the file status fetching it on first access.
+	 *
+	 * @return the file status or null if path doesn't exist or can't be accessed
+	 */
+	private FileStatus getStatus() {
+		if (!resolved) {
+			FileStatus s = null;
+			try {
+				s = fs.getFileStatus(path);
+			} catch (Exception ex) {
+			}
+			status = s;
+			exists = (s != null);
+			resolved = true;
+		}
+		return status;
+	}
+
 
 	@Override
 	public long contentLength() throws IOException {
-		if (exists) {
-			if (status != null) {
-				return status.getLen();
-			}
+		FileStatus status = getStatus();
+		if (status != null) {
+			return status.getLen();
 		}
 		throw new IOException("Cannot access the status for " + getDescription());
 	}
 
 	@Override
 	public Resource createRelative(String relativePath) throws IOException {
-		return new HdfsResource(location, relativePath, fs, codecsFactory);
+		HdfsResource resource = new HdfsResource(location, relativePath, fs, codecsFactory);
+		resource.setReadOptions(bufferSize, readahead);
+		return resource;
+	}
+
+	/**
+	 * Sets the options used to open input streams.
+	 *
+	 * @param bufferSize the buffer size, file system default if not positive
+	 * @param readahead the readahead in bytes, file system default if negative
+	 */
+	void setReadOptions(int bufferSize, long readahead) {
+		this.bufferSize = bufferSize;
+		this.readahead = readahead;
 	}
 
 	@Override
 	public boolean exists() {
+		getStatus();
 		return exists;
 	}
 
@@ -177,17 +226,18 @@ class HdfsResource implements ContextResource, WritableResource {
 
 	@Override
 	public boolean isOpen() {
-		return (exists ? true : false);
+		return exists();
 	}
 
 	@Override
 	public boolean isReadable() {
-		return (exists ? true : false);
+		return exists();
 	}
 
 	@Override
 	public long lastModified() throws IOException {
-		if (exists && status != null) {
+		FileStatus status = getStatus();
+		if (status != null) {
 			return status.getModificationTime();
 		}
 		throw new IOException("Cannot get timestamp for " + getDescription());
@@ -195,22 +245,36 @@ class HdfsResource implements ContextResource, WritableResource {
 
 	@Override
 	public InputStream getInputStream() throws IOException {
-		if (exists) {
-			InputStream stream = fs.open(path);
-
-			if (codecsFactory != null) {
-				CompressionCodec codec = codecsFactory.getCodec(path);
-				if (codec != null) {
-					// the pool is not used since the returned inputstream needs to be decorated
-					// to return the decompressor on close which can mask the actual stream
-					// it's also unclear whether the pool is actually useful or not
-					// Decompressor decompressor = CodecPool.getDecompressor(codec);
-					// stream = (decompressor != null ? codec.createInputStream(stream, decompressor) : codec.createInputStream(stream));
-					stream = codec.createInputStream(stream);
+		if (exists()) {
+			FSDataInputStream stream = (bufferSize > 0 ? fs.open(path, bufferSize) : fs.open(path));
+			if (readahead >= 0) {
+				try {
+					stream.setReadahead(readahead);
+				} catch (UnsupportedOperationException e) {
+					// readahead is only a hint, not all file systems support it
 				}
 			}
 
-			return stream;
+			CompressionCodec codec = (codecsFactory != null ? codecsFactory.getCodec(path) : null);
+			if (codec == null) {
+				return stream;
+			}
+			// decompressor is returned to the pool when stream is closed
+			Decompressor decompressor = CodecPool.getDecompressor(codec);
+			try {
+				if (decompressor == null) {
+					return codec.createInputStream(stream);
+				}
+				return new PooledDecompressorInputStream(codec.createInputStream(stream, decompressor), decompressor);
+			} catch (IOException e) {
+				CodecPool.returnDecompressor(decompressor);
+				stream.close();
+				throw e;
+			} catch (RuntimeException e) {
+				CodecPool.returnDecompressor(decompressor);
+				stream.close();
+				throw e;
+			}
 		}
 		throw new IOException("Cannot open stream for " + getDescription());
 	}
@@ -252,16 +316,17 @@ class HdfsResource implements ContextResource, WritableResource {
 			return fs.create(path, true);
 		} finally {
 			exists = true;
+			// status changes with writes, fetch again when needed
+			status = null;
+			resolved = false;
 		}
 	}
 
 	@Override
+	@SuppressWarnings("deprecation")
 	public boolean isWritable() {
-		try {
-			return ((exists && fs.isFile(path)) || (!exists));
-		} catch (IOException ex) {
-			return false;
-		}
+		FileStatus status = getStatus();
+		return (status == null || !status.isDir());
 	}
 
 	/**
@@ -272,4 +337,33 @@ class HdfsResource implements ContextResource, WritableResource {
 	Path getPath() {
 		return path;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Stream returning a pooled {@link Decompressor} when closed.
+	 */
+	private static class PooledDecompressorInputStream extends FilterInputStream {
+
+		private Decompressor decompressor;
+
+		PooledDecompressorInputStream(InputStream in, Decompressor decompressor) {
+			super(in);
+			this.decompressor = decompressor;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			} finally {
+				// stream may be closed more than once
+				synchronized (this) {
+					if (decompressor != null) {
+						CodecPool.returnDecompressor(decompressor);
+						decompressor = null;
+					}
+				}
+			}
+		}
+	}
+
+}
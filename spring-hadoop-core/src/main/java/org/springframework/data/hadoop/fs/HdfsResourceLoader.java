@@ -18,10 +18,15 @@ package org.springframework.data.hadoop.fs;
 
 import java.io.Closeable;
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URI;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.logging.Log;
@@ -71,6 +76,13 @@ public class HdfsResourceLoader extends DefaultResourceLoader implements Resourc
 	/** Flag telling if path without prefix is routed to hdfs */
 	private volatile boolean handleNoprefix = true;
 
+	/** Buffer size and readahead for resource streams, defaults if not set */
+	private volatile int readBufferSize;
+	private volatile long readahead = -1;
+
+	/** Walker listing directory trees for patterns */
+	private volatile FileTreeWalker walker = new FileTreeWalker();
+
 	/** If we're impersonating a user */
 	private String impersonatedUser = null;
 
@@ -140,7 +152,7 @@ public class HdfsResourceLoader extends DefaultResourceLoader implements Resourc
 	@Override
 	protected Resource getResourceByPath(String path) {
 		if (handleNoprefix) {
-			return new HdfsResource(stripLeadingTilde(path), fs, codecs());
+			return configure(new HdfsResource(stripLeadingTilde(path), fs, codecs()));
 		} else {
 			return super.getResourceByPath(path);
 		}
@@ -189,6 +201,7 @@ public class HdfsResourceLoader extends DefaultResourceLoader implements Resourc
 
 	@Override
 	public void close() throws IOException {
+		walker.close();
 		if (fs != null && internalFS) {
 			try {
 				fs.close();
@@ -241,6 +254,39 @@ public class HdfsResourceLoader extends DefaultResourceLoader implements Resourc
 		this.useCodecs = useCodecs;
 	}
 
+	/**
+	 * Sets the buffer size used to open resource input streams. Default is
+	 * to use a file system default buffer size.
+	 *
+	 * @param readBufferSize the read buffer size
+	 */
+	public void setReadBufferSize(int readBufferSize) {
+		this.readBufferSize = readBufferSize;
+	}
+
+	/**
+	 * Sets the readahead in bytes requested for resource input streams. Only
+	 * a hint which is ignored by file systems not supporting it. Default is
+	 * to use a file system default readahead.
+	 *
+	 * @param readahead the readahead
+	 */
+	public void setReadahead(long readahead) {
+		this.readahead = readahead;
+	}
+
+	/**
+	 * Sets the max number of directories listed concurrently when resolving
+	 * location patterns. Default is one, listing directories serially.
+	 *
+	 * @param listingParallelism the listing parallelism
+	 */
+	public void setListingParallelism(int listingParallelism) {
+		FileTreeWalker old = walker;
+		walker = new FileTreeWalker(listingParallelism);
+		old.close();
+	}
+
 	/**
 	 * Sets the resource pattern resolver.
 	 *
@@ -313,10 +359,11 @@ public class HdfsResourceLoader extends DefaultResourceLoader implements Resourc
 		if (log.isDebugEnabled()) {
 			log.debug("Looking for matching resources in directory tree [" + rootDir.toUri().getPath() + "]");
 		}
-		Set<Path> matchingFiles = retrieveMatchingFiles(rootDir, subPattern);
+		Collection<FileStatus> matchingFiles = retrieveMatchingFileStatuses(rootDir, subPattern);
 		Set<Resource> result = new LinkedHashSet<Resource>(matchingFiles.size());
-		for (Path path : matchingFiles) {
-			result.add(new HdfsResource(path, fs, codecs()));
+		for (FileStatus status : matchingFiles) {
+			// status from listing is reused to avoid extra calls per resource
+			result.add(configure(new HdfsResource(status, fs, codecs())));
 		}
 		return result;
 	}
@@ -330,19 +377,37 @@ public class HdfsResourceLoader extends DefaultResourceLoader implements Resourc
 	 * @return the Set of matching Path instances
 	 * @throws IOException if directory contents could not be retrieved
 	 */
-	@SuppressWarnings("deprecation")
 	protected Set<Path> retrieveMatchingFiles(Path rootDir, String pattern) throws IOException {
-		boolean exists = fs.exists(rootDir);
-		if (!exists) {
+		Collection<FileStatus> statuses = retrieveMatchingFileStatuses(rootDir, pattern);
+		Set<Path> result = new LinkedHashSet<Path>(statuses.size());
+		for (FileStatus status : statuses) {
+			result.add(status.getPath());
+		}
+		return result;
+	}
+
+	/**
+	 * Retrieve statuses of files that match the given path pattern,
+	 * checking the given directory and its subdirectories. Statuses
+	 * are the ones returned from directory listings.
+	 *
+	 * @param rootDir the directory to start from
+	 * @param pattern the pattern to match against, relative to the root directory
+	 * @return the matching file statuses
+	 * @throws IOException if directory contents could not be retrieved
+	 */
+	@SuppressWarnings("deprecation")
+	protected Collection<FileStatus> retrieveMatchingFileStatuses(Path rootDir, String pattern) throws IOException {
+		FileStatus fileStatus;
+		try {
+			fileStatus = fs.getFileStatus(rootDir);
+		} catch (FileNotFoundException e) {
 			// Silently skip non-existing directories.
 			if (log.isDebugEnabled()) {
 				log.debug("Skipping [" + rootDir.toUri().getPath() + "] because it does not exist");
 			}
 			return Collections.emptySet();
 		}
-		// previous exists() should make sure we don't
-		// get FileNotFoundException
-		FileStatus fileStatus = fs.getFileStatus(rootDir);
 		if (!fileStatus.isDir()) {
 			// Complain louder if it exists but is no directory.
 			if (log.isWarnEnabled()) {
@@ -355,9 +420,9 @@ public class HdfsResourceLoader extends DefaultResourceLoader implements Resourc
 			fullPattern += "/";
 		}
 		fullPattern = fullPattern + StringUtils.replace(pattern, File.separator, "/");
-		Set<Path> result = new LinkedHashSet<Path>(8);
-		doRetrieveMatchingFiles(fullPattern, rootDir, result);
-		return result;
+		Map<Path, FileStatus> result = new LinkedHashMap<Path, FileStatus>(8);
+		doRetrieveMatchingFileStatuses(fullPattern, rootDir, result);
+		return result.values();
 	}
 
 	/**
@@ -369,37 +434,50 @@ public class HdfsResourceLoader extends DefaultResourceLoader implements Resourc
 	 * @param result the Set of matching File instances to add to
 	 * @throws IOException if directory contents could not be retrieved
 	 */
-	@SuppressWarnings("deprecation")
 	protected void doRetrieveMatchingFiles(String fullPattern, Path dir, Set<Path> result) throws IOException {
+		Map<Path, FileStatus> statuses = new LinkedHashMap<Path, FileStatus>();
+		doRetrieveMatchingFileStatuses(fullPattern, dir, statuses);
+		result.addAll(statuses.keySet());
+	}
+
+	/**
+	 * Recursively retrieve statuses of files that match the given pattern,
+	 * adding them to the given result map keyed by path.
+	 *
+	 * @param fullPattern the pattern to match against, with prepended root directory path
+	 * @param dir the current directory
+	 * @param result the map of matching file statuses to add to
+	 * @throws IOException if directory contents could not be retrieved
+	 */
+	protected void doRetrieveMatchingFileStatuses(final String fullPattern, Path dir, Map<Path, FileStatus> result)
+			throws IOException {
 		if (log.isDebugEnabled()) {
 			log.debug("Searching directory [" + dir.toUri().getPath() +
 					"] for files matching pattern [" + fullPattern + "]");
 		}
 
-		FileStatus[] dirContents = null;
-		try {
-			dirContents = fs.listStatus(dir);
-		} catch (IOException ex) {
-			// ignore (likely security exception)
-		}
+		List<FileStatus> matches = walker.walk(fs, dir, new FileTreeWalker.Filter() {
 
-		if (dirContents == null) {
-			if (log.isWarnEnabled()) {
-				log.warn("Could not retrieve contents of directory [" + dir.toUri().getPath() + "]");
-			}
-			return;
-		}
-		for (FileStatus content : dirContents) {
-			String currPath = StringUtils.replace(content.getPath().toUri().getPath(), File.separator, "/");
-			if (content.isDir() && pathMatcher.matchStart(fullPattern, currPath + "/")) {
-				doRetrieveMatchingFiles(fullPattern, content.getPath(), result);
+			@Override
+			public boolean accept(FileStatus status) {
+				return pathMatcher.match(fullPattern, toPatternPath(status));
 			}
-			if (pathMatcher.match(fullPattern, currPath)) {
-				result.add(content.getPath());
+
+			@Override
+			public boolean descend(FileStatus status) {
+				// prune subtrees which can't match
+				return pathMatcher.matchStart(fullPattern, toPatternPath(status) + "/");
 			}
+		}, false);
+		for (FileStatus status : matches) {
+			result.put(status.getPath(), status);
 		}
 	}
 
+	private static String toPatternPath(FileStatus status) {
+		return StringUtils.replace(status.getPath().toUri().getPath(), File.separator, "/");
+	}
+
 	/**
 	 * Determine the root directory for the given location.
 	 * <p>Used for determining the starting point for file matching,
@@ -430,6 +508,11 @@ public class HdfsResourceLoader extends DefaultResourceLoader implements Resourc
 		return locationPattern;
 	}
 
+	private HdfsResource configure(HdfsResource resource) {
+		resource.setReadOptions(readBufferSize, readahead);
+		return resource;
+	}
+
 	private CompressionCodecFactory codecs() {
 		return (useCodecs ? codecsFactory : null);
 	}
@@ -17,7 +17,9 @@ package org.springframework.data.hadoop.store.dataset;
 
 import java.io.IOException;
 
+import org.kitesdk.data.Dataset;
 import org.kitesdk.data.DatasetReader;
+import org.kitesdk.data.View;
 import org.springframework.data.hadoop.store.DataStoreReader;
 import org.springframework.data.hadoop.store.StoreException;
 import org.springframework.util.Assert;
@@ -44,6 +46,11 @@ public abstract class AbstractDatasetStoreReader<T, R> implements DataStoreReade
 
 	private boolean closed = false;
 
+	/** Set when view callback didn't give a view to read */
+	private boolean empty = false;
+
+	private ViewCallback viewCallback;
+
 	/**
 	 * Instantiates a new abstract dataset store reader.
 	 *
@@ -66,8 +73,15 @@ public abstract class AbstractDatasetStoreReader<T, R> implements DataStoreReade
 		if (closed) {
 			throw new StoreException("Reader is already closed");
 		}
+		if (empty) {
+			return null;
+		}
 		if (reader == null) {
 			reader = createReader();
+			if (reader == null) {
+				empty = true;
+				return null;
+			}
 		}
 		if (reader.hasNext()) {
 			return convertEntity(reader.next());
@@ -85,6 +99,16 @@ public abstract class AbstractDatasetStoreReader<T, R> implements DataStoreReade
 		}
 	}
 
+	/**
+	 * Sets the view callback used to create a {@link View} to read
+	 * instead of reading a whole dataset.
+	 *
+	 * @param viewCallback the new view callback
+	 */
+	public void setViewCallback(ViewCallback viewCallback) {
+		this.viewCallback = viewCallback;
+	}
+
 	/**
 	 * Gets the entity class.
 	 *
@@ -112,6 +136,31 @@ public abstract class AbstractDatasetStoreReader<T, R> implements DataStoreReade
 		return datasetDefinition;
 	}
 	
+	/**
+	 * Gets the view callback.
+	 *
+	 * @return the view callback
+	 */
+	protected ViewCallback getViewCallback() {
+		return viewCallback;
+	}
+
+	/**
+	 * Gets a {@link View} to read from a dataset. If view callback is
+	 * set, view is created with it, otherwise dataset itself is used.
+	 *
+	 * @param <V> the type of entity in a view
+	 * @param dataset the dataset
+	 * @param type the type of entity in a view
+	 * @return the view or <code>null</code> if there is nothing to read
+	 */
+	protected <V> View<V> getView(Dataset<V> dataset, Class<V> type) {
+		if (viewCallback == null) {
+			return dataset;
+		}
+		return viewCallback.doInView(dataset, type);
+	}
+
 	/**
 	 * Convert entity used by a reading into a entity
 	 * returned.
@@ -124,7 +173,7 @@ public abstract class AbstractDatasetStoreReader<T, R> implements DataStoreReade
 	/**
 	 * Creates a {@link DatasetReader}.
 	 *
-	 * @return the dataset reader
+	 * @return the dataset reader or <code>null</code> if there is nothing to read
 	 */
 	protected abstract DatasetReader<R> createReader();
 
@@ -17,6 +17,7 @@ package org.springframework.data.hadoop.store.dataset;
 
 import org.kitesdk.data.Dataset;
 import org.kitesdk.data.DatasetReader;
+import org.kitesdk.data.View;
 
 /**
  * A {@code DataStoreReader} for reading Datasets using the Avro format.
@@ -42,7 +43,8 @@ public class AvroPojoDatasetStoreReader<T> extends AbstractDatasetStoreReader<T,
 	protected DatasetReader<T> createReader() {
 		Dataset<T> dataset = DatasetUtils.getOrCreateDataset(getDatasetRepositoryFactory(), getDatasetDefinition(),
 		getEntityClass(), getEntityClass());
-		return dataset.newReader();
+		View<T> view = getView(dataset, getEntityClass());
+		return view != null ? view.newReader() : null;
 	}
 		
 
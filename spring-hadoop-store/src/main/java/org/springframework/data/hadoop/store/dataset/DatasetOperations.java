@@ -17,6 +17,7 @@
 package org.springframework.data.hadoop.store.dataset;
 
 import org.kitesdk.data.DatasetDescriptor;
+import org.springframework.data.hadoop.store.DataStoreReader;
 
 import java.util.Collection;
 
@@ -67,6 +68,47 @@ public interface DatasetOperations {
 	 */
 	<T> Collection<T> read(Class<T> targetClass, ViewCallback viewCallback);
 
+	/**
+	 * Read all records in the dataset and call the provided callback with batches of records.
+	 * Only one batch of records is kept in memory at a time.
+	 *
+	 * @param targetClass the class that is stored in the dataset
+	 * @param callback the callback to be called for each batch of records
+	 * @param <T> the class type
+	 */
+	<T> void read(Class<T> targetClass, RecordBatchCallback<T> callback);
+
+	/**
+	 * Read records in the dataset partition based on a {@link org.kitesdk.data.RefinableView} and call the provided
+	 * callback with batches of records. Only one batch of records is kept in memory at a time.
+	 *
+	 * @param targetClass the class that is stored in the dataset
+	 * @param callback the callback to be called for each batch of records
+	 * @param viewCallback the view callback to create the view
+	 * @param <T> the class type
+	 */
+	<T> void read(Class<T> targetClass, RecordBatchCallback<T> callback, ViewCallback viewCallback);
+
+	/**
+	 * Get a reader streaming all records in the dataset. Reader needs to be closed by the caller.
+	 *
+	 * @param targetClass the class that is stored in the dataset
+	 * @param <T> the class type
+	 * @return the reader returning records as the specified target class
+	 */
+	<T> DataStoreReader<T> getReader(Class<T> targetClass);
+
+	/**
+	 * Get a reader streaming records in the dataset partition based on the {@link org.kitesdk.data.RefinableView}.
+	 * Reader needs to be closed by the caller.
+	 *
+	 * @param targetClass the class that is stored in the dataset
+	 * @param viewCallback the view callback to create the view
+	 * @param <T> the class type
+	 * @return the reader returning records as the specified target class
+	 */
+	<T> DataStoreReader<T> getReader(Class<T> targetClass, ViewCallback viewCallback);
+
 	/**
 	 * Write all records provided in the record collection
 	 *
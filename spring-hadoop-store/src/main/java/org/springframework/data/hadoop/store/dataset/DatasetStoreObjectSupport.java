@@ -17,15 +17,14 @@ package org.springframework.data.hadoop.store.dataset;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.springframework.core.task.TaskExecutor;
-import org.springframework.data.hadoop.store.support.IdleTimeoutTrigger;
+import org.springframework.data.hadoop.store.support.HashedWheelTimeoutService;
+import org.springframework.data.hadoop.store.support.IdleTimeoutTask;
 import org.springframework.data.hadoop.store.support.LifecycleObjectSupport;
-import org.springframework.data.hadoop.store.support.PollingTaskSupport;
-import org.springframework.scheduling.TaskScheduler;
-import org.springframework.scheduling.Trigger;
+import org.springframework.data.hadoop.store.support.PeriodicTimeoutTask;
+import org.springframework.util.Assert;
 
 /**
- * Support class adding timeout poller functionality.
+ * Support class adding timeout functionality.
  *
  * @author Janne Valkealahti
  *
@@ -34,24 +33,14 @@ public class DatasetStoreObjectSupport extends LifecycleObjectSupport {
 
 	private static final Log log = LogFactory.getLog(DatasetStoreObjectSupport.class);
 
-	/** Poller checking idle timeouts */
-	private IdleTimeoutPoller idlePoller;
+	/** Task checking idle timeouts */
+	private volatile IdleTimeoutTask idleTask;
 
-	/** Trigger in poller */
-	private volatile IdleTimeoutTrigger idleTrigger;
+	/** Task handling close timeouts */
+	private PeriodicTimeoutTask closeTask;
 
-	/** Poller checking idle timeouts */
-	private CloseTimeoutPoller closePoller;
-
-	/** Trigger in poller */
-	private volatile IdleTimeoutTrigger closeTrigger;
-
-	/**
-	 * In millis last idle time reset. We explicitly use negative value to indicate reset state
-	 * because we can't use long max value which would flip if adding something. We reset this
-	 * state when idle timeout happens so that we can wait next idle time.
-	 */
-	private volatile long lastIdle = Long.MIN_VALUE;
+	/** Service where timeout deadlines are registered */
+	private HashedWheelTimeoutService timeoutService;
 
 	/** In millis an idle timeout for writer/reader. */
 	private volatile long idleTimeout;
@@ -61,41 +50,53 @@ public class DatasetStoreObjectSupport extends LifecycleObjectSupport {
 
 	@Override
 	protected void onInit() throws Exception {
-		// if we have timeout, enable polling by creating it
+		HashedWheelTimeoutService service = getTimeoutService();
+		// if we have timeout, enable tracking by creating it
 		if (idleTimeout > 0) {
-			idleTrigger = new IdleTimeoutTrigger(idleTimeout);
-			idlePoller = new IdleTimeoutPoller(getTaskScheduler(), getTaskExecutor(), idleTrigger);
-			idlePoller.init();
+			idleTask = new IdleTimeoutTask(service, getTaskExecutor(), new Runnable() {
+
+				@Override
+				public void run() {
+					if (log.isDebugEnabled()) {
+						log.debug("Idle timeout detected, calling handleTimeout()");
+					}
+					handleTimeout();
+				}
+			}, idleTimeout);
 		}
-		// if we have close timeout, setup trigger with delay
+		// if we have close timeout, setup periodic task
 		if (closeTimeout > 0) {
-			closeTrigger = new IdleTimeoutTrigger(closeTimeout);
-			closeTrigger.setInitialDelay(closeTimeout);
-			closePoller = new CloseTimeoutPoller(getTaskScheduler(), getTaskExecutor(), closeTrigger);
-			closePoller.init();
+			closeTask = new PeriodicTimeoutTask(service, getTaskExecutor(), new Runnable() {
+
+				@Override
+				public void run() {
+					if (log.isDebugEnabled()) {
+						log.debug("Close timeout detected, calling handleTimeout()");
+					}
+					handleTimeout();
+				}
+			}, closeTimeout);
 		}
 	}
 
 	@Override
 	protected void doStart() {
-		if (idlePoller != null) {
-			idlePoller.start();
+		if (idleTask != null) {
+			idleTask.start();
 		}
-		if (closePoller != null) {
-			closePoller.start();
+		if (closeTask != null) {
+			closeTask.start();
 		}
 	}
 
 	@Override
 	protected void doStop() {
-		if (idlePoller != null) {
-			idlePoller.stop();
+		if (idleTask != null) {
+			idleTask.stop();
 		}
-		idlePoller = null;
-		if (closePoller != null) {
-			closePoller.stop();
+		if (closeTask != null) {
+			closeTask.stop();
 		}
-		closePoller = null;
 	}
 
 	/**
@@ -117,80 +118,45 @@ public class DatasetStoreObjectSupport extends LifecycleObjectSupport {
 	}
 
 	/**
-	 * Reset idle timeout.
+	 * Sets the timeout service used to track idle and close
+	 * timeouts. If not set, a shared {@link HashedWheelTimeoutService}
+	 * is used.
+	 *
+	 * @param timeoutService the new timeout service
 	 */
-	public void resetIdleTimeout() {
-		lastIdle = System.currentTimeMillis();
+	public void setTimeoutService(HashedWheelTimeoutService timeoutService) {
+		Assert.notNull(timeoutService, "Timeout service must not be null");
+		this.timeoutService = timeoutService;
 	}
 
 	/**
-	 * Handle idle timeout. This method should be overriden
-	 * to be notified of idle timeouts. Default implementation
-	 * doesn't do anything.
+	 * Gets the timeout service.
+	 *
+	 * @return the timeout service
 	 */
-	protected void handleTimeout() {
+	protected HashedWheelTimeoutService getTimeoutService() {
+		if (timeoutService == null) {
+			timeoutService = HashedWheelTimeoutService.getSharedInstance();
+		}
+		return timeoutService;
 	}
 
 	/**
-	 * Poller which checks idle timeout by last write and closes a writer if timeout has occurred.
+	 * Reset idle timeout.
 	 */
-	private class IdleTimeoutPoller extends PollingTaskSupport<Boolean> {
-
-		public IdleTimeoutPoller(TaskScheduler taskScheduler, TaskExecutor taskExecutor, Trigger trigger) {
-			super(taskScheduler, taskExecutor, trigger);
-		}
-
-		@Override
-		protected Boolean doPoll() {
-			if (log.isDebugEnabled()) {
-				log.debug("Polling idle timeout with idleTimeout=" + idleTimeout + " lastIdle=" + lastIdle);
-			}
-			// return true if we've been idle too long
-			return idleTimeout > 0 && lastIdle > 0 && lastIdle + idleTimeout < System.currentTimeMillis();
-		}
-
-		@Override
-		protected void onPollResult(Boolean result) {
-			if (result) {
-				try {
-					if (log.isDebugEnabled()) {
-						log.debug("Idle timeout detected, calling handleTimeout()");
-					}
-					handleTimeout();
-				} catch (Exception e) {
-					// TODO: handle error
-					log.error("error closing", e);
-				} finally {
-					// reset lastIdle so we can wait new timeout
-					lastIdle = Long.MIN_VALUE;
-				}
-			}
+	public void resetIdleTimeout() {
+		IdleTimeoutTask task = idleTask;
+		if (task != null) {
+			task.touch();
 		}
-
 	}
 
 	/**
-	 * Poller which gets called by a close timeout and closes a writer.
+	 * Handle idle timeout. This method should be overriden
+	 * to be notified of idle timeouts. Default implementation
+	 * doesn't do anything.
 	 */
-	private class CloseTimeoutPoller extends PollingTaskSupport<Void> {
-
-		public CloseTimeoutPoller(TaskScheduler taskScheduler, TaskExecutor taskExecutor, Trigger trigger) {
-			super(taskScheduler, taskExecutor, trigger);
-		}
-
-		@Override
-		protected Void doPoll() {
-			try {
-				if (log.isDebugEnabled()) {
-					log.debug("Close timeout detected, calling handleTimeout()");
-				}
-				handleTimeout();
-			} catch (Exception e) {
-				// TODO: handle error
-				log.error("error closing", e);
-			}
-			return null;
-		}
+	protected void handleTimeout() {
 	}
 
 }
@@ -20,21 +20,33 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledFuture;
 
-import org.apache.avro.Schema;
-import org.apache.avro.generic.GenericRecord;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.kitesdk.data.Dataset;
 import org.kitesdk.data.DatasetDescriptor;
 import org.kitesdk.data.DatasetNotFoundException;
 import org.kitesdk.data.DatasetReader;
 import org.kitesdk.data.DatasetWriter;
 import org.kitesdk.data.Formats;
+import org.kitesdk.data.PartitionStrategy;
 import org.kitesdk.data.RefinableView;
-import org.springframework.beans.BeanWrapper;
-import org.springframework.beans.PropertyAccessorFactory;
+import org.kitesdk.data.spi.Accessor;
+import org.kitesdk.data.spi.FieldPartitioner;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.hadoop.store.DataStoreReader;
 import org.springframework.data.hadoop.store.DataStoreWriter;
 import org.springframework.data.hadoop.store.StoreException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.util.Assert;
 
 /**
@@ -44,7 +56,12 @@ import org.springframework.util.Assert;
  * @author Thomas Risberg
  * @since 2.0
  */
-public class DatasetTemplate implements InitializingBean, DatasetOperations {
+public class DatasetTemplate implements InitializingBean, DisposableBean, DatasetOperations {
+
+	private final static Log log = LogFactory.getLog(DatasetTemplate.class);
+
+	/** Default number of records passed to a batch callback */
+	public static final int DEFAULT_READ_BATCH_SIZE = 1000;
 
 	private DatasetRepositoryFactory dsFactory;
 
@@ -52,6 +69,32 @@ public class DatasetTemplate implements InitializingBean, DatasetOperations {
 
 	private HashMap<String, DatasetDefinition> datasetDefinitions = new HashMap<String, DatasetDefinition>();
 
+	private int readBatchSize = DEFAULT_READ_BATCH_SIZE;
+
+	private boolean reuseWriters;
+
+	private long writerRolloverRecords;
+
+	private long writerRolloverInterval;
+
+	private int writeParallelism = 1;
+
+	private TaskExecutor writeTaskExecutor;
+
+	/** Pool created when write task executor is not set, shut down on destroy */
+	private ThreadPoolTaskExecutor defaultWriteTaskExecutor;
+
+	private TaskScheduler taskScheduler;
+
+	/** Scheduler created when task scheduler is not set, shut down on destroy */
+	private ThreadPoolTaskScheduler defaultTaskScheduler;
+
+	/** Periodic check rolling over writers by time */
+	private ScheduledFuture<?> rolloverCheck;
+
+	/** Writers kept open per entity class when writers are reused */
+	private final ConcurrentMap<Class<?>, CachedWriter<?>> writers = new ConcurrentHashMap<Class<?>, CachedWriter<?>>();
+
 	public DatasetTemplate() {
 	}
 
@@ -118,6 +161,88 @@ public class DatasetTemplate implements InitializingBean, DatasetOperations {
 		}
 	}
 
+	/**
+	 * The max number of records passed to a {@link RecordBatchCallback} at a time.
+	 *
+	 * @param readBatchSize the read batch size
+	 */
+	public void setReadBatchSize(int readBatchSize) {
+		Assert.isTrue(readBatchSize > 0, "Read batch size must be positive");
+		this.readBatchSize = readBatchSize;
+	}
+
+	/**
+	 * Whether writers are kept open between writes. If enabled, records written
+	 * by subsequent {@link #write(Collection)} calls end up into same files until
+	 * a writer is rolled over or writers are closed with {@link #closeWriters()}.
+	 * Writers are also closed when this template is destroyed.
+	 *
+	 * @param reuseWriters the flag to reuse writers
+	 */
+	public void setReuseWriters(boolean reuseWriters) {
+		this.reuseWriters = reuseWriters;
+	}
+
+	/**
+	 * The number of records after which a reused writer is closed and a new
+	 * one opened. Zero disables record based rollover.
+	 *
+	 * @param writerRolloverRecords the record count
+	 */
+	public void setWriterRolloverRecords(long writerRolloverRecords) {
+		this.writerRolloverRecords = writerRolloverRecords;
+	}
+
+	/**
+	 * The time in millis after which a reused writer is closed and a new
+	 * one opened. Checked when records are written and periodically with
+	 * a task scheduler, thus writers are closed even if nothing is written
+	 * anymore. Zero disables time based rollover.
+	 *
+	 * @param writerRolloverInterval the rollover interval in millis
+	 */
+	public void setWriterRolloverInterval(long writerRolloverInterval) {
+		this.writerRolloverInterval = writerRolloverInterval;
+	}
+
+	/**
+	 * The number of concurrent writers per entity class used when writers are
+	 * reused. With a partition strategy records are distributed by partition so
+	 * that a partition is written by a single writer. Must be set before
+	 * anything is written as reused writers are created with a parallelism
+	 * in effect at that time.
+	 *
+	 * @param writeParallelism the write parallelism
+	 * @throws IllegalStateException if writers have already been created
+	 */
+	public void setWriteParallelism(int writeParallelism) {
+		Assert.isTrue(writeParallelism > 0, "Write parallelism must be positive");
+		Assert.state(writers.isEmpty(), "Write parallelism can't be changed after writers have been created");
+		this.writeParallelism = writeParallelism;
+	}
+
+	/**
+	 * The task executor running concurrent writes. If not set, a pool of
+	 * daemon threads sized to the write parallelism is created and shut
+	 * down when this template is destroyed.
+	 *
+	 * @param writeTaskExecutor the write task executor
+	 */
+	public void setWriteTaskExecutor(TaskExecutor writeTaskExecutor) {
+		this.writeTaskExecutor = writeTaskExecutor;
+	}
+
+	/**
+	 * The task scheduler running periodic checks for time based writer
+	 * rollover. If not set, a scheduler with a single daemon thread is
+	 * created when needed and shut down when this template is destroyed.
+	 *
+	 * @param taskScheduler the task scheduler
+	 */
+	public void setTaskScheduler(TaskScheduler taskScheduler) {
+		this.taskScheduler = taskScheduler;
+	}
+
 	@Override
 	public void afterPropertiesSet() throws Exception {
 		Assert.notNull(dsFactory, "The datasetRepositoryFactory property is required");
@@ -133,15 +258,7 @@ public class DatasetTemplate implements InitializingBean, DatasetOperations {
 
 	@Override
 	public <T> Collection<T> read(Class<T> targetClass) {
-		DatasetDescriptor descriptor = getDatasetDescriptor(targetClass);
-		if (descriptor == null) {
-			throw new StoreException("Unable to locate dataset for target class " + targetClass.getName());
-		}
-		if (Formats.PARQUET.equals(descriptor.getFormat())) {
-			return readGenericRecords(targetClass, null);
-		} else {
-			return readPojo(targetClass, null);
-		}
+		return readAll(targetClass, null);
 	}
 
 	@Override
@@ -151,15 +268,43 @@ public class DatasetTemplate implements InitializingBean, DatasetOperations {
 
 	@Override
 	public <T> Collection<T> read(Class<T> targetClass, ViewCallback viewCallback) {
+		return readAll(targetClass, viewCallback);
+	}
+
+	@Override
+	public <T> void read(Class<T> targetClass, RecordBatchCallback<T> callback) {
+		readInBatches(targetClass, callback, null);
+	}
+
+	@Override
+	public <T> void read(Class<T> targetClass, RecordBatchCallback<T> callback, ViewCallback viewCallback) {
+		readInBatches(targetClass, callback, viewCallback);
+	}
+
+	@Override
+	public <T> DataStoreReader<T> getReader(Class<T> targetClass) {
+		return getReader(targetClass, null);
+	}
+
+	@Override
+	public <T> DataStoreReader<T> getReader(Class<T> targetClass, ViewCallback viewCallback) {
 		DatasetDescriptor descriptor = getDatasetDescriptor(targetClass);
 		if (descriptor == null) {
 			throw new StoreException("Unable to locate dataset for target class " + targetClass.getName());
 		}
+		DatasetDefinition datasetDefinition = getDatasetDefinitionToUseFor(targetClass);
+		if (datasetDefinition == null) {
+			// dataset exists, thus definition is not used to create it
+			datasetDefinition = new DatasetDefinition();
+		}
+		AbstractDatasetStoreReader<T, ?> reader;
 		if (Formats.PARQUET.equals(descriptor.getFormat())) {
-			return readGenericRecords(targetClass, viewCallback);
+			reader = new ParquetDatasetStoreReader<T>(targetClass, dsFactory, datasetDefinition);
 		} else {
-			return readPojo(targetClass, viewCallback);
+			reader = new AvroPojoDatasetStoreReader<T>(targetClass, dsFactory, datasetDefinition);
 		}
+		reader.setViewCallback(viewCallback);
+		return reader;
 	}
 
 	private <T> void readWithCallback(Class<T> targetClass, RecordCallback<T> callback, ViewCallback viewCallback) {
@@ -187,68 +332,47 @@ public class DatasetTemplate implements InitializingBean, DatasetOperations {
 		}
 	}
 
-	private <T> Collection<T> readPojo(Class<T> targetClass, ViewCallback viewCallback) {
-		Dataset<T> dataset = DatasetUtils.getDataset(dsFactory, targetClass);
-		if (dataset == null) {
-			throw new StoreException("Unable to locate dataset for target class " + targetClass.getName());
-		}
-		DatasetReader<T> reader = null;
-		if (viewCallback == null) {
-			reader = dataset.newReader();
-		} else {
-			RefinableView<T> view = viewCallback.doInView(dataset, targetClass);
-			if (view != null) {
-				reader = view.newReader();
-			}
-		}
-		List<T> results = new ArrayList<T>();
-		if (reader != null) {
-			try {
-				for (T r : reader) {
-					results.add(r);
-				}
-			}
-			finally {
-				reader.close();
+	private <T> Collection<T> readAll(Class<T> targetClass, ViewCallback viewCallback) {
+		final List<T> results = new ArrayList<T>();
+		readInBatches(targetClass, new RecordBatchCallback<T>() {
+
+			@Override
+			public void doInBatch(List<T> records) {
+				results.addAll(records);
 			}
-		}
+		}, viewCallback);
 		return results;
 	}
 
-	private <T> Collection<T> readGenericRecords(Class<T> targetClass, ViewCallback viewCallback) {
-		Dataset<GenericRecord> dataset =
-				DatasetUtils.getOrCreateDataset(dsFactory, getDatasetDefinitionToUseFor(targetClass), targetClass, GenericRecord.class);
-		DatasetReader<GenericRecord> reader = null;
-		if (viewCallback == null) {
-			reader = dataset.newReader();
-		} else {
-			RefinableView<GenericRecord> view = viewCallback.doInView(dataset, GenericRecord.class);
-			if (view != null) {
-				reader = view.newReader();
+	private <T> void readInBatches(Class<T> targetClass, RecordBatchCallback<T> callback, ViewCallback viewCallback) {
+		DataStoreReader<T> reader = getReader(targetClass, viewCallback);
+		List<T> batch = new ArrayList<T>(readBatchSize);
+		boolean succeeded = false;
+		try {
+			T record;
+			while ((record = reader.read()) != null) {
+				batch.add(record);
+				if (batch.size() >= readBatchSize) {
+					callback.doInBatch(batch);
+					batch.clear();
+				}
 			}
-		}
-		List<T> results = new ArrayList<T>();
-		if (reader != null) {
+			if (!batch.isEmpty()) {
+				callback.doInBatch(batch);
+			}
+			succeeded = true;
+		} catch (IOException e) {
+			throw new StoreException("Unable to read records for class: " + targetClass.getName(), e);
+		} finally {
 			try {
-				for (GenericRecord r : reader) {
-					T data = targetClass.newInstance();
-					BeanWrapper beanWrapper = PropertyAccessorFactory.forBeanPropertyAccess(data);
-					for (Schema.Field f : r.getSchema().getFields()) {
-						if (beanWrapper.isWritableProperty(f.name())) {
-							beanWrapper.setPropertyValue(f.name(), r.get(f.name()));
-						}
-					}
-					results.add(data);
-				}
-			} catch (InstantiationException e) {
-				throw new StoreException("Unable to read records for class: " + targetClass.getName(), e);
-			} catch (IllegalAccessException e) {
-				throw new StoreException("Unable to read records for class: " + targetClass.getName(), e);
-			} finally {
 				reader.close();
+			} catch (IOException e) {
+				// don't hide an error from a read itself
+				if (succeeded) {
+					throw new StoreException("Unable to close reader for class: " + targetClass.getName(), e);
+				}
 			}
 		}
-		return results;
 	}
 
 	@Override
@@ -259,13 +383,11 @@ public class DatasetTemplate implements InitializingBean, DatasetOperations {
 		//TODO: add support for using Spring Data Commons MappingContext
 		@SuppressWarnings("unchecked")
 		Class<T> pojoClass = (Class<T>) records.iterator().next().getClass();
-		DatasetDefinition datasetDefinition = getDatasetDefinitionToUseFor(pojoClass);
-		DataStoreWriter<T> writer;
-		if (Formats.PARQUET.getName().equals(datasetDefinition.getFormat().getName())) {
-			writer = new ParquetDatasetStoreWriter<T>(pojoClass, dsFactory, datasetDefinition);
-		} else {
-			writer = new AvroPojoDatasetStoreWriter<T>(pojoClass, dsFactory, datasetDefinition);
+		if (reuseWriters) {
+			getCachedWriter(pojoClass).write(records);
+			return;
 		}
+		DataStoreWriter<T> writer = createWriter(pojoClass, getDatasetDefinitionToUseFor(pojoClass));
 		try {
 			for (T rec : records) {
 				writer.write(rec);
@@ -281,6 +403,39 @@ public class DatasetTemplate implements InitializingBean, DatasetOperations {
 
 	}
 
+	/**
+	 * Close all writers kept open when writers are reused. Closing
+	 * a writer completes files it has written. Writers are opened
+	 * again on next write.
+	 */
+	public void closeWriters() {
+		for (CachedWriter<?> writer : writers.values()) {
+			writer.close();
+		}
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		synchronized (this) {
+			if (rolloverCheck != null) {
+				rolloverCheck.cancel(false);
+				rolloverCheck = null;
+			}
+		}
+		closeWriters();
+		writers.clear();
+		synchronized (this) {
+			if (defaultTaskScheduler != null) {
+				defaultTaskScheduler.shutdown();
+				defaultTaskScheduler = null;
+			}
+			if (defaultWriteTaskExecutor != null) {
+				defaultWriteTaskExecutor.shutdown();
+				defaultWriteTaskExecutor = null;
+			}
+		}
+	}
+
 	@Override
 	public void execute(DatasetRepositoryCallback callback) {
 		callback.doInRepository(dsFactory.getDatasetRepository());
@@ -301,6 +456,70 @@ public class DatasetTemplate implements InitializingBean, DatasetOperations {
 		return DatasetUtils.getDatasetName(clazz);
 	}
 
+	private <T> DataStoreWriter<T> createWriter(Class<T> pojoClass, DatasetDefinition datasetDefinition) {
+		if (Formats.PARQUET.getName().equals(datasetDefinition.getFormat().getName())) {
+			return new ParquetDatasetStoreWriter<T>(pojoClass, dsFactory, datasetDefinition);
+		} else {
+			return new AvroPojoDatasetStoreWriter<T>(pojoClass, dsFactory, datasetDefinition);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> CachedWriter<T> getCachedWriter(Class<T> pojoClass) {
+		CachedWriter<T> writer = (CachedWriter<T>) writers.get(pojoClass);
+		if (writer == null) {
+			writer = new CachedWriter<T>(pojoClass, getDatasetDefinitionToUseFor(pojoClass));
+			CachedWriter<T> existing = (CachedWriter<T>) writers.putIfAbsent(pojoClass, writer);
+			if (existing != null) {
+				writer = existing;
+			} else if (writerRolloverInterval > 0) {
+				scheduleRolloverCheck();
+			}
+		}
+		return writer;
+	}
+
+	private synchronized void scheduleRolloverCheck() {
+		if (rolloverCheck != null) {
+			return;
+		}
+		TaskScheduler scheduler = taskScheduler;
+		if (scheduler == null) {
+			ThreadPoolTaskScheduler defaultScheduler = new ThreadPoolTaskScheduler();
+			defaultScheduler.setThreadNamePrefix("dataset-rollover-");
+			defaultScheduler.setDaemon(true);
+			defaultScheduler.initialize();
+			defaultTaskScheduler = defaultScheduler;
+			scheduler = defaultScheduler;
+		}
+		// checking twice per interval keeps files open at most 1.5 intervals
+		rolloverCheck = scheduler.scheduleAtFixedRate(new Runnable() {
+
+			@Override
+			public void run() {
+				for (CachedWriter<?> writer : writers.values()) {
+					writer.rolloverIfExpired();
+				}
+			}
+		}, Math.max(writerRolloverInterval / 2, 1));
+	}
+
+	private synchronized TaskExecutor getWriteTaskExecutor() {
+		if (writeTaskExecutor != null) {
+			return writeTaskExecutor;
+		}
+		if (defaultWriteTaskExecutor == null) {
+			ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+			executor.setThreadNamePrefix("dataset-writer-");
+			executor.setDaemon(true);
+			executor.setCorePoolSize(writeParallelism);
+			executor.setMaxPoolSize(writeParallelism);
+			executor.initialize();
+			defaultWriteTaskExecutor = executor;
+		}
+		return defaultWriteTaskExecutor;
+	}
+
 	private DatasetDefinition getDatasetDefinitionToUseFor(Class<?> targetClass) {
 		String datasetName = getDatasetName(targetClass);
 		if (datasetDefinitions.containsKey(datasetName)) {
@@ -309,4 +528,217 @@ public class DatasetTemplate implements InitializingBean, DatasetOperations {
 			return defaultDatasetDefinition;
 		}
 	}
+
+	/**
+	 * Long-lived writers of an entity class. Records are spread over
+	 * lanes each having its own writer. With a partition strategy all
+	 * records of a same partition go to a same lane, thus every lane
+	 * writes files into its own set of partitions.
+	 */
+	private class CachedWriter<T> {
+
+		private final Class<T> pojoClass;
+
+		private final DatasetDefinition datasetDefinition;
+
+		private final WriterLane<T>[] lanes;
+
+		private final List<FieldPartitioner> partitioners;
+
+		private final GenericRecordMapper mapper;
+
+		@SuppressWarnings("unchecked")
+		CachedWriter(Class<T> pojoClass, DatasetDefinition datasetDefinition) {
+			this.pojoClass = pojoClass;
+			this.datasetDefinition = datasetDefinition;
+			this.lanes = new WriterLane[writeParallelism];
+			for (int i = 0; i < lanes.length; i++) {
+				lanes[i] = new WriterLane<T>(this);
+			}
+			PartitionStrategy partitionStrategy = datasetDefinition.getPartitionStrategy();
+			if (lanes.length > 1 && partitionStrategy != null) {
+				this.partitioners = Accessor.getDefault().getFieldPartitioners(partitionStrategy);
+				this.mapper = GenericRecordMapper.getMapper(pojoClass, datasetDefinition.getSchema(pojoClass));
+			} else {
+				this.partitioners = null;
+				this.mapper = null;
+			}
+		}
+
+		synchronized void write(Collection<T> records) {
+			if (lanes.length == 1) {
+				lanes[0].write(records);
+				return;
+			}
+			List<List<T>> split = split(records);
+			List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>();
+			for (int i = 0; i < lanes.length; i++) {
+				final List<T> laneRecords = split.get(i);
+				if (laneRecords.isEmpty()) {
+					continue;
+				}
+				final WriterLane<T> lane = lanes[i];
+				FutureTask<Void> task = new FutureTask<Void>(new Runnable() {
+
+					@Override
+					public void run() {
+						lane.write(laneRecords);
+					}
+				}, null);
+				getWriteTaskExecutor().execute(task);
+				tasks.add(task);
+			}
+			RuntimeException failure = null;
+			for (FutureTask<Void> task : tasks) {
+				try {
+					task.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					if (failure == null) {
+						failure = new StoreException("Interrupted while writing " + pojoClass.getName(), e);
+					}
+				} catch (ExecutionException e) {
+					if (failure == null) {
+						failure = e.getCause() instanceof StoreException ? (StoreException) e.getCause()
+								: new StoreException("Error writing " + pojoClass.getName(), e.getCause());
+					}
+				}
+			}
+			if (failure != null) {
+				throw failure;
+			}
+		}
+
+		synchronized void close() {
+			for (WriterLane<T> lane : lanes) {
+				lane.close();
+			}
+		}
+
+		void rolloverIfExpired() {
+			// lanes are locked one by one, not blocking writes of other lanes
+			for (WriterLane<T> lane : lanes) {
+				lane.closeIfExpired();
+			}
+		}
+
+		private List<List<T>> split(Collection<T> records) {
+			List<List<T>> split = new ArrayList<List<T>>(lanes.length);
+			for (int i = 0; i < lanes.length; i++) {
+				split.add(new ArrayList<T>());
+			}
+			if (partitioners != null) {
+				for (T record : records) {
+					split.get(getLane(record)).add(record);
+				}
+			} else {
+				// without partitions just spread evenly
+				int size = (records.size() + lanes.length - 1) / lanes.length;
+				int i = 0;
+				for (T record : records) {
+					split.get(i++ / size).add(record);
+				}
+			}
+			return split;
+		}
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		private int getLane(T record) {
+			int hash = 1;
+			for (FieldPartitioner fp : partitioners) {
+				Object value = mapper.getValue(record, fp.getSourceName());
+				Object partition = null;
+				if (value != null) {
+					try {
+						partition = fp.apply(value);
+					} catch (RuntimeException e) {
+						// let kite writer complain about the value
+					}
+				}
+				hash = 31 * hash + (partition != null ? partition.hashCode() : 0);
+			}
+			return (hash & Integer.MAX_VALUE) % lanes.length;
+		}
+	}
+
+	/**
+	 * A single writer rolled over by record count and time.
+	 */
+	private class WriterLane<T> {
+
+		private final CachedWriter<T> parent;
+
+		private DataStoreWriter<T> writer;
+
+		private long count;
+
+		private long opened;
+
+		WriterLane(CachedWriter<T> parent) {
+			this.parent = parent;
+		}
+
+		synchronized void write(Collection<T> records) {
+			try {
+				rolloverIfExpired();
+				for (T record : records) {
+					if (writer == null) {
+						writer = createWriter(parent.pojoClass, parent.datasetDefinition);
+						count = 0;
+						opened = System.currentTimeMillis();
+					}
+					writer.write(record);
+					if (writerRolloverRecords > 0 && ++count >= writerRolloverRecords) {
+						closeWriter();
+					}
+				}
+				if (writer != null) {
+					writer.flush();
+				}
+				rolloverIfExpired();
+			} catch (IOException e) {
+				// start from a fresh writer on next write
+				close();
+				throw new StoreException("Error writing " + parent.pojoClass.getName(), e);
+			} catch (RuntimeException e) {
+				close();
+				throw e;
+			}
+		}
+
+		synchronized void close() {
+			try {
+				closeWriter();
+			} catch (IOException e) {
+				log.warn("Error closing writer for " + parent.pojoClass.getName(), e);
+			}
+		}
+
+		synchronized void closeIfExpired() {
+			// never fail as errors would cancel periodic checks
+			try {
+				rolloverIfExpired();
+			} catch (IOException e) {
+				log.warn("Error closing writer for " + parent.pojoClass.getName(), e);
+			} catch (RuntimeException e) {
+				log.warn("Error closing writer for " + parent.pojoClass.getName(), e);
+			}
+		}
+
+		private void rolloverIfExpired() throws IOException {
+			if (writer != null && writerRolloverInterval > 0
+					&& System.currentTimeMillis() - opened >= writerRolloverInterval) {
+				closeWriter();
+			}
+		}
+
+		private void closeWriter() throws IOException {
+			DataStoreWriter<T> w = writer;
+			writer = null;
+			if (w != null) {
+				w.close();
+			}
+		}
+	}
+
 }
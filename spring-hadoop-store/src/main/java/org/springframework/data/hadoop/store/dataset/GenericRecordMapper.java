@@ -0,0 +1,756 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.store.dataset;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericEnumSymbol;
+import org.apache.avro.generic.GenericFixed;
+import org.apache.avro.generic.GenericRecord;
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.hadoop.store.StoreException;
+import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ConcurrentReferenceHashMap.ReferenceType;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Maps POJOs into {@link GenericRecord}s and back using a given record
+ * {@link Schema}. Accessors for schema fields are resolved once per entity
+ * class and schema and mappers are cached, thus mapping an entity doesn't go
+ * through bean introspection.
+ * <p>
+ * Schema field is read from a bean property getter or if one doesn't exist,
+ * from a field with a same name. Similarly a field is written using a setter
+ * or a field. Nested records, unions, arrays and maps are mapped recursively.
+ * Union branch is chosen based on a runtime type of a value.
+ * <p>
+ * Cached mappers are only softly referenced, thus caching doesn't prevent
+ * entity classes and their class loaders from being unloaded. Mappers for
+ * nested records are kept by a field mapping of a parent mapper.
+ *
+ * @author agent
+ *
+ */
+public class GenericRecordMapper {
+
+	private final static ConcurrentMap<MapperKey, GenericRecordMapper> mappers =
+			new ConcurrentReferenceHashMap<MapperKey, GenericRecordMapper>(16, ReferenceType.SOFT);
+
+	private final Class<?> type;
+
+	private final Schema schema;
+
+	private final FieldMapping[] fields;
+
+	/** Schema having only fields which can be set into an entity */
+	private final Schema readSchema;
+
+	/** No-arg constructor or null if entity can't be instantiated */
+	private final Constructor<?> constructor;
+
+	private GenericRecordMapper(Class<?> type, Schema schema) {
+		this.type = type;
+		this.schema = schema;
+		List<Schema.Field> schemaFields = schema.getFields();
+		this.fields = new FieldMapping[schemaFields.size()];
+		List<Schema.Field> readFields = new ArrayList<Schema.Field>();
+		for (int i = 0; i < fields.length; i++) {
+			fields[i] = createFieldMapping(type, schemaFields.get(i));
+			if (fields[i].setter != null) {
+				Schema.Field f = schemaFields.get(i);
+				readFields.add(new Schema.Field(f.name(), f.schema(), f.doc(), f.defaultValue()));
+			}
+		}
+		if (readFields.size() < fields.length && !readFields.isEmpty()) {
+			Schema projection = Schema.createRecord(schema.getName(), schema.getDoc(), schema.getNamespace(), false);
+			projection.setFields(readFields);
+			this.readSchema = projection;
+		} else {
+			this.readSchema = schema;
+		}
+		this.constructor = findConstructor(type);
+	}
+
+	/**
+	 * Gets a mapper for an entity class and a record schema. Mappers
+	 * are cached, thus this method is expected to be called once when
+	 * writing is started, not per entity.
+	 *
+	 * @param type the entity class
+	 * @param schema the record schema
+	 * @return the mapper
+	 */
+	public static GenericRecordMapper getMapper(Class<?> type, Schema schema) {
+		Assert.notNull(type, "Entity class must be set");
+		Assert.notNull(schema, "Schema must be set");
+		Assert.isTrue(schema.getType() == Schema.Type.RECORD, "Schema must be a record schema");
+		MapperKey key = new MapperKey(type, schema);
+		GenericRecordMapper mapper = mappers.get(key);
+		if (mapper == null) {
+			mapper = new GenericRecordMapper(type, schema);
+			GenericRecordMapper existing = mappers.putIfAbsent(key, mapper);
+			if (existing != null) {
+				mapper = existing;
+			}
+		}
+		return mapper;
+	}
+
+	/**
+	 * Maps an entity into a record.
+	 *
+	 * @param entity the entity
+	 * @return the record
+	 */
+	public GenericRecord toRecord(Object entity) {
+		if (entity instanceof GenericRecord) {
+			return (GenericRecord) entity;
+		}
+		GenericData.Record record = new GenericData.Record(schema);
+		for (int i = 0; i < fields.length; i++) {
+			FieldMapping field = fields[i];
+			Object value;
+			if (field.accessor == null && !field.hasDefault) {
+				throw new StoreException("No property or default value for field " + field.field.name() + " in "
+						+ type.getName());
+			}
+			if (field.accessor != null) {
+				try {
+					value = convert(field.schema, field.accessor.get(entity), field);
+				} catch (StoreException e) {
+					throw e;
+				} catch (Exception e) {
+					throw new StoreException("Unable to read field " + field.field.name() + " from " + type.getName(), e);
+				}
+			} else {
+				value = field.defaultValue;
+			}
+			if (value == null && !isNullable(field.schema)) {
+				throw new StoreException("Null value for non-nullable field " + field.field.name() + " in "
+						+ type.getName());
+			}
+			record.put(i, value);
+		}
+		return record;
+	}
+
+	/**
+	 * Maps a record into a new entity. Record may have been read with
+	 * a schema from {@link #getReadSchema()} or a full schema. Fields
+	 * not known by this mapper or entity are ignored.
+	 *
+	 * @param record the record
+	 * @return the entity
+	 */
+	public Object toEntity(GenericRecord record) {
+		if (type.isInstance(record)) {
+			return record;
+		}
+		if (constructor == null) {
+			throw new StoreException("No default constructor for " + type.getName());
+		}
+		Object entity;
+		try {
+			entity = constructor.newInstance();
+		} catch (Exception e) {
+			throw new StoreException("Unable to instantiate " + type.getName(), e);
+		}
+		// full schema records can be read by position
+		boolean positional = record.getSchema() == schema;
+		for (int i = 0; i < fields.length; i++) {
+			FieldMapping field = fields[i];
+			if (field.setter == null) {
+				continue;
+			}
+			Object value;
+			if (positional) {
+				value = record.get(i);
+			} else {
+				Schema.Field f = record.getSchema().getField(field.field.name());
+				if (f == null) {
+					continue;
+				}
+				value = record.get(f.pos());
+			}
+			value = toJava(field.schema, value, field.setter.getType(), field.setter.getGenericType(), field);
+			if (value == null && field.setter.getType().isPrimitive()) {
+				continue;
+			}
+			try {
+				field.setter.set(entity, value);
+			} catch (Exception e) {
+				throw new StoreException("Unable to set field " + field.field.name() + " into " + type.getName(), e);
+			}
+		}
+		return entity;
+	}
+
+	/**
+	 * Gets a raw value of a schema field from an entity.
+	 *
+	 * @param entity the entity
+	 * @param name the schema field name
+	 * @return the value or <code>null</code> if field doesn't exist or entity doesn't have it
+	 */
+	public Object getValue(Object entity, String name) {
+		if (entity instanceof GenericRecord) {
+			return ((GenericRecord) entity).get(name);
+		}
+		for (int i = 0; i < fields.length; i++) {
+			FieldMapping field = fields[i];
+			if (field.field.name().equals(name)) {
+				if (field.accessor == null) {
+					return null;
+				}
+				try {
+					return field.accessor.get(entity);
+				} catch (Exception e) {
+					throw new StoreException("Unable to read field " + name + " from " + type.getName(), e);
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Gets a schema containing only fields which can be set into an
+	 * entity. This can be used as a projection when reading columnar
+	 * formats. If all fields can be set, returned schema is a same
+	 * as a mapper schema.
+	 *
+	 * @return the read schema
+	 */
+	public Schema getReadSchema() {
+		return readSchema;
+	}
+
+	/**
+	 * Gets the entity class.
+	 *
+	 * @return the entity class
+	 */
+	public Class<?> getType() {
+		return type;
+	}
+
+	/**
+	 * Gets the record schema.
+	 *
+	 * @return the schema
+	 */
+	public Schema getSchema() {
+		return schema;
+	}
+
+	private static Object convert(Schema schema, Object value, FieldMapping field) {
+		if (value == null) {
+			return null;
+		}
+		switch (schema.getType()) {
+		case UNION:
+			return convert(resolveUnion(schema, value, field.field.name()), value, field);
+		case RECORD:
+			if (value instanceof GenericRecord) {
+				return value;
+			}
+			return field.getMapper(value.getClass(), schema).toRecord(value);
+		case ARRAY:
+			return convertArray(schema, value, field);
+		case MAP:
+			if (!(value instanceof Map)) {
+				throw new StoreException("Don't know how to handle " + value.getClass() + " for " + schema);
+			}
+			Map<?, ?> map = (Map<?, ?>) value;
+			Map<String, Object> converted = new HashMap<String, Object>(map.size() * 2);
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				converted.put(String.valueOf(entry.getKey()), convert(schema.getValueType(), entry.getValue(), field));
+			}
+			return converted;
+		case ENUM:
+			if (value instanceof Enum) {
+				return new GenericData.EnumSymbol(schema, ((Enum<?>) value).name());
+			}
+			return value;
+		case BYTES:
+			if (value instanceof byte[]) {
+				return ByteBuffer.wrap((byte[]) value);
+			} else if (value instanceof ByteBuffer) {
+				return value;
+			}
+			throw new StoreException("Don't know how to handle " + value.getClass() + " for " + schema);
+		case FIXED:
+			if (value instanceof byte[]) {
+				return new GenericData.Fixed(schema, (byte[]) value);
+			}
+			return value;
+		case INT:
+			if (value instanceof Short || value instanceof Byte) {
+				return ((Number) value).intValue();
+			} else if (value instanceof Character) {
+				return (int) ((Character) value).charValue();
+			}
+			return value;
+		default:
+			return value;
+		}
+	}
+
+	private static Object toJava(Schema schema, Object value, Class<?> type, Type genericType, FieldMapping field) {
+		if (value == null) {
+			return null;
+		}
+		switch (schema.getType()) {
+		case UNION:
+			return toJava(schema.getTypes().get(GenericData.get().resolveUnion(schema, value)), value, type,
+					genericType, field);
+		case RECORD:
+			if (type.isInstance(value) || !(value instanceof GenericRecord)) {
+				return value;
+			}
+			return field.getMapper(type, schema).toEntity((GenericRecord) value);
+		case ARRAY:
+			return toJavaArray(schema, (Collection<?>) value, type, genericType, field);
+		case MAP:
+			if (!Map.class.isAssignableFrom(type)) {
+				return value;
+			}
+			Class<?> valueType = getTypeArgument(genericType, 1);
+			Map<?, ?> map = (Map<?, ?>) value;
+			Map<String, Object> converted = new LinkedHashMap<String, Object>(map.size() * 2);
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				converted.put(String.valueOf(entry.getKey()),
+						toJava(schema.getValueType(), entry.getValue(), valueType, null, field));
+			}
+			return converted;
+		case STRING:
+			return type == String.class && !(value instanceof String) ? value.toString() : value;
+		case ENUM:
+			if (type.isEnum()) {
+				return toEnum(type, value.toString());
+			}
+			return value;
+		case BYTES:
+			if (type == byte[].class && value instanceof ByteBuffer) {
+				ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+				byte[] bytes = new byte[buffer.remaining()];
+				buffer.get(bytes);
+				return bytes;
+			}
+			return value;
+		case FIXED:
+			if (type == byte[].class && value instanceof GenericFixed) {
+				return ((GenericFixed) value).bytes();
+			}
+			return value;
+		case INT:
+			if (type == short.class || type == Short.class) {
+				return ((Number) value).shortValue();
+			} else if (type == byte.class || type == Byte.class) {
+				return ((Number) value).byteValue();
+			} else if (type == char.class || type == Character.class) {
+				return (char) ((Number) value).intValue();
+			}
+			return value;
+		default:
+			return value;
+		}
+	}
+
+	private static Object toJavaArray(Schema schema, Collection<?> values, Class<?> type, Type genericType,
+			FieldMapping field) {
+		Schema elementSchema = schema.getElementType();
+		if (type.isArray()) {
+			Class<?> componentType = type.getComponentType();
+			Object array = Array.newInstance(componentType, values.size());
+			int i = 0;
+			for (Object element : values) {
+				Object converted = toJava(elementSchema, element, componentType, null, field);
+				if (converted != null || !componentType.isPrimitive()) {
+					Array.set(array, i, converted);
+				}
+				i++;
+			}
+			return array;
+		}
+		Class<?> elementType = getTypeArgument(genericType, 0);
+		Collection<Object> collection;
+		if (Set.class.isAssignableFrom(type)) {
+			collection = new LinkedHashSet<Object>(values.size() * 2);
+		} else {
+			collection = new ArrayList<Object>(values.size());
+		}
+		for (Object element : values) {
+			collection.add(toJava(elementSchema, element, elementType, null, field));
+		}
+		return collection;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Object toEnum(Class<?> type, String name) {
+		return Enum.valueOf((Class<? extends Enum>) type, name);
+	}
+
+	private static Class<?> getTypeArgument(Type genericType, int index) {
+		if (genericType instanceof ParameterizedType) {
+			Type[] args = ((ParameterizedType) genericType).getActualTypeArguments();
+			if (index < args.length) {
+				if (args[index] instanceof Class) {
+					return (Class<?>) args[index];
+				} else if (args[index] instanceof ParameterizedType) {
+					return (Class<?>) ((ParameterizedType) args[index]).getRawType();
+				}
+			}
+		}
+		return Object.class;
+	}
+
+	private static Object convertArray(Schema schema, Object value, FieldMapping field) {
+		Schema elementSchema = schema.getElementType();
+		if (value instanceof Collection) {
+			Collection<?> collection = (Collection<?>) value;
+			GenericData.Array<Object> array = new GenericData.Array<Object>(collection.size(), schema);
+			for (Object element : collection) {
+				array.add(convert(elementSchema, element, field));
+			}
+			return array;
+		} else if (value.getClass().isArray()) {
+			int length = Array.getLength(value);
+			GenericData.Array<Object> array = new GenericData.Array<Object>(length, schema);
+			for (int i = 0; i < length; i++) {
+				array.add(convert(elementSchema, Array.get(value, i), field));
+			}
+			return array;
+		}
+		throw new StoreException("Don't know how to handle " + value.getClass() + " for " + schema);
+	}
+
+	private static Schema resolveUnion(Schema union, Object value, String name) {
+		Schema fallback = null;
+		for (Schema s : union.getTypes()) {
+			if (s.getType() == Schema.Type.NULL) {
+				continue;
+			}
+			if (matches(s, value)) {
+				return s;
+			}
+			if (fallback == null) {
+				fallback = s;
+			}
+		}
+		if (fallback == null) {
+			throw new StoreException("No union branch for field " + name + " in " + union);
+		}
+		return fallback;
+	}
+
+	private static boolean isNullable(Schema schema) {
+		if (schema.getType() == Schema.Type.NULL) {
+			return true;
+		}
+		if (schema.getType() == Schema.Type.UNION) {
+			for (Schema s : schema.getTypes()) {
+				if (s.getType() == Schema.Type.NULL) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean matches(Schema schema, Object value) {
+		switch (schema.getType()) {
+		case RECORD:
+			return value instanceof GenericRecord || !isSimpleValue(value);
+		case ARRAY:
+			return value instanceof Collection || (value.getClass().isArray() && !(value instanceof byte[]));
+		case MAP:
+			return value instanceof Map;
+		case STRING:
+			return value instanceof CharSequence;
+		case BYTES:
+			return value instanceof byte[] || value instanceof ByteBuffer;
+		case FIXED:
+			return value instanceof byte[] || value instanceof GenericFixed;
+		case ENUM:
+			return value instanceof Enum || value instanceof GenericEnumSymbol;
+		case INT:
+			return value instanceof Integer || value instanceof Short || value instanceof Byte
+					|| value instanceof Character;
+		case LONG:
+			return value instanceof Long;
+		case FLOAT:
+			return value instanceof Float;
+		case DOUBLE:
+			return value instanceof Double;
+		case BOOLEAN:
+			return value instanceof Boolean;
+		default:
+			return false;
+		}
+	}
+
+	private static boolean isSimpleValue(Object value) {
+		return value instanceof CharSequence || value instanceof Number || value instanceof Boolean
+				|| value instanceof Character || value instanceof Enum || value instanceof Collection
+				|| value instanceof Map || value instanceof ByteBuffer || value.getClass().isArray();
+	}
+
+	private static FieldMapping createFieldMapping(Class<?> type, Schema.Field field) {
+		Accessor accessor = null;
+		PropertyDescriptor pd = BeanUtils.getPropertyDescriptor(type, field.name());
+		if (pd != null && pd.getReadMethod() != null) {
+			accessor = new MethodAccessor(pd.getReadMethod());
+		} else {
+			Field f = ReflectionUtils.findField(type, field.name());
+			if (f != null) {
+				accessor = new FieldAccessor(f);
+			}
+		}
+		Setter setter = null;
+		if (pd != null && pd.getWriteMethod() != null) {
+			setter = new MethodSetter(pd.getWriteMethod());
+		} else {
+			Field f = ReflectionUtils.findField(type, field.name());
+			if (f != null && !Modifier.isFinal(f.getModifiers()) && !Modifier.isStatic(f.getModifiers())) {
+				setter = new FieldSetter(f);
+			}
+		}
+		// missing accessor is only an error when writing
+		boolean hasDefault = field.defaultValue() != null;
+		Object defaultValue = null;
+		if (accessor == null && hasDefault) {
+			defaultValue = GenericData.get().getDefaultValue(field);
+		}
+		return new FieldMapping(field, accessor, setter, defaultValue, hasDefault);
+	}
+
+	private static Constructor<?> findConstructor(Class<?> type) {
+		if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+			return null;
+		}
+		try {
+			Constructor<?> constructor = type.getDeclaredConstructor();
+			ReflectionUtils.makeAccessible(constructor);
+			return constructor;
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Mapping of a single schema field.
+	 */
+	private static class FieldMapping {
+
+		final Schema.Field field;
+
+		final Schema schema;
+
+		final Accessor accessor;
+
+		final Setter setter;
+
+		/** Value used when entity doesn't have an accessor */
+		final Object defaultValue;
+
+		final boolean hasDefault;
+
+		/** Mappers for nested records resolved for this field */
+		final ConcurrentMap<MapperKey, GenericRecordMapper> mappers =
+				new ConcurrentHashMap<MapperKey, GenericRecordMapper>();
+
+		FieldMapping(Schema.Field field, Accessor accessor, Setter setter, Object defaultValue, boolean hasDefault) {
+			this.field = field;
+			this.schema = field.schema();
+			this.accessor = accessor;
+			this.setter = setter;
+			this.defaultValue = defaultValue;
+			this.hasDefault = hasDefault;
+		}
+
+		GenericRecordMapper getMapper(Class<?> type, Schema schema) {
+			MapperKey key = new MapperKey(type, schema);
+			GenericRecordMapper mapper = mappers.get(key);
+			if (mapper == null) {
+				mapper = GenericRecordMapper.getMapper(type, schema);
+				mappers.put(key, mapper);
+			}
+			return mapper;
+		}
+	}
+
+	/**
+	 * Reads a value from an entity.
+	 */
+	private interface Accessor {
+
+		Object get(Object entity) throws Exception;
+	}
+
+	private static class MethodAccessor implements Accessor {
+
+		final Method method;
+
+		MethodAccessor(Method method) {
+			ReflectionUtils.makeAccessible(method);
+			this.method = method;
+		}
+
+		@Override
+		public Object get(Object entity) throws Exception {
+			try {
+				return method.invoke(entity);
+			} catch (InvocationTargetException e) {
+				Throwable t = e.getTargetException();
+				throw t instanceof Exception ? (Exception) t : e;
+			}
+		}
+	}
+
+	private static class FieldAccessor implements Accessor {
+
+		final Field field;
+
+		FieldAccessor(Field field) {
+			ReflectionUtils.makeAccessible(field);
+			this.field = field;
+		}
+
+		@Override
+		public Object get(Object entity) throws Exception {
+			return field.get(entity);
+		}
+	}
+
+	/**
+	 * Writes a value into an entity.
+	 */
+	private interface Setter {
+
+		void set(Object entity, Object value) throws Exception;
+
+		Class<?> getType();
+
+		Type getGenericType();
+	}
+
+	private static class MethodSetter implements Setter {
+
+		final Method method;
+
+		MethodSetter(Method method) {
+			ReflectionUtils.makeAccessible(method);
+			this.method = method;
+		}
+
+		@Override
+		public void set(Object entity, Object value) throws Exception {
+			try {
+				method.invoke(entity, value);
+			} catch (InvocationTargetException e) {
+				Throwable t = e.getTargetException();
+				throw t instanceof Exception ? (Exception) t : e;
+			}
+		}
+
+		@Override
+		public Class<?> getType() {
+			return method.getParameterTypes()[0];
+		}
+
+		@Override
+		public Type getGenericType() {
+			return method.getGenericParameterTypes()[0];
+		}
+	}
+
+	private static class FieldSetter implements Setter {
+
+		final Field field;
+
+		FieldSetter(Field field) {
+			ReflectionUtils.makeAccessible(field);
+			this.field = field;
+		}
+
+		@Override
+		public void set(Object entity, Object value) throws Exception {
+			field.set(entity, value);
+		}
+
+		@Override
+		public Class<?> getType() {
+			return field.getType();
+		}
+
+		@Override
+		public Type getGenericType() {
+			return field.getGenericType();
+		}
+	}
+
+	private static class MapperKey {
+
+		final Class<?> type;
+
+		final Schema schema;
+
+		MapperKey(Class<?> type, Schema schema) {
+			this.type = type;
+			this.schema = schema;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * type.hashCode() + schema.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof MapperKey)) {
+				return false;
+			}
+			MapperKey other = (MapperKey) obj;
+			return type == other.type && schema.equals(other.schema);
+		}
+	}
+
+}
@@ -19,8 +19,7 @@ import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericRecord;
 import org.kitesdk.data.Dataset;
 import org.kitesdk.data.DatasetReader;
-import org.springframework.beans.BeanWrapper;
-import org.springframework.beans.BeanWrapperImpl;
+import org.kitesdk.data.View;
 
 /**
  * A {@code DataStoreReader} for reading Datasets using the Parquet format.
@@ -33,6 +32,8 @@ import org.springframework.beans.BeanWrapperImpl;
 public class ParquetDatasetStoreReader<T> extends AbstractDatasetStoreReader<T, GenericRecord> {
 
 	protected volatile Schema schema;
+
+	private volatile GenericRecordMapper mapper;
 	
 	/**
 	 * Instantiates a new parquet dataset store reader.
@@ -51,19 +52,22 @@ public class ParquetDatasetStoreReader<T> extends AbstractDatasetStoreReader<T,
 		Dataset<GenericRecord> dataset = DatasetUtils.getOrCreateDataset(getDatasetRepositoryFactory(),
 				getDatasetDefinition(), getEntityClass(), GenericRecord.class);
 		schema = dataset.getDescriptor().getSchema();
-		return dataset.newReader();
+		mapper = GenericRecordMapper.getMapper(getEntityClass(), schema);
+		View<GenericRecord> view = getView(dataset, GenericRecord.class);
+		if (view == null) {
+			return null;
+		}
+		// only read columns entity can hold
+		if (mapper.getReadSchema() != schema) {
+			view = view.asSchema(mapper.getReadSchema());
+		}
+		return view.newReader();
 	}
-	
+
 	@SuppressWarnings("unchecked")
 	@Override
 	protected T convertEntity(GenericRecord entity) {
-		BeanWrapper beanWrapper = new BeanWrapperImpl(getEntityClass());
-		for (Schema.Field f : schema.getFields()) {
-			if (beanWrapper.isWritableProperty(f.name())) {
-				beanWrapper.setPropertyValue(f.name(), entity.get(f.name()));
-			}
-		}
-		return (T) beanWrapper.getWrappedInstance();
+		return (T) mapper.toEntity(entity);
 	}
-	
+
 }
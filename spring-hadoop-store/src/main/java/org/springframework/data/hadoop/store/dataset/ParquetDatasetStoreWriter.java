@@ -16,16 +16,12 @@
 package org.springframework.data.hadoop.store.dataset;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
 
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericRecord;
-import org.apache.avro.generic.GenericRecordBuilder;
 import org.kitesdk.data.Dataset;
 import org.kitesdk.data.DatasetWriter;
 import org.kitesdk.data.Formats;
-import org.springframework.beans.BeanWrapper;
-import org.springframework.beans.PropertyAccessorFactory;
 import org.springframework.data.hadoop.store.StoreException;
 import org.springframework.util.Assert;
 
@@ -42,6 +38,8 @@ public class ParquetDatasetStoreWriter<T> extends AbstractDatasetStoreWriter<T,
 
 	protected volatile Schema schema;
 
+	private volatile GenericRecordMapper mapper;
+
 	/**
 	 * Instantiates a new {@code DataStoreWriter} for writing Parquet records to a {@code org.kitesdk.data.Dataset}.
 	 *
@@ -79,6 +77,7 @@ public class ParquetDatasetStoreWriter<T> extends AbstractDatasetStoreWriter<T,
 			Dataset<GenericRecord> dataset =
 					DatasetUtils.getOrCreateDataset(getDatasetRepositoryFactory(), getDatasetDefinition(), getEntityClass(), GenericRecord.class);
 			schema = dataset.getDescriptor().getSchema();
+			mapper = GenericRecordMapper.getMapper(getEntityClass(), schema);
 			return dataset.newWriter();
 		} else {
 			throw new StoreException("Invalid format " + getDatasetDefinition().getFormat() +
@@ -91,45 +90,7 @@ public class ParquetDatasetStoreWriter<T> extends AbstractDatasetStoreWriter<T,
 		if (entity instanceof GenericRecord) {
 			return (GenericRecord) entity;
 		}
-		GenericRecordBuilder builder = new GenericRecordBuilder(schema);
-		BeanWrapper beanWrapper = PropertyAccessorFactory.forBeanPropertyAccess(entity);
-		for (Schema.Field f : schema.getFields()) {
-			if (beanWrapper.isReadableProperty(f.name())) {
-				Schema fieldSchema = f.schema();
-				if (f.schema().getType().equals(Schema.Type.UNION)) {
-					for (Schema s : f.schema().getTypes()) {
-						if (!s.getName().equals("null")) {
-							fieldSchema = s;
-						}
-					}
-				}
-				if (fieldSchema.getType().equals(Schema.Type.RECORD)) {
-					throw new StoreException("Nested record currently not supported for field: " + f.name() +
-							" of type: " + beanWrapper.getPropertyDescriptor(f.name()).getPropertyType().getName());
-				} else {
-					if (fieldSchema.getType().equals(Schema.Type.BYTES)) {
-						ByteBuffer buffer = null;
-						Object value = beanWrapper.getPropertyValue(f.name());
-						if (value == null || value instanceof byte[]) {
-							if(value != null) {
-								byte[] bytes = (byte[]) value;
-								buffer = ByteBuffer.wrap(bytes);
-							}
-							builder.set(f.name(), buffer);
-						} else {
-							throw new StoreException("Don't know how to handle " + value.getClass() + " for " + fieldSchema);
-						}
-					} else {
-						builder.set(f.name(), beanWrapper.getPropertyValue(f.name()));
-				    }
-				}
-			}
-		}
-		try {
-			return builder.build();			
-		} catch (ClassCastException e) {
-			throw new StoreException("Failed to write record with schema: " + schema, e);
-		}
+		return mapper.toRecord(entity);
 	}
-	
+
 }
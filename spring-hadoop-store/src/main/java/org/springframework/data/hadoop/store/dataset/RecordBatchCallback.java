@@ -0,0 +1,37 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.store.dataset;
+
+import java.util.List;
+
+/**
+ * Callback interface for code that operates on batches of {@link org.kitesdk.data.Dataset} records.
+ *
+ * @author agent
+ * @since 2.6
+ */
+public interface RecordBatchCallback<T> {
+
+	/**
+	 * Called with a batch of records. Batch list is reused after
+	 * this method returns, thus records need to be copied if those
+	 * are kept.
+	 *
+	 * @param records the records
+	 */
+	void doInBatch(List<T> records);
+
+}
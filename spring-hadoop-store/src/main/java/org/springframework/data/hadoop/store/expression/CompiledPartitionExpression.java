@@ -0,0 +1,307 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.store.expression;
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.expression.AccessException;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.ast.InlineList;
+import org.springframework.expression.spel.ast.IntLiteral;
+import org.springframework.expression.spel.ast.Literal;
+import org.springframework.expression.spel.ast.LongLiteral;
+import org.springframework.expression.spel.ast.MethodReference;
+import org.springframework.expression.spel.ast.PropertyOrFieldReference;
+import org.springframework.expression.spel.ast.StringLiteral;
+import org.springframework.expression.spel.standard.SpelExpression;
+
+/**
+ * A partition expression compiled into plain java from a spel expression
+ * using only partition functions known by {@link PartitionKeyMethodResolver},
+ * literals and keys of a partition key {@link Map}. For example expression
+ * {@code path(dateFormat('yyyy/MM/dd',timestamp),hash(region,2))} is evaluated
+ * without going through spel method and property resolving.
+ * <p>
+ * Evaluation fails with an {@link AccessException} whenever a compiled form
+ * can't be sure to give same result as spel would, i.e. when a key is missing
+ * or a value has an unexpected type. In that case caller is expected to fall
+ * back to spel evaluation.
+ *
+ * @author agent
+ *
+ */
+public class CompiledPartitionExpression {
+
+	private final static String DEFAULT_FORMAT = "yyyy-MM-dd";
+
+	private final Node[] segments;
+
+	private CompiledPartitionExpression(Node[] segments) {
+		this.segments = segments;
+	}
+
+	/**
+	 * Compiles a spel expression.
+	 *
+	 * @param expression the expression
+	 * @return the compiled expression or <code>null</code> if expression can't be compiled
+	 */
+	public static CompiledPartitionExpression compile(Expression expression) {
+		if (!(expression instanceof SpelExpression)) {
+			return null;
+		}
+		SpelNode root = ((SpelExpression) expression).getAST();
+		try {
+			Node[] segments;
+			if (root instanceof MethodReference
+					&& PartitionKeyMethodResolver.METHOD_PATH.equals(((MethodReference) root).getName())) {
+				// keep top level path segments separate so that
+				// these can be used as a key for resolved paths
+				segments = new Node[root.getChildCount()];
+				for (int i = 0; i < segments.length; i++) {
+					segments[i] = compileNode(root.getChild(i));
+				}
+			} else if (root instanceof MethodReference) {
+				segments = new Node[] { compileNode(root) };
+			} else {
+				return null;
+			}
+			return new CompiledPartitionExpression(segments);
+		} catch (UnsupportedOperationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Evaluates path segments against a partition key. If expression is
+	 * not a top level {@code path} function, a single segment containing
+	 * a whole expression value is returned.
+	 *
+	 * @param partitionKey the partition key
+	 * @return the path segments
+	 * @throws AccessException if expression can't be evaluated without spel
+	 */
+	public String[] evaluate(Map<String, Object> partitionKey) throws AccessException {
+		String[] values = new String[segments.length];
+		for (int i = 0; i < segments.length; i++) {
+			values[i] = String.valueOf(segments[i].getValue(partitionKey));
+		}
+		return values;
+	}
+
+	private static Node compileNode(SpelNode node) {
+		if (node instanceof StringLiteral || node instanceof IntLiteral || node instanceof LongLiteral) {
+			return new LiteralNode(((Literal) node).getLiteralValue().getValue());
+		} else if (node instanceof InlineList && ((InlineList) node).isConstant()) {
+			return new LiteralNode(((InlineList) node).getConstantValue());
+		} else if (node instanceof PropertyOrFieldReference && node.getChildCount() == 0) {
+			return new KeyNode(((PropertyOrFieldReference) node).getName());
+		} else if (node instanceof MethodReference) {
+			String name = ((MethodReference) node).getName();
+			Node[] args = new Node[node.getChildCount()];
+			for (int i = 0; i < args.length; i++) {
+				args[i] = compileNode(node.getChild(i));
+			}
+			if (PartitionKeyMethodResolver.METHOD_PATH.equals(name) && args.length > 0) {
+				return new PathNode(args);
+			} else if (PartitionKeyMethodResolver.METHOD_DATEFORMAT.equals(name)
+					&& (args.length == 2 || args.length == 3)) {
+				return new DateFormatNode(literalString(args[0]), args[1],
+						args.length == 3 ? literalString(args[2]) : null);
+			} else if (PartitionKeyMethodResolver.METHOD_HASH.equals(name) && args.length == 2
+					&& literal(args[1]) instanceof Integer) {
+				return new HashNode(args[0], (Integer) literal(args[1]));
+			} else if (PartitionKeyMethodResolver.METHOD_HASHLIST.equals(name) && args.length == 2
+					&& literal(args[1]) instanceof List) {
+				return new HashListNode(args[0], (List<?>) literal(args[1]));
+			} else if (PartitionKeyMethodResolver.METHOD_HASHRANGE.equals(name) && args.length == 2
+					&& literal(args[1]) instanceof List) {
+				return new HashRangeNode(args[0], (List<?>) literal(args[1]));
+			}
+		}
+		throw new UnsupportedOperationException("Can't compile " + node.toStringAST());
+	}
+
+	private static Object literal(Node node) {
+		return node instanceof LiteralNode ? ((LiteralNode) node).value : null;
+	}
+
+	private static String literalString(Node node) {
+		Object value = literal(node);
+		if (value instanceof String) {
+			return (String) value;
+		}
+		throw new UnsupportedOperationException("Expected string literal");
+	}
+
+	/**
+	 * Compiled part of an expression.
+	 */
+	private interface Node {
+
+		Object getValue(Map<String, Object> partitionKey) throws AccessException;
+	}
+
+	private static class LiteralNode implements Node {
+
+		final Object value;
+
+		LiteralNode(Object value) {
+			this.value = value;
+		}
+
+		@Override
+		public Object getValue(Map<String, Object> partitionKey) {
+			return value;
+		}
+	}
+
+	private static class KeyNode implements Node {
+
+		final String key;
+
+		KeyNode(String key) {
+			this.key = key;
+		}
+
+		@Override
+		public Object getValue(Map<String, Object> partitionKey) throws AccessException {
+			Object value = partitionKey.get(key);
+			if (value == null && !partitionKey.containsKey(key)) {
+				// let spel try other accessors
+				throw new AccessException("Partition key doesn't contain " + key);
+			}
+			return value;
+		}
+	}
+
+	private static class PathNode implements Node {
+
+		final Node[] args;
+
+		PathNode(Node[] args) {
+			this.args = args;
+		}
+
+		@Override
+		public Object getValue(Map<String, Object> partitionKey) throws AccessException {
+			StringBuilder buf = new StringBuilder();
+			for (int i = 0; i < args.length; i++) {
+				if (i > 0) {
+					buf.append('/');
+				}
+				buf.append(args[i].getValue(partitionKey));
+			}
+			return buf.toString();
+		}
+	}
+
+	private static class DateFormatNode implements Node {
+
+		final String pattern;
+
+		final Node arg;
+
+		/** Pattern for parsing string dates, null if not given */
+		final String fromPattern;
+
+		DateFormatNode(String pattern, Node arg, String fromPattern) {
+			this.pattern = pattern;
+			this.arg = arg;
+			this.fromPattern = fromPattern;
+		}
+
+		@Override
+		public Object getValue(Map<String, Object> partitionKey) throws AccessException {
+			Object value = arg.getValue(partitionKey);
+			if (fromPattern == null && (value instanceof Long || value instanceof Integer || value instanceof Date)) {
+				return DateFormatMethodExecutor.format(pattern, value);
+			} else if (value instanceof String) {
+				try {
+					Date date = DateFormatMethodExecutor.parse(fromPattern != null ? fromPattern : DEFAULT_FORMAT,
+							(String) value);
+					return DateFormatMethodExecutor.format(pattern, date);
+				} catch (ParseException e) {
+					throw new AccessException("Unable to format", e);
+				}
+			}
+			throw new AccessException("Unsupported date value " + value);
+		}
+	}
+
+	private static class HashNode implements Node {
+
+		final Node arg;
+
+		final int buckets;
+
+		HashNode(Node arg, int buckets) {
+			this.arg = arg;
+			this.buckets = buckets;
+		}
+
+		@Override
+		public Object getValue(Map<String, Object> partitionKey) throws AccessException {
+			Object value = arg.getValue(partitionKey);
+			if (value == null || buckets == 0) {
+				throw new AccessException("Unable to hash " + value);
+			}
+			return HashMethodExecutor.hash(value, buckets);
+		}
+	}
+
+	private static class HashListNode implements Node {
+
+		final Node arg;
+
+		final List<Object> lists;
+
+		@SuppressWarnings("unchecked")
+		HashListNode(Node arg, List<?> lists) {
+			this.arg = arg;
+			this.lists = (List<Object>) lists;
+		}
+
+		@Override
+		public Object getValue(Map<String, Object> partitionKey) throws AccessException {
+			// spel converts a value into a string for this function
+			Object value = arg.getValue(partitionKey);
+			return HashListMethodExecutor.list(value != null ? value.toString() : null, lists);
+		}
+	}
+
+	private static class HashRangeNode implements Node {
+
+		final Node arg;
+
+		final List<?> ranges;
+
+		HashRangeNode(Node arg, List<?> ranges) {
+			this.arg = arg;
+			this.ranges = ranges;
+		}
+
+		@Override
+		public Object getValue(Map<String, Object> partitionKey) throws AccessException {
+			return HashRangeMethodExecutor.range(arg.getValue(partitionKey), ranges);
+		}
+	}
+
+}
@@ -18,6 +18,8 @@ package org.springframework.data.hadoop.store.expression;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.springframework.expression.AccessException;
 import org.springframework.expression.EvaluationContext;
@@ -35,6 +37,21 @@ public class DateFormatMethodExecutor implements MethodExecutor {
 
 	private final static String DEFAULT_FORMAT = "yyyy-MM-dd";
 
+	/** Max number of formats cached per thread */
+	private final static int MAX_CACHED_FORMATS = 32;
+
+	/**
+	 * Formats are expensive to create and not thread safe, thus
+	 * we keep them cached per thread and pattern.
+	 */
+	private final static ThreadLocal<Map<String, SimpleDateFormat>> formats = new ThreadLocal<Map<String, SimpleDateFormat>>() {
+
+		@Override
+		protected Map<String, SimpleDateFormat> initialValue() {
+			return new HashMap<String, SimpleDateFormat>();
+		}
+	};
+
 	private String key;
 
 	/**
@@ -55,7 +72,7 @@ public class DateFormatMethodExecutor implements MethodExecutor {
 	@Override
 	public TypedValue execute(EvaluationContext context, Object target, Object... arguments) throws AccessException {
 		if (key == null) {
-			SimpleDateFormat format = new SimpleDateFormat((String)arguments[0]);
+			SimpleDateFormat format = getDateFormat((String)arguments[0]);
 			//if first argument is Long, then we assume it's a timestamp in milliseconds type format
 			//first argument can also be a Date itself
 			if (arguments[1] instanceof Long || arguments[1] instanceof Date) {
@@ -64,10 +81,10 @@ public class DateFormatMethodExecutor implements MethodExecutor {
 			//if the argument is a String, then assume it's a Date represented as a String.
 			if (arguments[1] instanceof String) {
 				//Assume it's in default formay yyyMMdd
-				SimpleDateFormat fromFormat = new SimpleDateFormat(DEFAULT_FORMAT);
+				SimpleDateFormat fromFormat = getDateFormat(DEFAULT_FORMAT);
 				//if the third argument is present, use it as the from date format
 				if (arguments.length == 3 && arguments[2] instanceof String)
-					fromFormat = new SimpleDateFormat((String)arguments[2]);
+					fromFormat = getDateFormat((String)arguments[2]);
 
 					try {
 						Date parsedDate = fromFormat.parse((String) arguments[1]);
@@ -92,25 +109,70 @@ public class DateFormatMethodExecutor implements MethodExecutor {
 		return key;
 	}
 
+	/**
+	 * Formats a timestamp or a date with a pattern using a format
+	 * cached for a calling thread.
+	 *
+	 * @param pattern the pattern
+	 * @param value the timestamp in millis or a date
+	 * @return the formatted date
+	 */
+	static String format(String pattern, Object value) {
+		return getDateFormat(pattern).format(value);
+	}
+
+	/**
+	 * Parses a date with a pattern using a format cached for
+	 * a calling thread.
+	 *
+	 * @param pattern the pattern
+	 * @param value the date string
+	 * @return the parsed date
+	 * @throws ParseException if value can't be parsed
+	 */
+	static Date parse(String pattern, String value) throws ParseException {
+		return getDateFormat(pattern).parse(value);
+	}
+
+	/**
+	 * Gets a date format for a pattern. Returned format is cached for
+	 * a calling thread, thus it's never handed out to be modified.
+	 *
+	 * @param pattern the pattern
+	 * @return the date format
+	 */
+	private static SimpleDateFormat getDateFormat(String pattern) {
+		Map<String, SimpleDateFormat> cache = formats.get();
+		SimpleDateFormat format = cache.get(pattern);
+		if (format == null) {
+			if (cache.size() >= MAX_CACHED_FORMATS) {
+				cache.clear();
+			}
+			format = new SimpleDateFormat(pattern);
+			cache.put(pattern, format);
+		}
+		return format;
+	}
+
 	public static String dateFormat(String pattern, Integer epoch) throws AccessException {
-		SimpleDateFormat format = new SimpleDateFormat(pattern);
+		SimpleDateFormat format = getDateFormat(pattern);
 		return format.format(epoch);
 	}
 
 	public static String dateFormat(String pattern, Long epoch) throws AccessException {
-		SimpleDateFormat format = new SimpleDateFormat(pattern);
+		SimpleDateFormat format = getDateFormat(pattern);
 		return format.format(epoch);
 	}
 
 	public static String dateFormat(String pattern, Date date) throws AccessException {
-		SimpleDateFormat format = new SimpleDateFormat(pattern);
+		SimpleDateFormat format = getDateFormat(pattern);
 		return format.format(date);
 	}
 
 	public static String dateFormat(String pattern, String datestring) throws AccessException {
 		try {
-			SimpleDateFormat format = new SimpleDateFormat(pattern);
-			SimpleDateFormat fromFormat = new SimpleDateFormat(DEFAULT_FORMAT);
+			SimpleDateFormat format = getDateFormat(pattern);
+			SimpleDateFormat fromFormat = getDateFormat(DEFAULT_FORMAT);
 			Date parsedDate = fromFormat.parse(datestring);
 			return format.format(parsedDate);
 		} catch (ParseException e) {
@@ -120,8 +182,8 @@ public class DateFormatMethodExecutor implements MethodExecutor {
 
 	public static String dateFormat(String pattern, String datestring, String dateformat) throws AccessException {
 		try {
-			SimpleDateFormat format = new SimpleDateFormat(pattern);
-			SimpleDateFormat fromFormat = new SimpleDateFormat(dateformat);
+			SimpleDateFormat format = getDateFormat(pattern);
+			SimpleDateFormat fromFormat = getDateFormat(dateformat);
 			Date parsedDate = fromFormat.parse(datestring);
 			return format.format(parsedDate);
 		} catch (ParseException e) {
@@ -58,7 +58,7 @@ public class MessageDateFormatMethodExecutor extends DateFormatMethodExecutor {
 		}
 		if (target instanceof Message<?>) {
 			Map<?, ?> map = ((Message<?>) target).getHeaders();
-			SimpleDateFormat format = new SimpleDateFormat((String) arguments[0]);
+			SimpleDateFormat format = getDateFormat((String) arguments[0]);
 			return new TypedValue(format.format(map.get(getKey())));
 		}
 		throw new AccessException("Unable to format");
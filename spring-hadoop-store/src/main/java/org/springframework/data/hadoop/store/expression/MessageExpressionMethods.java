@@ -16,7 +16,6 @@
 
 package org.springframework.data.hadoop.store.expression;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -112,8 +111,7 @@ public class MessageExpressionMethods {
 		}
 
 		public String dateFormat(String pattern) {
-			SimpleDateFormat format = new SimpleDateFormat(pattern);
-			return format.format(getHeaders().getTimestamp());
+			return DateFormatMethodExecutor.format(pattern, getHeaders().getTimestamp());
 		}
 
 	}
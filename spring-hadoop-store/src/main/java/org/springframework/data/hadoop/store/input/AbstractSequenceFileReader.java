@@ -19,21 +19,33 @@ package org.springframework.data.hadoop.store.input;
 import java.io.IOException;
 
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.SequenceFile;
 import org.apache.hadoop.io.SequenceFile.Reader;
+import org.apache.hadoop.io.Writable;
 import org.springframework.data.hadoop.store.codec.CodecInfo;
-import org.springframework.data.hadoop.store.support.StoreObjectSupport;
+import org.springframework.data.hadoop.store.split.Split;
+import org.springframework.data.hadoop.store.support.InputStoreObjectSupport;
 
 /**
  * A {@code AbstractSequenceFileReader} is a base implementation handling
  * reads with a {@code SequenceFile}.
+ * <p>
+ * If a {@link Split} is given, reading starts from a first sync marker
+ * after a split start and stops at a first sync marker after a split end,
+ * similarly to how a {@code SequenceFile} is split in map reduce. This way
+ * every record is read by exactly one split.
  *
  * @author Janne Valkealahti
  *
  */
-public abstract class AbstractSequenceFileReader extends StoreObjectSupport {
+public abstract class AbstractSequenceFileReader extends InputStoreObjectSupport {
+
+	private Reader reader;
+
+	private long end = Long.MAX_VALUE;
+
+	private boolean more = true;
 
 	/**
 	 * Instantiates a new abstract sequence file reader.
@@ -43,12 +55,91 @@ public abstract class AbstractSequenceFileReader extends StoreObjectSupport {
 	 * @param codec the compression codec info
 	 */
 	public AbstractSequenceFileReader(Configuration configuration, Path basePath, CodecInfo codec) {
-		super(configuration, basePath, codec);
+		this(configuration, basePath, codec, null);
+	}
+
+	/**
+	 * Instantiates a new abstract sequence file reader.
+	 *
+	 * @param configuration the hadoop configuration
+	 * @param basePath the hdfs path
+	 * @param codec the compression codec info
+	 * @param split the input split
+	 */
+	public AbstractSequenceFileReader(Configuration configuration, Path basePath, CodecInfo codec, Split split) {
+		super(configuration, basePath, codec, split);
+	}
+
+	/**
+	 * Closes the underlying reader if it has been opened.
+	 *
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public void close() throws IOException {
+		more = false;
+		if (reader != null) {
+			reader.close();
+			reader = null;
+		}
 	}
 
-	@SuppressWarnings("deprecation")
+	/**
+	 * Opens a new reader positioned to a first sync marker
+	 * after a split start if split is set.
+	 *
+	 * @return the reader
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
 	protected Reader getInput() throws IOException {
-		FileSystem fileSystem = getPath().getFileSystem(getConfiguration());
-		return new SequenceFile.Reader(fileSystem, getPath(), getConfiguration());
+		Reader input = new SequenceFile.Reader(getConfiguration(), Reader.file(getPath()));
+		Split split = getSplit();
+		if (split != null) {
+			try {
+				if (split.getStart() > input.getPosition()) {
+					input.sync(split.getStart());
+				}
+			} catch (IOException e) {
+				input.close();
+				throw e;
+			}
+		}
+		return input;
 	}
+
+	/**
+	 * Reads a next record into given key and value which are
+	 * reused between calls. Reader is opened on first call.
+	 *
+	 * @param key the key to read into
+	 * @param value the value to read into
+	 * @return true, if record was read, false if there are no more records in this file or split
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	protected boolean next(Writable key, Writable value) throws IOException {
+		if (reader == null) {
+			if (!more) {
+				return false;
+			}
+			reader = getInput();
+			Split split = getSplit();
+			if (split != null) {
+				end = split.getEnd();
+				more = reader.getPosition() < end;
+			}
+		}
+		if (!more) {
+			return false;
+		}
+		long position = reader.getPosition();
+		boolean remaining = reader.next(key, value);
+		// record starting after a sync marker past split end
+		// belongs to next split
+		if (position >= end && reader.syncSeen()) {
+			more = false;
+		} else {
+			more = remaining;
+		}
+		return more;
+	}
+
 }
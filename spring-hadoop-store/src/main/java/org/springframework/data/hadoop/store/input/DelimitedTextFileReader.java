@@ -21,15 +21,19 @@ import java.util.List;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
 import org.springframework.data.hadoop.store.DataStoreReader;
 import org.springframework.data.hadoop.store.codec.CodecInfo;
 import org.springframework.data.hadoop.store.split.Split;
 import org.springframework.data.hadoop.store.support.StoreUtils;
-import org.springframework.util.StringUtils;
 
 /**
  * A {@code DelimitedTextFileReader} is a {@code DataStoreReader} implementation
  * able to read {@code String}s from a raw hdfs files as delimited fields.
+ * <p>
+ * Lines are split with a {@link DelimitedTextTokenizer} directly from
+ * bytes of a line, optionally handling quoted fields. If columns are set,
+ * only those fields are decoded and returned.
  *
  * @author Janne Valkealahti
  *
@@ -46,7 +50,13 @@ public class DelimitedTextFileReader implements DataStoreReader<List<String>> {
 	private TextFileReader textFileReader;
 
 	/** Field delimiter */
-    private final String fieldDelimiter;
+    private final byte[] fieldDelimiter;
+
+	/** Tokenizer for fields */
+	private DelimitedTextTokenizer tokenizer;
+
+	/** Column indexes to read, null for all */
+	private int[] columns;
 
 	/**
 	 * Instantiates a new delimited text file reader.
@@ -82,14 +92,76 @@ public class DelimitedTextFileReader implements DataStoreReader<List<String>> {
 	 * @param textDelimiter the text delimiter
 	 */
 	public DelimitedTextFileReader(Configuration configuration, Path basePath, CodecInfo codec, Split inputSplit, byte[] fieldDelimiter, byte[] textDelimiter) {
-		this.fieldDelimiter = new String(fieldDelimiter);
+		this.fieldDelimiter = fieldDelimiter;
+		this.tokenizer = new DelimitedTextTokenizer(fieldDelimiter);
 		this.textFileReader = new TextFileReader(configuration, basePath, codec, inputSplit, textDelimiter);
 	}
 
 	@Override
 	public List<String> read() throws IOException {
-		String line = textFileReader.read();
-		return StringUtils.hasText(line) ? Arrays.asList(line.split(fieldDelimiter)) : null;
+		if (!nextLine()) {
+			return null;
+		}
+		String[] fields = new String[columns != null ? columns.length : tokenizer.getFieldCount()];
+		tokenizer.getFields(fields, columns);
+		return Arrays.asList(fields);
+	}
+
+	/**
+	 * Reads fields of a next line into a given array which can be reused
+	 * between reads. If columns are set, array is filled with projected
+	 * fields, otherwise with fields in their order until array is full.
+	 *
+	 * @param fields the array to fill
+	 * @return the number of values set into array or -1 if there are no more lines
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public int read(String[] fields) throws IOException {
+		if (!nextLine()) {
+			return -1;
+		}
+		return tokenizer.getFields(fields, columns);
+	}
+
+	/**
+	 * Sets the quote character enabling handling of quoted fields,
+	 * i.e. {@link DelimitedTextTokenizer#DOUBLE_QUOTE} for CSV.
+	 *
+	 * @param quote the ascii quote character
+	 */
+	public void setQuote(byte quote) {
+		// unsigned so that a non-ascii byte is rejected instead of disabling quotes
+		this.tokenizer = new DelimitedTextTokenizer(fieldDelimiter, quote & 0xff);
+	}
+
+	/**
+	 * Sets the indexes of columns to read. Fields are returned in order
+	 * of given indexes and a missing field is returned as <code>null</code>.
+	 *
+	 * @param columns the column indexes
+	 */
+	public void setColumns(int... columns) {
+		this.columns = columns != null && columns.length > 0 ? columns : null;
+	}
+
+	private boolean nextLine() throws IOException {
+		Text line = textFileReader.readText();
+		if (line == null || isBlank(line)) {
+			return false;
+		}
+		tokenizer.tokenize(line.getBytes(), 0, line.getLength());
+		return true;
+	}
+
+	private static boolean isBlank(Text line) {
+		// blank line has been treated as an end of data
+		byte[] bytes = line.getBytes();
+		for (int i = 0; i < line.getLength(); i++) {
+			if (!Character.isWhitespace(bytes[i])) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	@Override
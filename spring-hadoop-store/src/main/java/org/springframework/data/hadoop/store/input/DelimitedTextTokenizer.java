@@ -0,0 +1,240 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.store.input;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import org.springframework.util.Assert;
+
+/**
+ * A single pass tokenizer splitting UTF-8 encoded records into delimited
+ * fields. Tokenizing only records field boundaries into arrays reused
+ * between records, fields are decoded into {@code String}s on demand, thus
+ * only fields actually needed are ever materialized.
+ * <p>
+ * Delimiter is matched as literal bytes and may be longer than one byte.
+ * If a quote character is set, a field starting with it is read until a
+ * closing quote, may contain delimiters and uses a doubled quote as an
+ * escaped quote, similarly to CSV. Empty fields, including trailing ones,
+ * are preserved.
+ *
+ * @author agent
+ *
+ */
+public class DelimitedTextTokenizer {
+
+	/** Quote used in CSV */
+	public final static byte DOUBLE_QUOTE = '"';
+
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+
+	private final byte[] delimiter;
+
+	private final int quote;
+
+	private byte[] bytes;
+
+	private int count;
+
+	private int[] starts = new int[16];
+
+	private int[] ends = new int[16];
+
+	private boolean[] escaped = new boolean[16];
+
+	/**
+	 * Instantiates a new delimited text tokenizer without quote handling.
+	 *
+	 * @param delimiter the field delimiter
+	 */
+	public DelimitedTextTokenizer(byte[] delimiter) {
+		this(delimiter, -1);
+	}
+
+	/**
+	 * Instantiates a new delimited text tokenizer.
+	 *
+	 * @param delimiter the field delimiter
+	 * @param quote the ascii quote character or negative to disable quote handling
+	 */
+	public DelimitedTextTokenizer(byte[] delimiter, int quote) {
+		Assert.isTrue(delimiter != null && delimiter.length > 0, "Delimiter must be set");
+		// bytes above ascii range are parts of multi-byte utf-8 characters
+		Assert.isTrue(quote < 0 || (quote < 0x80 && delimiter[0] != quote),
+				"Quote must be an ascii character different from delimiter");
+		this.delimiter = delimiter;
+		this.quote = quote < 0 ? -1 : quote;
+	}
+
+	/**
+	 * Tokenizes a record. Array is referenced until next call, thus its
+	 * contents must not change while fields are accessed.
+	 *
+	 * @param bytes the array containing a record
+	 * @param offset the offset of a record
+	 * @param length the length of a record
+	 * @return the number of fields
+	 */
+	public int tokenize(byte[] bytes, int offset, int length) {
+		this.bytes = bytes;
+		this.count = 0;
+		int end = offset + length;
+		int i = offset;
+		while (true) {
+			if (quote != -1 && i < end && bytes[i] == quote) {
+				int start = ++i;
+				boolean esc = false;
+				while (i < end) {
+					if (bytes[i] == quote) {
+						if (i + 1 < end && bytes[i + 1] == quote) {
+							esc = true;
+							i += 2;
+							continue;
+						}
+						break;
+					}
+					i++;
+				}
+				add(start, i, esc);
+				// skip closing quote and anything before next delimiter
+				while (i < end && !isDelimiter(bytes, i, end)) {
+					i++;
+				}
+			} else {
+				int start = i;
+				while (i < end && !isDelimiter(bytes, i, end)) {
+					i++;
+				}
+				add(start, i, false);
+			}
+			if (i >= end) {
+				break;
+			}
+			i += delimiter.length;
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the number of fields in last tokenized record.
+	 *
+	 * @return the field count
+	 */
+	public int getFieldCount() {
+		return count;
+	}
+
+	/**
+	 * Gets a decoded field from last tokenized record.
+	 *
+	 * @param index the field index
+	 * @return the field or <code>null</code> if record doesn't have a field with index
+	 */
+	public String getField(int index) {
+		if (index < 0 || index >= count) {
+			return null;
+		}
+		String value = new String(bytes, starts[index], ends[index] - starts[index], UTF8);
+		if (escaped[index]) {
+			String q = String.valueOf((char) quote);
+			value = value.replace(q + q, q);
+		}
+		return value;
+	}
+
+	/**
+	 * Gets the start offset of a field in tokenized array. For quoted
+	 * field, offset is after opening quote.
+	 *
+	 * @param index the field index
+	 * @return the start offset
+	 */
+	public int getFieldStart(int index) {
+		Assert.isTrue(index >= 0 && index < count, "Field index out of range");
+		return starts[index];
+	}
+
+	/**
+	 * Gets the length of a raw field in tokenized array. For quoted field
+	 * with escaped quotes, raw bytes still contain doubled quotes.
+	 *
+	 * @param index the field index
+	 * @return the field length
+	 */
+	public int getFieldLength(int index) {
+		Assert.isTrue(index >= 0 && index < count, "Field index out of range");
+		return ends[index] - starts[index];
+	}
+
+	/**
+	 * Decodes fields into a given array. If columns are given, only those
+	 * fields are decoded in given order, otherwise fields are decoded in
+	 * their natural order until array is full.
+	 *
+	 * @param fields the array to fill
+	 * @param columns the column indexes to decode, may be null
+	 * @return the number of values set into array
+	 */
+	public int getFields(String[] fields, int[] columns) {
+		if (columns != null) {
+			int n = Math.min(columns.length, fields.length);
+			for (int i = 0; i < n; i++) {
+				fields[i] = getField(columns[i]);
+			}
+			return n;
+		} else {
+			int n = Math.min(count, fields.length);
+			for (int i = 0; i < n; i++) {
+				fields[i] = getField(i);
+			}
+			return n;
+		}
+	}
+
+	private boolean isDelimiter(byte[] b, int i, int end) {
+		if (b[i] != delimiter[0]) {
+			return false;
+		}
+		int len = delimiter.length;
+		if (len == 1) {
+			return true;
+		}
+		if (i + len > end) {
+			return false;
+		}
+		for (int j = 1; j < len; j++) {
+			if (b[i + j] != delimiter[j]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void add(int start, int end, boolean esc) {
+		if (count == starts.length) {
+			int size = count << 1;
+			starts = Arrays.copyOf(starts, size);
+			ends = Arrays.copyOf(ends, size);
+			escaped = Arrays.copyOf(escaped, size);
+		}
+		starts[count] = start;
+		ends[count] = end;
+		escaped[count] = esc;
+		count++;
+	}
+
+}
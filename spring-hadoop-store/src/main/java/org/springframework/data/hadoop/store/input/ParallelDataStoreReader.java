@@ -0,0 +1,361 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.store.input;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.hadoop.store.DataStoreReader;
+import org.springframework.data.hadoop.store.StoreException;
+import org.springframework.data.hadoop.store.split.Split;
+import org.springframework.data.hadoop.store.split.Splitter;
+import org.springframework.util.Assert;
+
+/**
+ * A {@code ParallelDataStoreReader} is a {@code DataStoreReader} reading
+ * splits of files concurrently and merging entities into a single reader.
+ * Files are resolved from a path which may be a file, a directory or a
+ * glob pattern and every file is split using a {@link Splitter}. Readers
+ * for splits are created with a {@link SplitReaderFactory}.
+ * <p>
+ * Splits are read by a limited number of workers run with a
+ * {@code TaskExecutor}. Every worker buffers entities into batches which
+ * are passed via a bounded queue to a reading thread. Entities from a
+ * same split are returned in order but entities from different splits are
+ * interleaved in no particular order.
+ *
+ * @author agent
+ *
+ * @param <T> the type of an entity to read
+ */
+public class ParallelDataStoreReader<T> implements DataStoreReader<T> {
+
+	private final static Log log = LogFactory.getLog(ParallelDataStoreReader.class);
+
+	/** Default number of entities in a batch */
+	public final static int DEFAULT_BATCH_SIZE = 1024;
+
+	/** Default number of batches buffered */
+	public final static int DEFAULT_BUFFER_SIZE = 16;
+
+	/** Marker queued when all workers are done */
+	private final static Object END = new Object();
+
+	private final Configuration configuration;
+
+	private final Path path;
+
+	private final Splitter splitter;
+
+	private final SplitReaderFactory<T> readerFactory;
+
+	private TaskExecutor taskExecutor;
+
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+	private BlockingQueue<Object> queue;
+
+	private final Queue<SplitTask> tasks = new ConcurrentLinkedQueue<SplitTask>();
+
+	private final AtomicInteger activeWorkers = new AtomicInteger();
+
+	private volatile boolean closed;
+
+	private volatile Throwable failure;
+
+	private List<T> current;
+
+	private int currentIndex;
+
+	private boolean started;
+
+	private boolean ended;
+
+	/**
+	 * Instantiates a new parallel data store reader.
+	 *
+	 * @param configuration the hadoop configuration
+	 * @param path the file, directory or glob pattern
+	 * @param splitter the splitter for files
+	 * @param readerFactory the factory creating readers for splits
+	 */
+	public ParallelDataStoreReader(Configuration configuration, Path path, Splitter splitter,
+			SplitReaderFactory<T> readerFactory) {
+		Assert.notNull(configuration, "Configuration must be set");
+		Assert.notNull(path, "Path must be set");
+		Assert.notNull(splitter, "Splitter must be set");
+		Assert.notNull(readerFactory, "Reader factory must be set");
+		this.configuration = configuration;
+		this.path = path;
+		this.splitter = splitter;
+		this.readerFactory = readerFactory;
+	}
+
+	@Override
+	public synchronized T read() throws IOException {
+		if (closed) {
+			throw new StoreException("Reader is closed");
+		}
+		if (!started) {
+			start();
+		}
+		while (current == null || currentIndex >= current.size()) {
+			if (ended) {
+				// failure is not forgotten after it's been thrown once
+				throwFailure();
+				return null;
+			}
+			current = nextBatch();
+			currentIndex = 0;
+		}
+		T entity = current.get(currentIndex);
+		current.set(currentIndex++, null);
+		return entity;
+	}
+
+	@Override
+	public void close() throws IOException {
+		// workers notice this and close their split readers
+		closed = true;
+		BlockingQueue<Object> q = queue;
+		if (q != null) {
+			q.clear();
+		}
+	}
+
+	/**
+	 * Sets the task executor running split workers. If not set, a
+	 * {@link SimpleAsyncTaskExecutor} with daemon threads is used. Executor needs to be able
+	 * to run {@link #setParallelism(int)} tasks concurrently.
+	 *
+	 * @param taskExecutor the new task executor
+	 */
+	public void setTaskExecutor(TaskExecutor taskExecutor) {
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * Sets the max number of splits read concurrently. Default is
+	 * a number of available processors.
+	 *
+	 * @param parallelism the new parallelism
+	 */
+	public void setParallelism(int parallelism) {
+		Assert.isTrue(parallelism > 0, "Parallelism must be positive");
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Sets the number of entities a worker buffers before
+	 * passing them to a reading thread.
+	 *
+	 * @param batchSize the new batch size
+	 */
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "Batch size must be positive");
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Sets the max number of batches waiting to be read.
+	 *
+	 * @param bufferSize the new buffer size
+	 */
+	public void setBufferSize(int bufferSize) {
+		Assert.isTrue(bufferSize > 0, "Buffer size must be positive");
+		this.bufferSize = bufferSize;
+	}
+
+	private void start() throws IOException {
+		started = true;
+		for (Path file : resolveFiles()) {
+			for (Split split : splitter.getSplits(file)) {
+				tasks.add(new SplitTask(file, split));
+			}
+		}
+		queue = new ArrayBlockingQueue<Object>(bufferSize);
+		int workers = Math.min(parallelism, tasks.size());
+		if (workers == 0) {
+			ended = true;
+			return;
+		}
+		log.info("Reading " + tasks.size() + " splits from " + path + " with " + workers + " workers");
+		TaskExecutor executor = taskExecutor;
+		if (executor == null) {
+			// daemon workers don't keep jvm alive if reader is never closed
+			SimpleAsyncTaskExecutor defaultExecutor = new SimpleAsyncTaskExecutor("store-split-reader-");
+			defaultExecutor.setDaemon(true);
+			executor = defaultExecutor;
+		}
+		activeWorkers.set(workers);
+		for (int i = 0; i < workers; i++) {
+			executor.execute(new Worker());
+		}
+	}
+
+	private List<Path> resolveFiles() throws IOException {
+		FileSystem fs = path.getFileSystem(configuration);
+		List<Path> files = new ArrayList<Path>();
+		FileStatus[] statuses = fs.globStatus(path);
+		if (statuses == null) {
+			return files;
+		}
+		for (FileStatus status : statuses) {
+			if (status.isDirectory()) {
+				for (FileStatus child : fs.listStatus(status.getPath())) {
+					if (!child.isDirectory() && !isHidden(child.getPath())) {
+						files.add(child.getPath());
+					}
+				}
+			} else {
+				files.add(status.getPath());
+			}
+		}
+		return files;
+	}
+
+	private static boolean isHidden(Path p) {
+		String name = p.getName();
+		return name.startsWith("_") || name.startsWith(".");
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<T> nextBatch() throws IOException {
+		Object o;
+		try {
+			o = queue.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting entities");
+		}
+		throwFailure();
+		if (o == END) {
+			ended = true;
+			return null;
+		}
+		return (List<T>) o;
+	}
+
+	private void throwFailure() throws IOException {
+		Throwable t = failure;
+		if (t != null) {
+			ended = true;
+			if (t instanceof IOException) {
+				throw (IOException) t;
+			}
+			throw new StoreException("Error reading split", t);
+		}
+	}
+
+	/**
+	 * Split of a file waiting to be read.
+	 */
+	private static class SplitTask {
+
+		final Path path;
+
+		final Split split;
+
+		SplitTask(Path path, Split split) {
+			this.path = path;
+			this.split = split;
+		}
+	}
+
+	/**
+	 * Worker reading splits until there are no more left.
+	 */
+	private class Worker implements Runnable {
+
+		@Override
+		public void run() {
+			try {
+				SplitTask task;
+				while (isActive() && (task = tasks.poll()) != null) {
+					readSplit(task);
+				}
+			} catch (Throwable t) {
+				log.error("Error reading split", t);
+				if (failure == null) {
+					failure = t;
+				}
+				// wake up reading thread
+				queue.offer(END);
+			} finally {
+				if (activeWorkers.decrementAndGet() == 0) {
+					enqueue(END);
+				}
+			}
+		}
+
+		private void readSplit(SplitTask task) throws IOException {
+			DataStoreReader<T> reader = readerFactory.createReader(task.path, task.split);
+			try {
+				List<T> batch = new ArrayList<T>(batchSize);
+				T entity;
+				while (isActive() && (entity = reader.read()) != null) {
+					batch.add(entity);
+					if (batch.size() >= batchSize) {
+						enqueue(batch);
+						batch = new ArrayList<T>(batchSize);
+					}
+				}
+				if (!batch.isEmpty()) {
+					enqueue(batch);
+				}
+			} finally {
+				reader.close();
+			}
+		}
+
+		private boolean isActive() {
+			return !closed && failure == null;
+		}
+
+		private void enqueue(Object o) {
+			try {
+				while (!closed) {
+					if (queue.offer(o, 100, TimeUnit.MILLISECONDS)) {
+						return;
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+}
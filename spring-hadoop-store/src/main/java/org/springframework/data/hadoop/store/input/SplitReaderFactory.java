@@ -0,0 +1,44 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.store.input;
+
+import java.io.IOException;
+
+import org.apache.hadoop.fs.Path;
+import org.springframework.data.hadoop.store.DataStoreReader;
+import org.springframework.data.hadoop.store.split.Split;
+
+/**
+ * Factory creating a {@code DataStoreReader} for a single split of a file.
+ *
+ * @author agent
+ * @see ParallelDataStoreReader
+ *
+ * @param <T> the type of an entity to read
+ */
+public interface SplitReaderFactory<T> {
+
+	/**
+	 * Creates a reader reading only a given split of a file.
+	 *
+	 * @param path the file path
+	 * @param split the split
+	 * @return the reader for a split
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	DataStoreReader<T> createReader(Path path, Split split) throws IOException;
+
+}
@@ -30,16 +30,25 @@ import org.springframework.data.hadoop.store.split.Split;
 /**
  * A {@code TextFileReader} is a {@code DataStoreReader} implementation
  * able to read {@code String}s from a raw hdfs files.
+ * <p>
+ * Lines are read into a single {@code Text} reused for the lifetime
+ * of a reader. Besides {@link #read()} which decodes a line into a new
+ * {@code String}, lines can be accessed as raw UTF-8 bytes with
+ * {@link #readText()} or {@link #read(TextRecordCallback)} without
+ * allocating anything per line.
  *
  * @author Janne Valkealahti
  *
  */
 public class TextFileReader extends AbstractDataStreamReader implements DataStoreReader<String> {
 
-	private ReaderHelper<LineReader, byte[]> readerHelper;
+	private ReaderHelper<LineReader, Text> readerHelper;
 
 	private final byte[] delimiter;
 
+	/** Text reused for every line */
+	private final Text text = new Text();
+
 	/**
 	 * Instantiates a new text file reader.
 	 *
@@ -92,30 +101,70 @@ public class TextFileReader extends AbstractDataStreamReader implements DataStor
 
 	@Override
 	public String read() throws IOException  {
+		Text value = readText();
+		return value != null && value.getLength() > 0 ? value.toString() : null;
+	}
+
+	/**
+	 * Reads a next line into a {@code Text} reused by this reader. Returned
+	 * instance is overwritten by a next read, thus it must not be kept
+	 * and only bytes up to {@link Text#getLength()} are valid.
+	 *
+	 * @return the line or <code>null</code> if there are no more lines
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public Text readText() throws IOException {
+		return getReaderHelper().read();
+	}
+
+	/**
+	 * Reads lines passing their bytes to a callback until there are no more
+	 * lines or callback asks to stop. Bytes given to a callback are only
+	 * valid during the call.
+	 *
+	 * @param callback the callback
+	 * @return the number of lines passed to a callback
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public long read(TextRecordCallback callback) throws IOException {
+		long count = 0;
+		Text value;
+		while ((value = readText()) != null) {
+			count++;
+			if (!callback.doWithRecord(value.getBytes(), 0, value.getLength())) {
+				break;
+			}
+		}
+		return count;
+	}
+
+	private ReaderHelper<LineReader, Text> getReaderHelper() throws IOException {
 		if (readerHelper == null) {
-			readerHelper = new ReaderHelper<LineReader, byte[]>(getInput(), getInputContext(), getSplit(), getCodec()) {
+			readerHelper = new ReaderHelper<LineReader, Text>(getInput(), getInputContext(), getSplit(), getCodec()) {
 				@Override
 				protected LineReader createReader(InputStream inputStream) throws IOException {
 					LineReader lineReader = new LineReader(inputStream, delimiter);
 					if (getContext().getStart() > 0) {
-						processReadCount(lineReader.readLine(new Text()));
+						processReadCount(lineReader.readLine(text));
 					}
 					return lineReader;
 				}
 
 				@Override
-				protected byte[] doRead(LineReader delegate) throws IOException {
-					Text text = new Text();
-					if (!getInputContext().isEndReached()) {
-						processReadCount(delegate.readLine(text));
+				protected Text doRead(LineReader delegate) throws IOException {
+					if (getInputContext().isEndReached()) {
+						return null;
 					}
-					return text.getBytes();
+					// zero bytes consumed means end of stream, empty
+					// line still consumes a delimiter
+					int size = delegate.readLine(text);
+					processReadCount(size);
+					return size > 0 ? text : null;
 				}
 			};
 			readerHelper.init();
 		}
-		byte[] value = readerHelper.read();
-		return value != null && value.length > 0 ? new String(value) : null;
+		return readerHelper;
 	}
 
 }
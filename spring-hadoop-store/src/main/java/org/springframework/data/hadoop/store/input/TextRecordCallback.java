@@ -0,0 +1,42 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.store.input;
+
+import java.io.IOException;
+
+/**
+ * Callback receiving raw UTF-8 bytes of a text record. Given array is
+ * reused by a reader and only valid during a call, callback needs to copy
+ * or decode bytes it wants to keep.
+ *
+ * @author agent
+ * @see TextFileReader#read(TextRecordCallback)
+ *
+ */
+public interface TextRecordCallback {
+
+	/**
+	 * Called for every record read.
+	 *
+	 * @param bytes the array containing a record
+	 * @param offset the offset of a record in array
+	 * @param length the length of a record
+	 * @return true if reading should continue
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	boolean doWithRecord(byte[] bytes, int offset, int length) throws IOException;
+
+}
@@ -20,21 +20,24 @@ import java.io.IOException;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
-import org.apache.hadoop.io.SequenceFile.Reader;
 import org.apache.hadoop.io.Text;
 import org.springframework.data.hadoop.store.DataStoreReader;
 import org.springframework.data.hadoop.store.codec.CodecInfo;
+import org.springframework.data.hadoop.store.split.Split;
 
 /**
  * A {@code TextSequenceFileReader} is a {@code DataStoreReader} implementation
- * able to read {@code String}s from a {@code SequenceFile}.
+ * able to read {@code String}s from a {@code SequenceFile}. Key and value
+ * {@code Text}s are reused between reads.
  *
  * @author Janne Valkealahti
  *
  */
 public class TextSequenceFileReader extends AbstractSequenceFileReader implements DataStoreReader<String> {
 
-	private Reader reader;
+	private final Text key = new Text();
+
+	private final Text value = new Text();
 
 	/**
 	 * Instantiates a new text sequence file reader.
@@ -47,23 +50,25 @@ public class TextSequenceFileReader extends AbstractSequenceFileReader implement
 		super(configuration, basePath, codec);
 	}
 
-	@Override
-	public void close() throws IOException {
-		reader.close();
+	/**
+	 * Instantiates a new text sequence file reader.
+	 *
+	 * @param configuration the hadoop configuration
+	 * @param basePath the hdfs path
+	 * @param codec the compression codec info
+	 * @param split the input split
+	 */
+	public TextSequenceFileReader(Configuration configuration, Path basePath, CodecInfo codec, Split split) {
+		super(configuration, basePath, codec, split);
 	}
 
 	@Override
 	public String read() throws IOException {
-		if (reader == null) {
-			reader = getInput();
+		if (!next(key, value)) {
+			return null;
 		}
-
-		Text k = new Text();
-		Text v = new Text();
-		reader.next(k, v);
-		byte[] value = v.getBytes();
-		return value != null && value.length > 0 ? new String(value) : null;
+		// only valid bytes of a reused buffer are decoded
+		return value.getLength() > 0 ? value.toString() : null;
 	}
 
-
 }
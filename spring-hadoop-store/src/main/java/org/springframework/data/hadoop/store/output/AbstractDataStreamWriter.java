@@ -15,22 +15,32 @@
  */
 package org.springframework.data.hadoop.store.output;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileAlreadyExistsException;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.compress.CodecPool;
 import org.apache.hadoop.io.compress.CompressionCodec;
-import org.apache.hadoop.util.ReflectionUtils;
+import org.apache.hadoop.io.compress.Compressor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.data.hadoop.store.StoreException;
 import org.springframework.data.hadoop.store.codec.CodecInfo;
+import org.springframework.data.hadoop.store.event.FileWrittenEvent;
+import org.springframework.data.hadoop.store.event.StoreEventPublisher;
 import org.springframework.data.hadoop.store.support.OutputStoreObjectSupport;
 import org.springframework.data.hadoop.store.support.StreamsHolder;
-import org.springframework.util.ClassUtils;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 /**
  * A {@code AbstractDataStreamWriter} is a base implementation handling streams
@@ -48,19 +58,39 @@ public abstract class AbstractDataStreamWriter extends OutputStoreObjectSupport
 	private int maxOpenAttempts = DEFAULT_MAX_OPEN_ATTEMPTS;
 
 	/**
-	 * We use this jvm level lock in this class to guard against one
-	 * scenario. When we try to create a stream a check is first done
-	 * if path exists and then we create a stream. This sync lock would
-	 * not make sense on a global level because exist()/create() is never
-	 * atomic but we want to do this within a jvm. Some distros have a little
-	 * different functionality in cases when same leaseholder is trying to
-	 * re-create a stream with already open file. i.e. in cdh this operation
-	 * on default takes 5 minutes while vanilla hadoop fails immediately.
-	 * We minimise this risk within a jvm in a way that same leaseholder
-	 * would not try to use same path to create a stream. In different jvm's
-	 * error handling is different because of different leaseholders.
+	 * We use this jvm level registry of paths in this class to guard against
+	 * one scenario. Some distros have a little different functionality in
+	 * cases when same leaseholder is trying to re-create a stream with already
+	 * open file. i.e. in cdh this operation on default takes 5 minutes while
+	 * vanilla hadoop fails immediately. We minimise this risk within a jvm in
+	 * a way that a path is claimed before a stream is created and the claim is
+	 * kept until the stream is closed, thus same leaseholder would not try to
+	 * use same path to create a stream. Claims are per path so writers with
+	 * different paths never wait each other. In different jvm's we rely on
+	 * create without overwrite which fails atomically if path exists.
 	 */
-	private final static Object lock = new Object();
+	private final static ConcurrentMap<Path, Object> openPaths = new ConcurrentHashMap<Path, Object>();
+
+	/** Max number of threads completing rolled over files on default */
+	private final static int DEFAULT_COMPLETION_THREADS = 4;
+
+	/** Max number of rolled over files waiting completion on default */
+	private final static int DEFAULT_COMPLETION_QUEUE_CAPACITY = 64;
+
+	/** Executor for completing rolled over files if writer doesn't have one */
+	private final static TaskExecutor defaultCompletionExecutor = createDefaultCompletionExecutor();
+
+	/** Flag enabling asynchronous completion of rolled over files */
+	private volatile boolean asyncRolloverClose = false;
+
+	/** Guards pending completions */
+	private final Object completionLock = new Object();
+
+	/** Number of rolled over files still being completed */
+	private int pendingCompletions;
+
+	/** First error from asynchronous completion not yet thrown */
+	private Exception completionFailure;
 
 	/**
 	 * Instantiates a new abstract data stream writer.
@@ -84,6 +114,127 @@ public abstract class AbstractDataStreamWriter extends OutputStoreObjectSupport
 		this.maxOpenAttempts = maxOpenAttempts < 1 ? 1 : maxOpenAttempts;
 	}
 
+	/**
+	 * Sets if rolled over files are completed asynchronously. When enabled,
+	 * a stream of a rolled over file is handed off to a background task which
+	 * closes it, renames it and publishes a {@link FileWrittenEvent}, and a
+	 * next file is opened immediately by a next write. Closing this writer
+	 * waits pending completions and throws a first error from those if any.
+	 * Completions are run with a task executor of this writer or with a
+	 * small shared pool if one is not set. If an executor rejects
+	 * a completion, it is done synchronously by a writing thread. This is
+	 * disabled by default.
+	 *
+	 * @param asyncRolloverClose the async rollover close flag
+	 */
+	public void setAsyncRolloverClose(boolean asyncRolloverClose) {
+		this.asyncRolloverClose = asyncRolloverClose;
+	}
+
+	/**
+	 * Checks if rolled over files are completed asynchronously.
+	 *
+	 * @return true, if async rollover close is enabled
+	 * @see #setAsyncRolloverClose(boolean)
+	 */
+	public boolean isAsyncRolloverClose() {
+		return asyncRolloverClose;
+	}
+
+	/**
+	 * Completes an output by closing its streams, renaming
+	 * its file and publishing a {@link FileWrittenEvent}.
+	 *
+	 * @param holder the holder for output streams
+	 * @return the final path of a file
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	protected Path completeOutput(StreamsHolder<OutputStream> holder) throws IOException {
+		holder.close();
+
+		Path path = renameFile(holder.getPath());
+
+		StoreEventPublisher storeEventPublisher = getStoreEventPublisher();
+		if (storeEventPublisher != null) {
+			storeEventPublisher.publishEvent(new FileWrittenEvent(this, path));
+		}
+		return path;
+	}
+
+	/**
+	 * Completes an output of a rolled over file. If async rollover close is
+	 * enabled, completion is done in a background task, otherwise output
+	 * is completed before returning.
+	 *
+	 * @param holder the holder for output streams
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @see #setAsyncRolloverClose(boolean)
+	 */
+	protected void completeRolledOutput(final StreamsHolder<OutputStream> holder) throws IOException {
+		if (!asyncRolloverClose) {
+			completeOutput(holder);
+			return;
+		}
+		synchronized (completionLock) {
+			pendingCompletions++;
+		}
+		Runnable task = new Runnable() {
+
+			@Override
+			public void run() {
+				Exception error = null;
+				try {
+					completeOutput(holder);
+				} catch (Exception e) {
+					log.error("Error completing rolled over file " + holder.getPath(), e);
+					error = e;
+				} finally {
+					synchronized (completionLock) {
+						if (error != null && completionFailure == null) {
+							completionFailure = error;
+						}
+						pendingCompletions--;
+						completionLock.notifyAll();
+					}
+				}
+			}
+		};
+		TaskExecutor executor = getTaskExecutor();
+		try {
+			(executor != null ? executor : defaultCompletionExecutor).execute(task);
+		} catch (TaskRejectedException e) {
+			log.warn("Completion of rolled over file rejected by executor, completing synchronously");
+			task.run();
+		}
+	}
+
+	/**
+	 * Waits until all asynchronously completed outputs are done and throws
+	 * a first error not yet thrown from those.
+	 *
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	protected void awaitCompletions() throws IOException {
+		Exception error;
+		synchronized (completionLock) {
+			while (pendingCompletions > 0) {
+				try {
+					completionLock.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while waiting rolled over files to complete");
+				}
+			}
+			error = completionFailure;
+			completionFailure = null;
+		}
+		if (error instanceof IOException) {
+			throw (IOException) error;
+		} else if (error instanceof RuntimeException) {
+			throw (RuntimeException) error;
+		}
+	}
+
 	/**
 	 * Gets the output.
 	 *
@@ -91,7 +242,7 @@ public abstract class AbstractDataStreamWriter extends OutputStoreObjectSupport
 	 * @throws IOException Signals that an I/O exception has occurred.
 	 */
 	protected StreamsHolder<OutputStream> getOutput() throws IOException {
-		StreamsHolder<OutputStream> holder = new StreamsHolder<OutputStream>();
+		final StreamsHolder<OutputStream> holder = new StreamsHolder<OutputStream>();
 		FileSystem fs = FileSystem.get(getConfiguration());
 
 		// Using maxOpenAttempts try to resolve path and open
@@ -106,30 +257,28 @@ public abstract class AbstractDataStreamWriter extends OutputStoreObjectSupport
 		int openAttempt = 0;
 
 		do {
-			boolean rollStrategies = false;
+			Path claimed = null;
 			try {
 				p = getResolvedPath();
-				synchronized (lock) {
-					boolean exists = fs.exists(p);
-					if (isAppendable() && exists) {
-						wout = fs.append(p);
-						break;
-					} else if (!isOverwrite() && exists) {
-						// don't rely on error to roll.
-						// check notes for lock object.
-						rollStrategies = true;
-					} else {
-						wout = fs.create(p, isOverwrite());
-						break;
-					}
+				Path qualified = fs.makeQualified(p);
+				// don't rely on error to roll if path is already
+				// open within this jvm, check notes for openPaths.
+				if (openPaths.putIfAbsent(qualified, holder) == null) {
+					claimed = qualified;
+					wout = openStream(fs, p);
+					break;
 				}
 			} catch (Exception e) {
-				rollStrategies = true;
+				if (claimed != null) {
+					openPaths.remove(claimed, holder);
+				}
+				if (e instanceof FileAlreadyExistsException) {
+					// created outside of this writer, remember it
+					markFileExists(p);
+				}
 			}
 
-			if (rollStrategies) {
-				getOutputContext().rollStrategies();
-			}
+			getOutputContext().rollStrategies();
 
 		} while (++openAttempt < maxOpenAttempts);
 
@@ -140,21 +289,102 @@ public abstract class AbstractDataStreamWriter extends OutputStoreObjectSupport
 
 		log.info("Creating output for path " + p);
 		holder.setPath(p);
+		markFileExists(p);
+		getOutputContext().setBlockSize(getBlockSize(fs, p));
+		final Path claimed = fs.makeQualified(p);
+		holder.addCloseCallback(new Runnable() {
 
-		if (!isCompressed()) {
-			holder.setStream(wout);
-		} else {
-			// TODO: will isCompressed() really guard for npe against getCodec()
-			Class<?> clazz = ClassUtils.resolveClassName(getCodec().getCodecClass(), getClass().getClassLoader());
-			CompressionCodec compressionCodec = (CompressionCodec) ReflectionUtils.newInstance(clazz,
-					getConfiguration());
-			OutputStream out = compressionCodec.createOutputStream(wout);
-			holder.setWrappedStream(wout);
-			holder.setStream(out);
+			@Override
+			public void run() {
+				openPaths.remove(claimed, holder);
+			}
+		});
+
+		boolean success = false;
+		try {
+			if (!isCompressed()) {
+				holder.setStream(wout);
+			} else {
+				CompressionCodec compressionCodec = getCompressionCodec();
+				// native compressors are expensive to create, borrow
+				// one from a pool and give it back when stream is closed
+				final Compressor compressor = CodecPool.getCompressor(compressionCodec, getConfiguration());
+				holder.addCloseCallback(new Runnable() {
+
+					@Override
+					public void run() {
+						CodecPool.returnCompressor(compressor);
+					}
+				});
+				OutputStream out = compressor != null ? compressionCodec.createOutputStream(wout, compressor)
+						: compressionCodec.createOutputStream(wout);
+				holder.setWrappedStream(wout);
+				holder.setStream(out);
+			}
+			success = true;
+		} finally {
+			if (!success) {
+				try {
+					wout.close();
+				} catch (IOException e) {
+				}
+				holder.close();
+			}
 		}
 		return holder;
 	}
 
+	/**
+	 * Opens a stream for a path already claimed by this writer. Creating
+	 * a new file is done without overwrite unless overwrite is enabled,
+	 * meaning it fails atomically if some other jvm created the file.
+	 *
+	 * @param fs the file system
+	 * @param p the path
+	 * @return the output stream
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private FSDataOutputStream openStream(FileSystem fs, Path p) throws IOException {
+		if (isAppendable()) {
+			try {
+				return fs.append(p);
+			} catch (FileNotFoundException e) {
+				// nothing to append to
+			}
+		}
+		return fs.create(p, isOverwrite());
+	}
+
+	private static TaskExecutor createDefaultCompletionExecutor() {
+		// bounded, a full queue falls back to completing synchronously
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setThreadNamePrefix("store-rollover-");
+		executor.setDaemon(true);
+		executor.setCorePoolSize(DEFAULT_COMPLETION_THREADS);
+		executor.setMaxPoolSize(DEFAULT_COMPLETION_THREADS);
+		executor.setQueueCapacity(DEFAULT_COMPLETION_QUEUE_CAPACITY);
+		executor.setAllowCoreThreadTimeOut(true);
+		executor.initialize();
+		return executor;
+	}
+
+	/**
+	 * Gets the block size of an opened file. New files are created with
+	 * a default block size of a file system while appended files keep the
+	 * block size they were created with.
+	 *
+	 * @param fs the file system
+	 * @param p the path
+	 * @return the block size or -1 if it can't be resolved
+	 */
+	private long getBlockSize(FileSystem fs, Path p) {
+		try {
+			return isAppendable() ? fs.getFileStatus(p).getBlockSize() : fs.getDefaultBlockSize(p);
+		} catch (IOException e) {
+			return -1;
+		}
+	}
+
 	/**
 	 * Gets the current stream writing position.
 	 *
@@ -16,25 +16,39 @@
 package org.springframework.data.hadoop.store.output;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.util.ReflectionUtils;
 import org.springframework.context.Lifecycle;
 import org.springframework.data.hadoop.store.DataStoreWriter;
 import org.springframework.data.hadoop.store.PartitionDataStoreWriter;
 import org.springframework.data.hadoop.store.StoreException;
 import org.springframework.data.hadoop.store.codec.CodecInfo;
+import org.springframework.data.hadoop.store.partition.DefaultPartitionKey;
+import org.springframework.data.hadoop.store.partition.PartitionKeyTimestampResolver;
 import org.springframework.data.hadoop.store.partition.PartitionStrategy;
 import org.springframework.data.hadoop.store.strategy.naming.FileNamingStrategy;
 import org.springframework.data.hadoop.store.strategy.naming.FileNamingStrategyFactory;
 import org.springframework.data.hadoop.store.strategy.rollover.RolloverStrategy;
 import org.springframework.data.hadoop.store.strategy.rollover.RolloverStrategyFactory;
+import org.springframework.data.hadoop.store.support.HashedWheelTimeoutService;
 import org.springframework.data.hadoop.store.support.LifecycleObjectSupport;
+import org.springframework.data.hadoop.store.support.OutputStoreObjectSupport;
+import org.springframework.data.hadoop.store.support.StoreObjectSupport;
 import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
 
 /**
  * Base implementation of {@link PartitionDataStoreWriter}.
@@ -57,14 +71,68 @@ public abstract class AbstractPartitionDataStoreWriter<T, K> extends LifecycleOb
 	/** Codec info for store */
 	private final CodecInfo codec;
 
+	/** Codec resolved from codec info, shared with partition writers */
+	private volatile CompressionCodec compressionCodec;
+
 	/** Used partition strategy if any */
 	private final PartitionStrategy<T, K> partitionStrategy;
 
+	/** Default number of lock stripes used in concurrent mode */
+	public final static int DEFAULT_LOCK_STRIPES = 64;
+
 	/** Current partition writers identified by a path */
-	private final Map<Path, DataStoreWriter<T>> writers = new ConcurrentHashMap<Path, DataStoreWriter<T>>();
+	private final ConcurrentMap<Path, DataStoreWriter<T>> writers = new ConcurrentHashMap<Path, DataStoreWriter<T>>();
+
+	/** Last write trackers for partition writers used for eviction */
+	private final ConcurrentMap<DataStoreWriter<T>, WriteTracker> trackers = new ConcurrentHashMap<DataStoreWriter<T>, WriteTracker>();
+
+	/** Trackers in order of last write, least recently written first */
+	private final ConcurrentSkipListMap<Long, WriteTracker> writeOrder = new ConcurrentSkipListMap<Long, WriteTracker>();
+
+	/** Sequence ordering writes into partition writers */
+	private final AtomicLong writeSequence = new AtomicLong();
 
 	/** Writer for unknown partitions */
-	private DataStoreWriter<T> fallbackWriter;
+	private volatile DataStoreWriter<T> fallbackWriter;
+
+	/** Max number of open partition writers, zero or less means unlimited */
+	private volatile int maxOpenWriters = 0;
+
+	/** Counter of created partition writers */
+	private final AtomicLong createdWriters = new AtomicLong();
+
+	/** Counter of partition writers evicted due to max open writers limit */
+	private final AtomicLong evictedWriters = new AtomicLong();
+
+	/** Marker for writes without a timestamp */
+	private final static long NO_TIMESTAMP = Long.MIN_VALUE;
+
+	/** Size of a time window in millis, zero or less disables time windows */
+	private volatile long timeWindow = 0;
+
+	/** Time in millis a time window is kept open after its end */
+	private volatile long timeWindowLateness = 0;
+
+	/** Resolver for partition key timestamps, null uses map key */
+	private PartitionKeyTimestampResolver<K> timestampResolver;
+
+	/** Max timestamp seen in writes */
+	private final AtomicLong watermark = new AtomicLong(NO_TIMESTAMP);
+
+	/** Writers for time windows starting before this are closed */
+	private final AtomicLong closedWindowsBefore = new AtomicLong(NO_TIMESTAMP);
+
+	/** Counter of partition writers closed because their time window passed */
+	private final AtomicLong windowClosedWriters = new AtomicLong();
+
+	/** Counter of writes into already closed time windows */
+	private final AtomicLong lateWrites = new AtomicLong();
+
+	/** Flag enabling concurrent write mode */
+	private boolean concurrent = false;
+
+	/** Striped locks guarding partition writer creation in concurrent mode */
+	private volatile Object[] creationLocks = createLocks(DEFAULT_LOCK_STRIPES);
 
 	/** Reduced factory interface for naming strategy */
 	private FileNamingStrategyFactory<FileNamingStrategy> fileNamingStrategyFactory;
@@ -81,6 +149,9 @@ public abstract class AbstractPartitionDataStoreWriter<T, K> extends LifecycleOb
 	/** Flush timeout for writers */
 	private long flushTimeout;
 
+	/** Timeout service for writers */
+	private HashedWheelTimeoutService timeoutService;
+
 	/** Append flag for writers */
 	private boolean append = false;
 
@@ -102,6 +173,12 @@ public abstract class AbstractPartitionDataStoreWriter<T, K> extends LifecycleOb
 	/** Flag enabling Syncable hflush*/
 	private boolean syncable = false;
 
+	/** Flag enabling asynchronous completion of rolled over files */
+	private boolean asyncRolloverClose = false;
+
+	/** Flag enabling naming index for writers */
+	private boolean indexedNaming = false;
+
 	/**
 	 * Instantiates a new abstract data store partition writer.
 	 *
@@ -157,6 +234,8 @@ public abstract class AbstractPartitionDataStoreWriter<T, K> extends LifecycleOb
 			}
 		}
 		writers.clear();
+		trackers.clear();
+		writeOrder.clear();
 		if (fallbackWriter != null) {
 			try {
 				fallbackWriter.close();
@@ -168,12 +247,34 @@ public abstract class AbstractPartitionDataStoreWriter<T, K> extends LifecycleOb
 	}
 
 	@Override
-	public synchronized void write(T entity, K partitionKey) throws IOException {
+	public void write(T entity, K partitionKey) throws IOException {
+		long timestamp = resolveTimestamp(partitionKey);
+		if (concurrent) {
+			writeConcurrent(entity, partitionKey, timestamp);
+			if (timestamp != NO_TIMESTAMP) {
+				closeEvictedWriters(advanceWatermark(timestamp));
+			}
+		} else {
+			writeSerialized(entity, partitionKey, timestamp);
+		}
+	}
+
+	/**
+	 * Write an entity while holding a monitor of this writer. All
+	 * writes are serialized regardless of a target partition.
+	 *
+	 * @param entity the entity to write
+	 * @param partitionKey the partition key
+	 * @param timestamp the timestamp of a write
+	 * @throws IOException if an I/O error occurs
+	 */
+	private synchronized void writeSerialized(T entity, K partitionKey, long timestamp) throws IOException {
 		if (isClosed()) {
 			throw new StoreException("This writer is already closed");
 		}
 		DataStoreWriter<T> writer = null;
 		Path path = null;
+		List<DataStoreWriter<T>> evicted = null;
 
 		// double sync for destroyWriter
 		synchronized (writers) {
@@ -181,14 +282,71 @@ public abstract class AbstractPartitionDataStoreWriter<T, K> extends LifecycleOb
 				path = partitionStrategy.getPartitionResolver().resolvePath(partitionKey);
 				writer = writers.get(path);
 			} else if (fallbackWriter == null) {
-				fallbackWriter = writer = createWriter(getConfiguration(), null, getCodec());
+				fallbackWriter = writer = newWriter(null);
 			}
 			if (writer == null) {
-				writer = createWriter(getConfiguration(), path, getCodec());
-				writers.put(path, writer);
+				evicted = evictWriters();
+				writer = newWriter(path);
+				registerWriter(path, writer);
 			}
 		}
+		closeEvictedWriters(evicted);
+		markWritten(writer, timestamp);
 		writer.write(entity);
+		if (timestamp != NO_TIMESTAMP) {
+			closeEvictedWriters(advanceWatermark(timestamp));
+		}
+	}
+
+	/**
+	 * Write an entity without a global monitor. Existing partition
+	 * writers are found from a non-blocking map, creation of new writers
+	 * is guarded by a lock stripe chosen by a partition path and actual
+	 * write is done while holding a monitor of the partition writer itself.
+	 * Writer is re-resolved if it was destroyed before we got its monitor.
+	 *
+	 * @param entity the entity to write
+	 * @param partitionKey the partition key
+	 * @param timestamp the timestamp of a write
+	 * @throws IOException if an I/O error occurs
+	 */
+	private void writeConcurrent(T entity, K partitionKey, long timestamp) throws IOException {
+		if (partitionKey == null) {
+			getFallbackWriter().write(entity);
+			return;
+		}
+		Path path = partitionStrategy.getPartitionResolver().resolvePath(partitionKey);
+		while (true) {
+			if (isClosed()) {
+				throw new StoreException("This writer is already closed");
+			}
+			DataStoreWriter<T> writer = writers.get(path);
+			List<DataStoreWriter<T>> evicted = null;
+			if (writer == null) {
+				synchronized (getCreationLock(path)) {
+					writer = writers.get(path);
+					if (writer == null) {
+						if (isClosed()) {
+							throw new StoreException("This writer is already closed");
+						}
+						evicted = evictWriters();
+						writer = newWriter(path);
+						registerWriter(path, writer);
+					}
+				}
+			}
+			closeEvictedWriters(evicted);
+			synchronized (writer) {
+				// writer may have been closed and destroyed by a timeout
+				// or an eviction before we got its monitor, in that case
+				// try again
+				if (writers.get(path) == writer) {
+					markWritten(writer, timestamp);
+					writer.write(entity);
+					return;
+				}
+			}
+		}
 	}
 
 	@Override
@@ -287,6 +445,26 @@ public abstract class AbstractPartitionDataStoreWriter<T, K> extends LifecycleOb
 		this.flushTimeout = flushTimeout;
 	}
 
+	/**
+	 * Sets the timeout service used by partition writers to track
+	 * idle, close and flush timeouts. If not set, writers use a
+	 * shared {@link HashedWheelTimeoutService}.
+	 *
+	 * @param timeoutService the new timeout service
+	 */
+	public void setTimeoutService(HashedWheelTimeoutService timeoutService) {
+		this.timeoutService = timeoutService;
+	}
+
+	/**
+	 * Gets the timeout service.
+	 *
+	 * @return the timeout service
+	 */
+	public HashedWheelTimeoutService getTimeoutService() {
+		return timeoutService;
+	}
+
     /**
      * Sets the in writing suffix.
      *
@@ -383,6 +561,46 @@ public abstract class AbstractPartitionDataStoreWriter<T, K> extends LifecycleOb
 		this.syncable = syncable;
 	}
 
+	/**
+	 * Checks if rolled over files are completed asynchronously.
+	 *
+	 * @return true, if async rollover close is enabled
+	 */
+	public boolean isAsyncRolloverClose() {
+		return asyncRolloverClose;
+	}
+
+	/**
+	 * Sets if partition writers complete rolled over files asynchronously.
+	 *
+	 * @param asyncRolloverClose the async rollover close flag
+	 * @see AbstractDataStreamWriter#setAsyncRolloverClose(boolean)
+	 */
+	public void setAsyncRolloverClose(boolean asyncRolloverClose) {
+		this.asyncRolloverClose = asyncRolloverClose;
+	}
+
+	/**
+	 * Checks if naming index is used.
+	 *
+	 * @return true, if naming index is used
+	 */
+	public boolean isIndexedNaming() {
+		return indexedNaming;
+	}
+
+	/**
+	 * Sets if partition writers use a naming index to find existing files.
+	 * This avoids listing a partition directory every time a writer for it
+	 * is created again after a previous one was closed.
+	 *
+	 * @param indexedNaming the indexed naming flag
+	 * @see OutputStoreObjectSupport#setIndexedNaming(boolean)
+	 */
+	public void setIndexedNaming(boolean indexedNaming) {
+		this.indexedNaming = indexedNaming;
+	}
+
 	/**
 	 * Gets the idle timeout.
 	 *
@@ -455,6 +673,182 @@ public abstract class AbstractPartitionDataStoreWriter<T, K> extends LifecycleOb
 		return maxOpenAttempts;
 	}
 
+	/**
+	 * Sets the concurrent write mode. When enabled, writes into different
+	 * partitions are not serialized with a monitor of this writer but
+	 * each partition writer is locked independently. This is disabled
+	 * by default.
+	 *
+	 * @param concurrent the concurrent flag
+	 */
+	public void setConcurrent(boolean concurrent) {
+		this.concurrent = concurrent;
+	}
+
+	/**
+	 * Checks if concurrent write mode is enabled.
+	 *
+	 * @return true, if concurrent write mode is enabled
+	 * @see #setConcurrent(boolean)
+	 */
+	public boolean isConcurrent() {
+		return concurrent;
+	}
+
+	/**
+	 * Sets the number of lock stripes used to guard creation of
+	 * partition writers in concurrent mode. Defaults to
+	 * {@link #DEFAULT_LOCK_STRIPES}.
+	 *
+	 * @param lockStripes the new number of lock stripes
+	 */
+	public void setLockStripes(int lockStripes) {
+		Assert.isTrue(lockStripes > 0, "Lock stripes must be positive");
+		this.creationLocks = createLocks(lockStripes);
+	}
+
+	/**
+	 * Sets the max number of concurrently open partition writers. When
+	 * a new partition writer is needed and this limit is reached, the least
+	 * recently written partition writer is closed, thus renaming its file,
+	 * and a new file is opened automatically on a next write into that
+	 * partition. Zero or negative value means no limit which is the default.
+	 * <p>
+	 * In concurrent mode writers for different lock stripes are created
+	 * in parallel, thus this limit may be exceeded momentarily.
+	 *
+	 * @param maxOpenWriters the new max open writers
+	 */
+	public void setMaxOpenWriters(int maxOpenWriters) {
+		this.maxOpenWriters = maxOpenWriters;
+	}
+
+	/**
+	 * Gets the max number of concurrently open partition writers.
+	 *
+	 * @return the max open writers
+	 * @see #setMaxOpenWriters(int)
+	 */
+	public int getMaxOpenWriters() {
+		return maxOpenWriters;
+	}
+
+	/**
+	 * Enables time windowed partition writers. Every write is placed into
+	 * a time window of a given size using a timestamp resolved from its
+	 * partition key, windows are aligned to epoch. A watermark tracks the
+	 * highest timestamp seen and whenever it passes an end of a window by
+	 * a given lateness, all partition writers which only received writes
+	 * into that or older windows are closed in one batch, thus renaming
+	 * their files without waiting for idle timeouts.
+	 * <p>
+	 * This is meant to be used together with a time based partitioning
+	 * like {@code dateFormat('yyyy/MM/dd/HH')} using a matching window size.
+	 * Writes arriving after their window has been closed are still written
+	 * into a new file and counted as late writes. Zero or negative window
+	 * size disables time windows which is the default.
+	 *
+	 * @param windowSize the time window size in millis
+	 * @param lateness the time in millis a window is kept open after its end
+	 * @see #setPartitionKeyTimestampResolver(PartitionKeyTimestampResolver)
+	 */
+	public void setTimeWindow(long windowSize, long lateness) {
+		Assert.isTrue(lateness >= 0, "Lateness must not be negative");
+		this.timeWindow = windowSize;
+		this.timeWindowLateness = lateness;
+	}
+
+	/**
+	 * Gets the time window size.
+	 *
+	 * @return the time window size in millis
+	 * @see #setTimeWindow(long, long)
+	 */
+	public long getTimeWindow() {
+		return timeWindow;
+	}
+
+	/**
+	 * Gets the time window lateness.
+	 *
+	 * @return the time window lateness in millis
+	 * @see #setTimeWindow(long, long)
+	 */
+	public long getTimeWindowLateness() {
+		return timeWindowLateness;
+	}
+
+	/**
+	 * Sets the resolver for partition key timestamps used with time
+	 * windows. If not set, {@link DefaultPartitionKey#KEY_TIMESTAMP} is
+	 * read from a partition key which is a {@link Map}.
+	 *
+	 * @param timestampResolver the new partition key timestamp resolver
+	 */
+	public void setPartitionKeyTimestampResolver(PartitionKeyTimestampResolver<K> timestampResolver) {
+		this.timestampResolver = timestampResolver;
+	}
+
+	/**
+	 * Gets the current watermark which is the highest timestamp
+	 * seen in writes when time windows are enabled.
+	 *
+	 * @return the watermark or {@link Long#MIN_VALUE} if nothing was written
+	 */
+	public long getWatermark() {
+		return watermark.get();
+	}
+
+	/**
+	 * Gets the total number of partition writers closed because
+	 * watermark passed their time window.
+	 *
+	 * @return the window closed writer count
+	 */
+	public long getWindowClosedWriterCount() {
+		return windowClosedWriters.get();
+	}
+
+	/**
+	 * Gets the total number of writes into time windows
+	 * which were already closed.
+	 *
+	 * @return the late write count
+	 */
+	public long getLateWriteCount() {
+		return lateWrites.get();
+	}
+
+	/**
+	 * Gets the number of currently open partition writers.
+	 *
+	 * @return the open writer count
+	 */
+	public int getOpenWriterCount() {
+		return writers.size();
+	}
+
+	/**
+	 * Gets the total number of partition writers created by this writer.
+	 *
+	 * @return the created writer count
+	 */
+	public long getCreatedWriterCount() {
+		return createdWriters.get();
+	}
+
+	/**
+	 * Gets the total number of partition writers evicted because max
+	 * number of open writers was reached. Eviction rate can be
+	 * determined by comparing this to {@link #getCreatedWriterCount()}.
+	 *
+	 * @return the evicted writer count
+	 * @see #setMaxOpenWriters(int)
+	 */
+	public long getEvictedWriterCount() {
+		return evictedWriters.get();
+	}
+
 	/**
 	 * Checks if this writer is closed.
 	 *
@@ -490,6 +884,7 @@ public abstract class AbstractPartitionDataStoreWriter<T, K> extends LifecycleOb
 		synchronized (writers) {
 			DataStoreWriter<T> writer = writers.remove(path);
 			if (writer != null) {
+				removeTracker(writer);
 				log.info("Removed writer=[" + writer + "]");
 			} else {
 				log.info("Writer with path=[" + path + "] didn't exist anymore");
@@ -497,4 +892,280 @@ public abstract class AbstractPartitionDataStoreWriter<T, K> extends LifecycleOb
 		}
 	}
 
+	/**
+	 * Destroys a given writer with a given {@link Path} if it is still
+	 * the current writer for that path. Compared to {@link #destroyWriter(Path)}
+	 * this method never removes a writer which was created to replace
+	 * the given writer.
+	 *
+	 * @param path the path
+	 * @param writer the writer
+	 */
+	protected void destroyWriter(Path path, DataStoreWriter<T> writer) {
+		log.info("Trying to destoy writer=[" + writer + "] with path=[" + path + "]");
+		if (path == null) {
+			return;
+		}
+		if (writers.remove(path, writer)) {
+			removeTracker(writer);
+			log.info("Removed writer=[" + writer + "]");
+		} else {
+			log.info("Writer with path=[" + path + "] didn't exist anymore");
+		}
+	}
+
+	/**
+	 * Creates a new partition writer. Writers using same codec as this
+	 * writer share a codec instance resolved once by this writer.
+	 *
+	 * @param path the partition path or null for a fallback writer
+	 * @return the data store writer
+	 */
+	private DataStoreWriter<T> newWriter(Path path) {
+		DataStoreWriter<T> writer = createWriter(getConfiguration(), path, getCodec());
+		if (writer instanceof StoreObjectSupport && getCodec() != null) {
+			StoreObjectSupport support = (StoreObjectSupport) writer;
+			if (support.getCodec() != null
+					&& support.getCodec().getCodecClass().equals(getCodec().getCodecClass())) {
+				support.setCompressionCodec(getCompressionCodec());
+			}
+		}
+		return writer;
+	}
+
+	private CompressionCodec getCompressionCodec() {
+		CompressionCodec codec = compressionCodec;
+		if (codec == null) {
+			Class<?> clazz = ClassUtils.resolveClassName(getCodec().getCodecClass(), getClass().getClassLoader());
+			codec = (CompressionCodec) ReflectionUtils.newInstance(clazz, getConfiguration());
+			compressionCodec = codec;
+		}
+		return codec;
+	}
+
+	private DataStoreWriter<T> getFallbackWriter() {
+		DataStoreWriter<T> writer = fallbackWriter;
+		if (writer == null) {
+			synchronized (writers) {
+				writer = fallbackWriter;
+				if (writer == null) {
+					fallbackWriter = writer = newWriter(null);
+				}
+			}
+		}
+		return writer;
+	}
+
+	private void registerWriter(Path path, DataStoreWriter<T> writer) {
+		writers.put(path, writer);
+		createdWriters.incrementAndGet();
+		if (maxOpenWriters > 0 || timeWindow > 0) {
+			WriteTracker tracker = new WriteTracker(path, writer);
+			trackers.put(writer, tracker);
+			if (maxOpenWriters > 0) {
+				tracker.sequence = writeSequence.incrementAndGet();
+				writeOrder.put(tracker.sequence, tracker);
+			}
+		}
+	}
+
+	private void removeTracker(DataStoreWriter<T> writer) {
+		WriteTracker tracker = trackers.remove(writer);
+		if (tracker != null) {
+			writeOrder.remove(tracker.sequence, tracker);
+		}
+	}
+
+	private void markWritten(DataStoreWriter<T> writer, long timestamp) {
+		if (maxOpenWriters > 0 || timestamp != NO_TIMESTAMP) {
+			WriteTracker tracker = trackers.get(writer);
+			if (tracker != null) {
+				if (maxOpenWriters > 0) {
+					moveToMostRecent(tracker);
+				}
+				if (timestamp != NO_TIMESTAMP) {
+					long window = windowStart(timestamp, timeWindow);
+					// callers hold a monitor, thus no lost updates
+					if (window > tracker.window) {
+						tracker.window = window;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Moves a tracker to the end of a write order. Callers hold a monitor
+	 * of a tracked writer, thus a tracker is never moved concurrently.
+	 *
+	 * @param tracker the tracker
+	 */
+	private void moveToMostRecent(WriteTracker tracker) {
+		long previous = tracker.sequence;
+		// consecutive writes into a same partition don't reorder
+		if (previous == writeSequence.get()) {
+			return;
+		}
+		long next = writeSequence.incrementAndGet();
+		writeOrder.remove(previous, tracker);
+		tracker.sequence = next;
+		writeOrder.put(next, tracker);
+		if (trackers.get(tracker.writer) != tracker) {
+			// removed meanwhile, eviction skips if we lost this race
+			writeOrder.remove(next, tracker);
+		}
+	}
+
+	private long resolveTimestamp(K partitionKey) {
+		if (timeWindow <= 0 || partitionKey == null) {
+			return NO_TIMESTAMP;
+		}
+		Long timestamp = null;
+		if (timestampResolver != null) {
+			timestamp = timestampResolver.resolveTimestamp(partitionKey);
+		} else if (partitionKey instanceof Map) {
+			Object value = ((Map<?, ?>) partitionKey).get(DefaultPartitionKey.KEY_TIMESTAMP);
+			if (value instanceof Number) {
+				timestamp = ((Number) value).longValue();
+			} else if (value instanceof Date) {
+				timestamp = ((Date) value).getTime();
+			}
+		}
+		if (timestamp == null || timestamp == NO_TIMESTAMP) {
+			return NO_TIMESTAMP;
+		}
+		if (windowStart(timestamp, timeWindow) < closedWindowsBefore.get()) {
+			lateWrites.incrementAndGet();
+		}
+		return timestamp;
+	}
+
+	/**
+	 * Advances a watermark with a timestamp and removes all partition writers
+	 * whose time windows are now closed. Only a thread moving the closed
+	 * window boundary does the removal, thus writers are scanned once per
+	 * window. Returned writers needs to be closed by a caller.
+	 *
+	 * @param timestamp the timestamp of a write
+	 * @return the removed writers or null if nothing was removed
+	 */
+	private List<DataStoreWriter<T>> advanceWatermark(long timestamp) {
+		long size = timeWindow;
+		if (size <= 0) {
+			return null;
+		}
+		long current = watermark.get();
+		while (current < timestamp) {
+			if (watermark.compareAndSet(current, timestamp)) {
+				current = timestamp;
+				break;
+			}
+			current = watermark.get();
+		}
+		long boundary = windowStart(current - timeWindowLateness, size);
+		long before = closedWindowsBefore.get();
+		if (boundary <= before || !closedWindowsBefore.compareAndSet(before, boundary)) {
+			return null;
+		}
+		List<DataStoreWriter<T>> closed = null;
+		for (WriteTracker tracker : trackers.values()) {
+			if (tracker.window != NO_TIMESTAMP && tracker.window < boundary) {
+				removeTracker(tracker.writer);
+				if (writers.remove(tracker.path, tracker.writer)) {
+					windowClosedWriters.incrementAndGet();
+					if (closed == null) {
+						closed = new ArrayList<DataStoreWriter<T>>();
+					}
+					closed.add(tracker.writer);
+				}
+			}
+		}
+		if (closed != null) {
+			log.info("Closing " + closed.size() + " writers for time windows before " + boundary);
+		}
+		return closed;
+	}
+
+	private static long windowStart(long timestamp, long size) {
+		long r = timestamp % size;
+		return r < 0 ? timestamp - r - size : timestamp - r;
+	}
+
+	/**
+	 * Removes least recently written partition writers until there is
+	 * room for one more writer. Returned writers are no longer known to
+	 * this writer and needs to be closed by a caller preferably without
+	 * holding any locks.
+	 *
+	 * @return the evicted writers or null if nothing was evicted
+	 */
+	private List<DataStoreWriter<T>> evictWriters() {
+		List<DataStoreWriter<T>> evicted = null;
+		while (maxOpenWriters > 0 && writers.size() >= maxOpenWriters) {
+			Map.Entry<Long, WriteTracker> entry = writeOrder.pollFirstEntry();
+			if (entry == null) {
+				break;
+			}
+			WriteTracker eldest = entry.getValue();
+			trackers.remove(eldest.writer, eldest);
+			if (writers.remove(eldest.path, eldest.writer)) {
+				evictedWriters.incrementAndGet();
+				if (evicted == null) {
+					evicted = new ArrayList<DataStoreWriter<T>>();
+				}
+				evicted.add(eldest.writer);
+			}
+		}
+		return evicted;
+	}
+
+	private void closeEvictedWriters(List<DataStoreWriter<T>> evicted) {
+		if (evicted == null) {
+			return;
+		}
+		for (DataStoreWriter<T> writer : evicted) {
+			try {
+				log.info("Closing evicted writer=[" + writer + "]");
+				writer.flush();
+				writer.close();
+			} catch (Exception e) {
+				log.warn("Writer caused exception in close", e);
+			}
+		}
+	}
+
+	private Object getCreationLock(Path path) {
+		Object[] locks = creationLocks;
+		return locks[(path.hashCode() & 0x7fffffff) % locks.length];
+	}
+
+	private static Object[] createLocks(int count) {
+		Object[] locks = new Object[count];
+		for (int i = 0; i < count; i++) {
+			locks[i] = new Object();
+		}
+		return locks;
+	}
+
+	/**
+	 * Keeps track of a last write and a latest time
+	 * window written into a partition writer.
+	 */
+	private class WriteTracker {
+
+		final Path path;
+
+		final DataStoreWriter<T> writer;
+
+		/** Position in a write order */
+		volatile long sequence;
+
+		volatile long window = NO_TIMESTAMP;
+
+		WriteTracker(Path path, DataStoreWriter<T> writer) {
+			this.path = path;
+			this.writer = writer;
+		}
+	}
+
 }
@@ -13,24 +13,26 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package org.springframework.data.hadoop.store.output;
 
 import java.io.IOException;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileAlreadyExistsException;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.SequenceFile;
 import org.apache.hadoop.io.SequenceFile.CompressionType;
 import org.apache.hadoop.io.SequenceFile.Writer;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.compress.CompressionCodec;
-import org.apache.hadoop.util.ReflectionUtils;
+import org.springframework.data.hadoop.store.StoreException;
 import org.springframework.data.hadoop.store.codec.CodecInfo;
 import org.springframework.data.hadoop.store.support.OutputStoreObjectSupport;
 import org.springframework.data.hadoop.store.support.SequenceFileWriterHolder;
-import org.springframework.util.ClassUtils;
+import org.springframework.util.Assert;
 
 /**
  * A {@code AbstractSequenceFileWriter} is a base implementation handling
@@ -41,6 +43,18 @@ import org.springframework.util.ClassUtils;
  */
 public abstract class AbstractSequenceFileWriter extends OutputStoreObjectSupport {
 
+	/** Hadoop setting for size of a compressed block */
+	private final static String KEY_COMPRESS_BLOCKSIZE = "io.seqfile.compress.blocksize";
+
+	/** Compression type used with a codec */
+	private CompressionType compressionType = CompressionType.RECORD;
+
+	/** Bytes between sync markers with block compression, zero for hadoop default */
+	private int syncInterval = 0;
+
+	/** Configuration with sync interval, created once on first use */
+	private volatile Configuration syncConfiguration;
+
 	/**
 	 * Instantiates a new abstract sequence file writer.
 	 *
@@ -53,36 +67,168 @@ public abstract class AbstractSequenceFileWriter extends OutputStoreObjectSuppor
 	}
 
 	/**
-	 * Gets the output.
+	 * Sets the compression type used when a codec is set. Default is
+	 * {@link CompressionType#RECORD} while {@link CompressionType#BLOCK}
+	 * compresses buffered records together usually resulting much
+	 * smaller files. Without a codec records are never compressed.
+	 * <p>
+	 * With block compression records are written into a file when a block
+	 * is full, thus write position used by rollover strategies and data
+	 * visible to readers only advances per block.
+	 *
+	 * @param compressionType the new compression type
+	 */
+	public void setCompressionType(CompressionType compressionType) {
+		Assert.notNull(compressionType, "Compression type must be set");
+		this.compressionType = compressionType;
+	}
+
+	/**
+	 * Gets the compression type.
+	 *
+	 * @return the compression type
+	 */
+	public CompressionType getCompressionType() {
+		return compressionType;
+	}
+
+	/**
+	 * Sets the sync marker interval in bytes. With block compression a sync
+	 * marker is written after every block, thus this sets a size of
+	 * uncompressed records buffered into a block. Bigger blocks compress
+	 * better while smaller ones are faster to seek into. Without block
+	 * compression {@code SequenceFile} writes sync markers with its own
+	 * fixed interval and this setting is ignored. Zero or negative uses
+	 * hadoop default which is the default.
+	 *
+	 * @param syncInterval the new sync interval
+	 */
+	public void setSyncInterval(int syncInterval) {
+		this.syncInterval = syncInterval;
+		this.syncConfiguration = null;
+	}
+
+	/**
+	 * Gets the sync marker interval.
+	 *
+	 * @return the sync interval
+	 */
+	public int getSyncInterval() {
+		return syncInterval;
+	}
+
+	/**
+	 * Gets the class of written keys.
+	 *
+	 * @return the key class
+	 */
+	protected Class<? extends Writable> getKeyClass() {
+		return Text.class;
+	}
+
+	/**
+	 * Gets the class of written values.
+	 *
+	 * @return the value class
+	 */
+	protected Class<? extends Writable> getValueClass() {
+		return Text.class;
+	}
+
+	/**
+	 * Gets the output. File is created without overwrite unless
+	 * overwrite is enabled and its stream is closed with a holder.
+	 * {@code SequenceFile}s can't be appended, thus if a file already
+	 * exists rolling strategies are used to find a next free path.
 	 *
 	 * @return the output
 	 * @throws IOException Signals that an I/O exception has occurred.
 	 */
-	@SuppressWarnings("deprecation")
 	protected SequenceFileWriterHolder<Writer> getOutput() throws IOException {
 		FileSystem fs = FileSystem.get(getConfiguration());
+		Configuration configuration = getConfiguration();
+		CompressionType type = CompressionType.NONE;
+		CompressionCodec compressionCodec = null;
+		if (getCodec() != null) {
+			// writer itself borrows a compressor from a CodecPool
+			// and returns it when closed
+			type = compressionType;
+			compressionCodec = getCompressionCodec();
+		}
+		if (type == CompressionType.BLOCK && syncInterval > 0) {
+			configuration = getSyncConfiguration();
+		}
+
+		Path p = null;
+		FSDataOutputStream out = null;
+		int openAttempt = 0;
+		do {
+			p = getResolvedPath();
+			try {
+				out = fs.create(p, isOverwrite());
+			} catch (FileAlreadyExistsException e) {
+				markFileExists(p);
+				getOutputContext().rollStrategies();
+			}
+		} while (out == null && ++openAttempt < AbstractDataStreamWriter.DEFAULT_MAX_OPEN_ATTEMPTS);
+
+		if (out == null) {
+			throw new StoreException("We've reached maxOpenAttempts="
+					+ AbstractDataStreamWriter.DEFAULT_MAX_OPEN_ATTEMPTS
+					+ " to find suitable output path. Last path tried was path=[" + p + "]");
+		}
 
-		SequenceFileWriterHolder<Writer> holder;
 		Writer writer;
-		CodecInfo codecInfo = getCodec();
-		Path p = getResolvedPath();
-		if (codecInfo == null) {
-			writer = SequenceFile.createWriter(
-					fs, getConfiguration(), getResolvedPath(),
-					Text.class, Text.class, CompressionType.NONE, (CompressionCodec) null);
-			holder = new SequenceFileWriterHolder<SequenceFile.Writer>(writer, p);
+		try {
+			writer = SequenceFile.createWriter(configuration,
+					Writer.stream(out),
+					Writer.keyClass(getKeyClass()),
+					Writer.valueClass(getValueClass()),
+					Writer.compression(type, compressionCodec));
+		} catch (IOException e) {
+			out.close();
+			throw e;
+		} catch (RuntimeException e) {
+			out.close();
+			throw e;
 		}
-		else {
-			Class<?> clazz = ClassUtils.resolveClassName(codecInfo.getCodecClass(), getClass().getClassLoader());
-			CompressionCodec compressionCodec = (CompressionCodec) ReflectionUtils.newInstance(clazz,
-					getConfiguration());
-			writer = SequenceFile.createWriter(fs,
-					getConfiguration(), getResolvedPath(),
-					Text.class, Text.class, CompressionType.RECORD, compressionCodec);
-			holder = new SequenceFileWriterHolder<SequenceFile.Writer>(writer, p);
+		markFileExists(p);
+		getOutputContext().setBlockSize(fs.getDefaultBlockSize(p));
+
+		return new SequenceFileWriterHolder<Writer>(writer, p, out);
+	}
+
+	private Configuration getSyncConfiguration() {
+		Configuration configuration = syncConfiguration;
+		if (configuration == null) {
+			configuration = new Configuration(getConfiguration());
+			configuration.setInt(KEY_COMPRESS_BLOCKSIZE, syncInterval);
+			syncConfiguration = configuration;
 		}
+		return configuration;
+	}
 
-		return holder;
+	/**
+	 * Flushes records written into a holder. With block compression records
+	 * buffered into a current block are first written as a block.
+	 *
+	 * @param holder the holder
+	 * @param hflush true if data is flushed to datanodes with hflush
+	 * @param hsync true if data is synced to disks with hsync
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	protected void flush(SequenceFileWriterHolder<Writer> holder, boolean hflush, boolean hsync) throws IOException {
+		Writer writer = holder.getWriter();
+		if (getCodec() != null && compressionType == CompressionType.BLOCK) {
+			writer.sync();
+		}
+		if (hsync) {
+			writer.hsync();
+		} else if (hflush) {
+			writer.hflush();
+		} else if (holder.getStream() instanceof FSDataOutputStream) {
+			((FSDataOutputStream) holder.getStream()).flush();
+		}
 	}
 
 	protected long getPosition(Writer writer) throws IOException {
@@ -0,0 +1,490 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.store.output;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.data.hadoop.store.DataStoreWriter;
+import org.springframework.data.hadoop.store.StoreException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+/**
+ * A {@code AsyncDataStoreWriter} is a {@code DataStoreWriter} decorator
+ * doing actual writes with a dedicated thread. Written entities are placed
+ * into a bounded buffer and drained in batches into a delegating writer,
+ * thus a slow hdfs write pipeline doesn't directly stall threads
+ * calling {@link #write(Object)}.
+ * <p>
+ * When buffer is full, behaviour is defined by {@link OverflowPolicy}.
+ * Flush and close requests are queued in order with written entities
+ * and are available as futures via {@link #flushAsync()} and
+ * {@link #closeAsync()}. If writing with a delegate fails, error is kept
+ * and all further writes, flushes and closes fail with it.
+ *
+ * @author agent
+ *
+ * @param <T> the type of an entity to write
+ */
+public class AsyncDataStoreWriter<T> implements DataStoreWriter<T> {
+
+	private final static Log log = LogFactory.getLog(AsyncDataStoreWriter.class);
+
+	/** Default buffer capacity */
+	public final static int DEFAULT_CAPACITY = 8192;
+
+	/** Default max number of entries drained at once */
+	public final static int DEFAULT_BATCH_SIZE = 512;
+
+	/** Writer doing the actual writes */
+	private final DataStoreWriter<T> writer;
+
+	/** Buffer for entities and commands */
+	private final BlockingQueue<Object> queue;
+
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	private final Object lock = new Object();
+
+	/**
+	 * Writes and flushes are queued holding a read lock and close with
+	 * a write lock, thus nothing accepted can land after a close.
+	 */
+	private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+	private volatile OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+	private volatile int batchSize = DEFAULT_BATCH_SIZE;
+
+	private ThreadFactory threadFactory;
+
+	private Thread workerThread;
+
+	private volatile SettableListenableFuture<Void> closeFuture;
+
+	/** Set when writer thread exits, further entries are discarded */
+	private volatile boolean terminated;
+
+	/** Number of threads currently placing entries into a buffer */
+	private final AtomicInteger enqueuing = new AtomicInteger();
+
+	/** First error from a delegate, never cleared */
+	private volatile Throwable failure;
+
+	/**
+	 * Instantiates a new async data store writer with default capacity.
+	 *
+	 * @param writer the writer doing actual writes
+	 */
+	public AsyncDataStoreWriter(DataStoreWriter<T> writer) {
+		this(writer, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Instantiates a new async data store writer.
+	 *
+	 * @param writer the writer doing actual writes
+	 * @param capacity the max number of buffered entities
+	 */
+	public AsyncDataStoreWriter(DataStoreWriter<T> writer, int capacity) {
+		Assert.notNull(writer, "Writer must be set");
+		Assert.isTrue(capacity > 0, "Capacity must be positive");
+		this.writer = writer;
+		this.queue = new ArrayBlockingQueue<Object>(capacity);
+	}
+
+	@Override
+	public void write(T entity) throws IOException {
+		Assert.notNull(entity, "Entity must not be null");
+		closeLock.readLock().lock();
+		try {
+			checkState();
+			switch (overflowPolicy) {
+			case DROP:
+				if (!enqueue(entity, false)) {
+					droppedCount.incrementAndGet();
+				}
+				break;
+			case FAIL:
+				if (!enqueue(entity, false)) {
+					throw new StoreException("Write buffer is full");
+				}
+				break;
+			default:
+				enqueue(entity, true);
+				break;
+			}
+		} finally {
+			closeLock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		await(flushAsync());
+	}
+
+	@Override
+	public void close() throws IOException {
+		await(closeAsync());
+	}
+
+	/**
+	 * Request a flush which is done after all entities written
+	 * before this call has been passed to a delegate.
+	 *
+	 * @return the future completed when flush is done
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public ListenableFuture<Void> flushAsync() throws IOException {
+		SettableListenableFuture<Void> future = new SettableListenableFuture<Void>();
+		// queued under a lock so that flush can't land after a close
+		closeLock.readLock().lock();
+		try {
+			if (closeFuture != null) {
+				future.setException(new StoreException("Writer is closed"));
+				return future;
+			}
+			enqueue(new Command(false, future), true);
+		} finally {
+			closeLock.readLock().unlock();
+		}
+		return future;
+	}
+
+	/**
+	 * Request a close which is done after all entities written
+	 * before this call has been passed to a delegate. Further
+	 * writes are rejected.
+	 *
+	 * @return the future completed when close is done
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public ListenableFuture<Void> closeAsync() throws IOException {
+		closeLock.writeLock().lock();
+		try {
+			if (closeFuture != null) {
+				return closeFuture;
+			}
+			SettableListenableFuture<Void> future = new SettableListenableFuture<Void>();
+			closeFuture = future;
+			enqueue(new Command(true, future), true);
+			return future;
+		} finally {
+			closeLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Sets the policy used when buffer is full. Default is
+	 * {@link OverflowPolicy#BLOCK}.
+	 *
+	 * @param overflowPolicy the new overflow policy
+	 */
+	public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+		Assert.notNull(overflowPolicy, "Overflow policy must be set");
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	/**
+	 * Sets the max number of entities drained from a buffer at once.
+	 *
+	 * @param batchSize the new batch size
+	 */
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "Batch size must be positive");
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Sets the thread factory used to create a writer thread. On default
+	 * a daemon thread named with {@code store-async-writer-} prefix is used.
+	 *
+	 * @param threadFactory the new thread factory
+	 */
+	public void setThreadFactory(ThreadFactory threadFactory) {
+		synchronized (lock) {
+			Assert.state(workerThread == null, "Writer thread already started");
+			this.threadFactory = threadFactory;
+		}
+	}
+
+	/**
+	 * Gets the number of entities dropped because buffer was full
+	 * or because of an earlier write error.
+	 *
+	 * @return the dropped count
+	 */
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+	/**
+	 * Gets the number of entities and commands waiting in a buffer.
+	 *
+	 * @return the pending count
+	 */
+	public int getPendingCount() {
+		return queue.size();
+	}
+
+	private void checkState() {
+		if (failure != null) {
+			throw new StoreException("Asynchronous write failed", failure);
+		}
+		if (closeFuture != null) {
+			throw new StoreException("Writer is closed");
+		}
+	}
+
+	/**
+	 * Places an entry into a buffer. If writer thread has already exited,
+	 * entry is discarded right away as nothing would ever consume it.
+	 *
+	 * @return false if entry didn't fit into a buffer without blocking
+	 */
+	private boolean enqueue(Object o, boolean block) throws IOException {
+		startWorker();
+		// worker waits for this to reach zero before its final drain
+		enqueuing.incrementAndGet();
+		try {
+			if (terminated) {
+				discard(o);
+				return true;
+			}
+			if (!block) {
+				return queue.offer(o);
+			}
+			queue.put(o);
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting space in write buffer");
+		} finally {
+			enqueuing.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Discards an entry never passed to a delegate.
+	 */
+	private void discard(Object o) {
+		if (o instanceof Command) {
+			Throwable t = failure;
+			((Command) o).future.setException(t != null ? t : new StoreException("Writer is closed"));
+		} else {
+			droppedCount.incrementAndGet();
+		}
+	}
+
+	private void startWorker() {
+		if (workerThread != null) {
+			return;
+		}
+		synchronized (lock) {
+			if (workerThread == null) {
+				ThreadFactory factory = threadFactory;
+				if (factory == null) {
+					CustomizableThreadFactory f = new CustomizableThreadFactory("store-async-writer-");
+					f.setDaemon(true);
+					factory = f;
+				}
+				Thread thread = factory.newThread(new Worker());
+				thread.start();
+				workerThread = thread;
+			}
+		}
+	}
+
+	private static void await(ListenableFuture<Void> future) throws IOException {
+		try {
+			future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting writer");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new StoreException("Asynchronous write failed", cause);
+		}
+	}
+
+	/**
+	 * Policy used when a buffer is full.
+	 */
+	public enum OverflowPolicy {
+
+		/** Wait until there is space in a buffer */
+		BLOCK,
+
+		/** Silently drop an entity and count it */
+		DROP,
+
+		/** Throw a {@link StoreException} */
+		FAIL
+	}
+
+	/**
+	 * Flush or close request queued with entities.
+	 */
+	private static class Command {
+
+		final boolean close;
+
+		final SettableListenableFuture<Void> future;
+
+		Command(boolean close, SettableListenableFuture<Void> future) {
+			this.close = close;
+			this.future = future;
+		}
+	}
+
+	/**
+	 * Worker draining a buffer into a delegate.
+	 */
+	private class Worker implements Runnable {
+
+		@Override
+		public void run() {
+			List<Object> batch = new ArrayList<Object>();
+			int next = 0;
+			try {
+				while (true) {
+					try {
+						batch.add(queue.take());
+					} catch (InterruptedException e) {
+						// we only exit via close
+						continue;
+					}
+					queue.drainTo(batch, batchSize - 1);
+					while (next < batch.size()) {
+						Object o = batch.get(next++);
+						if (o instanceof Command) {
+							Command command = (Command) o;
+							if (command.close) {
+								doClose(command.future);
+								return;
+							}
+							doFlush(command.future);
+						} else {
+							doWrite(o);
+						}
+					}
+					batch.clear();
+					next = 0;
+				}
+			} catch (Throwable t) {
+				log.error("Writer thread failed", t);
+				if (failure == null) {
+					failure = t;
+				}
+			} finally {
+				terminate(batch.subList(next, batch.size()));
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private void doWrite(Object entity) {
+			if (failure != null) {
+				droppedCount.incrementAndGet();
+				return;
+			}
+			try {
+				writer.write((T) entity);
+			} catch (Throwable t) {
+				log.error("Error writing entity, further writes will fail", t);
+				failure = t;
+			}
+		}
+
+		private void doFlush(SettableListenableFuture<Void> future) {
+			if (failure == null) {
+				try {
+					writer.flush();
+				} catch (Throwable t) {
+					log.error("Error flushing writer, further writes will fail", t);
+					failure = t;
+				}
+			}
+			complete(future);
+		}
+
+		private void doClose(SettableListenableFuture<Void> future) {
+			try {
+				writer.close();
+			} catch (Throwable t) {
+				log.error("Error closing writer", t);
+				if (failure == null) {
+					failure = t;
+				}
+			}
+			complete(future);
+		}
+
+		/**
+		 * Discards entries left in a batch and a buffer, including
+		 * ones from threads racing with an exit.
+		 */
+		private void terminate(List<Object> rest) {
+			terminated = true;
+			for (Object o : rest) {
+				discard(o);
+			}
+			do {
+				// frees space for blocked producers
+				drainAndDiscard();
+				Thread.yield();
+			} while (enqueuing.get() > 0);
+			drainAndDiscard();
+		}
+
+		private void drainAndDiscard() {
+			Object o;
+			while ((o = queue.poll()) != null) {
+				discard(o);
+			}
+		}
+
+		private void complete(SettableListenableFuture<Void> future) {
+			Throwable t = failure;
+			if (t != null) {
+				future.setException(t);
+			} else {
+				future.set(null);
+			}
+		}
+	}
+
+}
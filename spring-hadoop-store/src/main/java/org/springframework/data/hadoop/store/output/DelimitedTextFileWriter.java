@@ -27,6 +27,7 @@ import org.springframework.data.hadoop.store.support.StoreUtils;
 /**
  * A {@code DelimitedTextFileWriter} is a {@code DataStoreWriter} implementation
  * able to write {@code String}s into raw hdfs files as delimited fields.
+ * Fields are written as UTF-8.
  *
  * @author Janne Valkealahti
  *
@@ -43,7 +44,7 @@ public class DelimitedTextFileWriter implements DataStoreWriter<List<String>> {
 	private TextFileWriter textFileWriter;
 
 	/** Field delimiter */
-    private final String fieldDelimiter;
+    private final byte[] fieldDelimiter;
 
 	/**
 	 * Instantiates a new delimited text file writer.
@@ -65,7 +66,7 @@ public class DelimitedTextFileWriter implements DataStoreWriter<List<String>> {
 	 * @param fieldDelimiter the field delimiter
 	 */
 	public DelimitedTextFileWriter(Configuration configuration, Path basePath, CodecInfo codec, byte[] fieldDelimiter) {
-		this.fieldDelimiter = new String(fieldDelimiter);
+		this.fieldDelimiter = fieldDelimiter;
 		this.textFileWriter = new TextFileWriter(configuration, basePath, codec);
 	}
 
@@ -79,20 +80,24 @@ public class DelimitedTextFileWriter implements DataStoreWriter<List<String>> {
 	 * @param textDelimiter the text delimiter
 	 */
 	public DelimitedTextFileWriter(Configuration configuration, Path basePath, CodecInfo codec, byte[] fieldDelimiter, byte[] textDelimiter) {
-		this.fieldDelimiter = new String(fieldDelimiter);
+		this.fieldDelimiter = fieldDelimiter;
 		this.textFileWriter = new TextFileWriter(configuration, basePath, codec, textDelimiter);
 	}
 
 	@Override
 	public void write(final List<String> entity) throws IOException {
-		StringBuilder buf = new StringBuilder();
-		for (int i = 0; i < entity.size(); i++) {
-			buf.append(entity.get(i));
-			if (i < (entity.size() - 1)) {
-				buf.append(fieldDelimiter);
-			}
-		}
-		textFileWriter.write(buf.toString());
+		textFileWriter.writeFields(entity, fieldDelimiter);
+	}
+
+	/**
+	 * Write fields of any {@code CharSequence} type. Fields are encoded
+	 * directly into a buffer of an underlying text writer.
+	 *
+	 * @param fields the fields
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public void writeFields(final List<? extends CharSequence> fields) throws IOException {
+		textFileWriter.writeFields(fields, fieldDelimiter);
 	}
 
 	@Override
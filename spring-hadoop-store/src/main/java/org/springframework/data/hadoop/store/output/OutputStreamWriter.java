@@ -25,8 +25,6 @@ import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.Syncable;
 import org.springframework.data.hadoop.store.DataStoreWriter;
 import org.springframework.data.hadoop.store.codec.CodecInfo;
-import org.springframework.data.hadoop.store.event.FileWrittenEvent;
-import org.springframework.data.hadoop.store.event.StoreEventPublisher;
 import org.springframework.data.hadoop.store.support.OutputContext;
 import org.springframework.data.hadoop.store.support.StreamsHolder;
 
@@ -70,17 +68,11 @@ public class OutputStreamWriter extends AbstractDataStreamWriter implements Data
 	@Override
 	public synchronized void close() throws IOException {
 		if (streamsHolder != null) {
-			streamsHolder.close();
-
-			Path path = renameFile(streamsHolder.getPath());
-
-			StoreEventPublisher storeEventPublisher = getStoreEventPublisher();
-			if (storeEventPublisher != null) {
-				storeEventPublisher.publishEvent(new FileWrittenEvent(this, path));
-			}
-
+			StreamsHolder<OutputStream> holder = streamsHolder;
 			streamsHolder = null;
+			completeOutput(holder);
 		}
+		awaitCompletions();
 	}
 
 	@Override
@@ -96,7 +88,13 @@ public class OutputStreamWriter extends AbstractDataStreamWriter implements Data
 		OutputContext context = getOutputContext();
 		if (context.getRolloverState()) {
 			log.info("After write, rollover state is true");
-			close();
+			if (isAsyncRolloverClose()) {
+				StreamsHolder<OutputStream> holder = streamsHolder;
+				streamsHolder = null;
+				completeRolledOutput(holder);
+			} else {
+				close();
+			}
 			context.rollStrategies();
 		}
 
@@ -56,7 +56,7 @@ public class PartitionTextFileWriter<K> extends AbstractPartitionDataStoreWriter
 				// catch close() and destroy from parent
 				// this needs to happen before we pass
 				// close() to writer
-				destroyWriter(path);
+				destroyWriter(path, this);
 				super.close();
 				stop();
 			}
@@ -71,6 +71,9 @@ public class PartitionTextFileWriter<K> extends AbstractPartitionDataStoreWriter
 		if (getTaskScheduler() != null) {
 			writer.setTaskScheduler(getTaskScheduler());
 		}
+		if (getTimeoutService() != null) {
+			writer.setTimeoutService(getTimeoutService());
+		}
 		writer.setAutoStartup(isAutoStartup());
 		if (getStoreEventPublisher() != null) {
 			writer.setStoreEventPublisher(getStoreEventPublisher());
@@ -87,6 +90,8 @@ public class PartitionTextFileWriter<K> extends AbstractPartitionDataStoreWriter
 		writer.setOverwrite(isOverwrite());
 		writer.setAppendable(isAppendable());
 		writer.setSyncable(isSyncable());
+		writer.setAsyncRolloverClose(isAsyncRolloverClose());
+		writer.setIndexedNaming(isIndexedNaming());
 		writer.setInWritingPrefix(getInWritingPrefix());
 		writer.setInWritingSuffix(getInWritingSuffix());
 		writer.setMaxOpenAttempts(getMaxOpenAttempts());
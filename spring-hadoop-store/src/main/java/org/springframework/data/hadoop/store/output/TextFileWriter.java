@@ -17,6 +17,9 @@ package org.springframework.data.hadoop.store.output;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.RandomAccess;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -25,15 +28,17 @@ import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.Syncable;
 import org.springframework.data.hadoop.store.DataStoreWriter;
 import org.springframework.data.hadoop.store.codec.CodecInfo;
-import org.springframework.data.hadoop.store.event.FileWrittenEvent;
-import org.springframework.data.hadoop.store.event.StoreEventPublisher;
 import org.springframework.data.hadoop.store.support.OutputContext;
 import org.springframework.data.hadoop.store.support.StoreUtils;
 import org.springframework.data.hadoop.store.support.StreamsHolder;
+import org.springframework.data.hadoop.store.support.Utf8Buffer;
 
 /**
  * A {@code TextFileWriter} is a {@code DataStoreWriter} implementation
  * able to write {@code String}s into raw hdfs files.
+ * <p>
+ * Characters are encoded as UTF-8 into a buffer reused between writes.
+ * Already encoded records can be written as bytes.
  *
  * @author Janne Valkealahti
  * @author Rodrigo Meneses
@@ -47,6 +52,9 @@ public class TextFileWriter extends AbstractDataStreamWriter implements DataStor
 
 	private final byte[] delimiter;
 
+	/** Buffer reused to encode records */
+	private final Utf8Buffer buffer = new Utf8Buffer();
+
 	/**
 	 * Instantiates a new text file writer.
 	 *
@@ -106,14 +114,7 @@ public class TextFileWriter extends AbstractDataStreamWriter implements DataStor
 			// operations not to fail
 			IOException rethrow = null;
 			try {
-				streamsHolder.close();
-
-				Path path = renameFile(streamsHolder.getPath());
-
-				StoreEventPublisher storeEventPublisher = getStoreEventPublisher();
-				if (storeEventPublisher != null) {
-					storeEventPublisher.publishEvent(new FileWrittenEvent(this, path));
-				}
+				completeOutput(streamsHolder);
 			} catch (IOException e) {
 				rethrow = e;
 				log.error("Error in close", e);
@@ -124,22 +125,133 @@ public class TextFileWriter extends AbstractDataStreamWriter implements DataStor
 				throw rethrow;
 			}
 		}
+		awaitCompletions();
 	}
 
 	@Override
 	public synchronized void write(String entity) throws IOException {
+		write((CharSequence) entity);
+	}
+
+	/**
+	 * Write characters encoded as UTF-8 followed by a delimiter.
+	 *
+	 * @param entity the characters to write
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public synchronized void write(CharSequence entity) throws IOException {
+		buffer.reset();
+		buffer.append(entity).append(delimiter);
+		writeBuffer();
+	}
+
+	/**
+	 * Write already encoded bytes followed by a delimiter.
+	 *
+	 * @param entity the bytes to write
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public synchronized void write(byte[] entity) throws IOException {
+		write(entity, 0, entity.length);
+	}
+
+	/**
+	 * Write a range of already encoded bytes followed by a delimiter.
+	 *
+	 * @param entity the bytes to write
+	 * @param off the offset
+	 * @param len the length
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public synchronized void write(byte[] entity, int off, int len) throws IOException {
+		OutputStream out = getStream();
+		out.write(entity, off, len);
+		out.write(delimiter);
+		afterWrite();
+	}
+
+	/**
+	 * Write remaining bytes of a buffer followed by a delimiter. Buffer
+	 * position is moved to its limit.
+	 *
+	 * @param entity the buffer to write
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public synchronized void write(ByteBuffer entity) throws IOException {
+		if (entity.hasArray()) {
+			int len = entity.remaining();
+			write(entity.array(), entity.arrayOffset() + entity.position(), len);
+			entity.position(entity.position() + len);
+		} else {
+			buffer.reset();
+			buffer.append(entity).append(delimiter);
+			writeBuffer();
+		}
+	}
+
+	/**
+	 * Write fields separated by a field delimiter and followed by
+	 * a delimiter. Fields are encoded directly into a reused buffer
+	 * without building an intermediate string.
+	 *
+	 * @param fields the fields
+	 * @param fieldDelimiter the field delimiter
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	synchronized void writeFields(List<? extends CharSequence> fields, byte[] fieldDelimiter) throws IOException {
+		buffer.reset();
+		if (fields instanceof RandomAccess) {
+			for (int i = 0, n = fields.size(); i < n; i++) {
+				if (i > 0) {
+					buffer.append(fieldDelimiter);
+				}
+				appendField(fields.get(i));
+			}
+		} else {
+			boolean first = true;
+			for (CharSequence field : fields) {
+				if (!first) {
+					buffer.append(fieldDelimiter);
+				}
+				appendField(field);
+				first = false;
+			}
+		}
+		buffer.append(delimiter);
+		writeBuffer();
+	}
+
+	private void appendField(CharSequence field) {
+		// keep behaviour of StringBuilder appending "null"
+		buffer.append(field != null ? field : "null");
+	}
+
+	private void writeBuffer() throws IOException {
+		OutputStream out = getStream();
+		buffer.writeTo(out);
+		afterWrite();
+	}
+
+	private OutputStream getStream() throws IOException {
 		if (streamsHolder == null) {
 			streamsHolder = getOutput();
 		}
-		OutputStream out = streamsHolder.getStream();
-		out.write(entity.getBytes());
-		out.write(delimiter);
+		return streamsHolder.getStream();
+	}
+
+	private void afterWrite() throws IOException {
 		setWritePosition(getPosition(streamsHolder));
 
 		OutputContext context = getOutputContext();
 		if (context.getRolloverState()) {
 			log.info("After write, rollover state is true");
-			close();
+			if (isAsyncRolloverClose()) {
+				StreamsHolder<OutputStream> holder = streamsHolder;
+				streamsHolder = null;
+				completeRolledOutput(holder);
+			} else {
+				close();
+			}
 			context.rollStrategies();
 		}
 	}
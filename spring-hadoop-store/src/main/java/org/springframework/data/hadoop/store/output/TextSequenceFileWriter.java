@@ -15,35 +15,29 @@
  */
 package org.springframework.data.hadoop.store.output;
 
-import java.io.IOException;
-
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
-import org.apache.hadoop.io.SequenceFile.Writer;
 import org.apache.hadoop.io.Text;
-import org.springframework.data.hadoop.store.DataStoreWriter;
 import org.springframework.data.hadoop.store.codec.CodecInfo;
-import org.springframework.data.hadoop.store.event.FileWrittenEvent;
-import org.springframework.data.hadoop.store.event.StoreEventPublisher;
-import org.springframework.data.hadoop.store.support.OutputContext;
-import org.springframework.data.hadoop.store.support.SequenceFileWriterHolder;
 
 /**
  * A {@code TextSequenceFileWriter} is a {@code DataStoreWriter} implementation
- * able to write {@code String}s into a {@code SequenceFile}.
+ * able to write {@code String}s into a {@code SequenceFile}. Strings are
+ * written as UTF-8 encoded {@code Text} values with an empty key.
  *
  * @author Janne Valkealahti
  *
  */
-public class TextSequenceFileWriter extends AbstractSequenceFileWriter implements DataStoreWriter<String> {
-
-	private final static Log log = LogFactory.getLog(TextSequenceFileWriter.class);
+public class TextSequenceFileWriter extends WritableSequenceFileWriter<String, Text, Text> {
 
-	private SequenceFileWriterHolder<Writer> holder;
+	private final static WritableMapper<String, Text, Text> TEXT_MAPPER = new WritableMapper<String, Text, Text>() {
 
-	private final static Text NULL_KEY = new Text(new byte[0]);
+		@Override
+		public void map(String entity, Text key, Text value) {
+			// key is never touched and stays empty
+			value.set(entity);
+		}
+	};
 
 	/**
 	 * Instantiates a new text sequence file writer.
@@ -53,67 +47,7 @@ public class TextSequenceFileWriter extends AbstractSequenceFileWriter implement
 	 * @param codec the compression codec info
 	 */
 	public TextSequenceFileWriter(Configuration configuration, Path basePath, CodecInfo codec) {
-		super(configuration, basePath, codec);
-	}
-
-	@Override
-	public void flush() throws IOException {
-    	// nothing to do
-	}
-
-    public synchronized  void hflush() throws IOException {
-    	// nothing to do
-    }
-
-	@Override
-	public synchronized void close() throws IOException {
-		if (holder != null) {
-			holder.close();
-
-			Path path = renameFile(holder.getPath());
-
-			StoreEventPublisher storeEventPublisher = getStoreEventPublisher();
-			if (storeEventPublisher != null) {
-				storeEventPublisher.publishEvent(new FileWrittenEvent(this, path));
-			}
-
-			holder = null;
-		}
-	}
-
-	@Override
-	public synchronized void write(String entity) throws IOException {
-		if (holder == null) {
-			holder = getOutput();
-		}
-		holder.getWriter().append(NULL_KEY, new Text(entity.getBytes()));
-
-		setWritePosition(getPosition(holder.getWriter()));
-
-		OutputContext context = getOutputContext();
-		if (context.getRolloverState()) {
-			log.info("After write, rollover state is true");
-			close();
-			context.rollStrategies();
-		}
-
-	}
-
-	@Override
-	protected void handleTimeout() {
-        try {
-            if(isAppendable()){
-                log.info("Timeout detected for this writer, flushing stream");
-                hflush();
-            }
-            else{
-                log.info("Timeout detected for this writer, closing stream");
-                close();
-            }
-        } catch (IOException e) {
-            log.error("Error closing", e);
-        }
-		getOutputContext().rollStrategies();
+		super(configuration, basePath, codec, Text.class, Text.class, TEXT_MAPPER);
 	}
 
 }
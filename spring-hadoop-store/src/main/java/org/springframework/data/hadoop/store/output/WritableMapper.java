@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.store.output;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.Writable;
+
+/**
+ * A {@code WritableMapper} is a strategy interface used by
+ * {@link WritableSequenceFileWriter} to map an entity into a key and
+ * a value. Same key and value instances are passed for every entity
+ * thus mapper needs to always set their whole state.
+ *
+ * @author agent
+ *
+ * @param <T> the type of an entity
+ * @param <K> the type of a key
+ * @param <V> the type of a value
+ */
+public interface WritableMapper<T, K extends Writable, V extends Writable> {
+
+	/**
+	 * Map an entity into a reused key and value.
+	 *
+	 * @param entity the entity
+	 * @param key the key
+	 * @param value the value
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	void map(T entity, K key, V value) throws IOException;
+
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.store.output;
+
+import java.io.IOException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile.Writer;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.springframework.data.hadoop.store.DataStoreWriter;
+import org.springframework.data.hadoop.store.codec.CodecInfo;
+import org.springframework.data.hadoop.store.event.FileWrittenEvent;
+import org.springframework.data.hadoop.store.event.StoreEventPublisher;
+import org.springframework.data.hadoop.store.support.OutputContext;
+import org.springframework.data.hadoop.store.support.SequenceFileWriterHolder;
+import org.springframework.util.Assert;
+
+/**
+ * A {@code WritableSequenceFileWriter} is a {@code DataStoreWriter}
+ * implementation writing entities into a {@code SequenceFile} with
+ * {@code Writable} keys and values of any type. Entities are mapped with
+ * a {@link WritableMapper} into a single key and value instance reused
+ * for all writes.
+ *
+ * @author agent
+ *
+ * @param <T> the type of an entity to write
+ * @param <K> the type of a key
+ * @param <V> the type of a value
+ */
+public class WritableSequenceFileWriter<T, K extends Writable, V extends Writable> extends AbstractSequenceFileWriter
+		implements DataStoreWriter<T> {
+
+	private final static Log log = LogFactory.getLog(WritableSequenceFileWriter.class);
+
+	private final Class<K> keyClass;
+
+	private final Class<V> valueClass;
+
+	private final WritableMapper<T, K, V> mapper;
+
+	private SequenceFileWriterHolder<Writer> holder;
+
+	private K key;
+
+	private V value;
+
+	/**
+	 * Instantiates a new writable sequence file writer.
+	 *
+	 * @param configuration the hadoop configuration
+	 * @param basePath the hdfs path
+	 * @param codec the compression codec info
+	 * @param keyClass the key class
+	 * @param valueClass the value class
+	 * @param mapper the mapper for entities
+	 */
+	public WritableSequenceFileWriter(Configuration configuration, Path basePath, CodecInfo codec,
+			Class<K> keyClass, Class<V> valueClass, WritableMapper<T, K, V> mapper) {
+		super(configuration, basePath, codec);
+		Assert.notNull(keyClass, "Key class must be set");
+		Assert.notNull(valueClass, "Value class must be set");
+		Assert.notNull(mapper, "Mapper must be set");
+		this.keyClass = keyClass;
+		this.valueClass = valueClass;
+		this.mapper = mapper;
+	}
+
+	@Override
+	public synchronized void flush() throws IOException {
+		if (holder != null) {
+			flush(holder, isAppendable() || isSyncable(), false);
+		}
+	}
+
+	/**
+	 * Flushes written records to datanodes.
+	 *
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public synchronized void hflush() throws IOException {
+		if (holder != null) {
+			flush(holder, true, false);
+		}
+	}
+
+	/**
+	 * Flushes written records to datanodes and syncs them to disks.
+	 *
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public synchronized void hsync() throws IOException {
+		if (holder != null) {
+			flush(holder, true, true);
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (holder != null) {
+			SequenceFileWriterHolder<Writer> h = holder;
+			holder = null;
+			h.close();
+
+			Path path = renameFile(h.getPath());
+
+			StoreEventPublisher storeEventPublisher = getStoreEventPublisher();
+			if (storeEventPublisher != null) {
+				storeEventPublisher.publishEvent(new FileWrittenEvent(this, path));
+			}
+		}
+	}
+
+	@Override
+	public synchronized void write(T entity) throws IOException {
+		if (holder == null) {
+			holder = getOutput();
+		}
+		if (key == null) {
+			key = ReflectionUtils.newInstance(keyClass, getConfiguration());
+			value = ReflectionUtils.newInstance(valueClass, getConfiguration());
+		}
+		mapper.map(entity, key, value);
+		holder.getWriter().append(key, value);
+
+		setWritePosition(getPosition(holder.getWriter()));
+
+		OutputContext context = getOutputContext();
+		if (context.getRolloverState()) {
+			log.info("After write, rollover state is true");
+			close();
+			context.rollStrategies();
+		}
+	}
+
+	@Override
+	protected Class<? extends Writable> getKeyClass() {
+		return keyClass;
+	}
+
+	@Override
+	protected Class<? extends Writable> getValueClass() {
+		return valueClass;
+	}
+
+	@Override
+	protected void handleTimeout() {
+		try {
+			if (isAppendable()) {
+				log.info("Timeout detected for this writer, flushing stream");
+				hflush();
+			} else {
+				log.info("Timeout detected for this writer, closing stream");
+				close();
+			}
+		} catch (IOException e) {
+			log.error("Error closing", e);
+		}
+		getOutputContext().rollStrategies();
+	}
+
+}
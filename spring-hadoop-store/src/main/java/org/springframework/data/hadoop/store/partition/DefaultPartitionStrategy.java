@@ -20,7 +20,9 @@ import java.util.Map;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.fs.Path;
+import org.springframework.data.hadoop.store.expression.CompiledPartitionExpression;
 import org.springframework.data.hadoop.store.expression.MapExpressionMethods;
+import org.springframework.expression.AccessException;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
@@ -93,34 +95,59 @@ public class DefaultPartitionStrategy<T extends Object> extends AbstractPartitio
 
 	/**
 	 * A {@link PartitionResolver} which uses an {@link Expression} together with
-	 * {@link MapExpressionMethods} to evaluate new {@link Path}s.
+	 * {@link MapExpressionMethods} to evaluate new {@link Path}s. If evaluation
+	 * context is not given, expression is compiled into plain java when possible.
+	 * Resolved paths are cached.
 	 */
 	private static class MapPartitionResolver implements PartitionResolver<Map<String,Object>> {
 
 		private final Expression expression;
 		private final MapExpressionMethods methods;
+		private final CompiledPartitionExpression compiled;
+		private final PartitionPathCache paths = new PartitionPathCache();
 
 		public MapPartitionResolver(String expression, StandardEvaluationContext evaluationContext, ExpressionParser expressionParser) {
 			if (expressionParser == null) {
 				// default to mixed mode
 				expressionParser = new SpelExpressionParser(new SpelParserConfiguration(SpelCompilerMode.MIXED, null));
 			}
+			// user given context may resolve things differently
+			// so only compile if we create a context
+			boolean compile = evaluationContext == null;
 			if (evaluationContext == null) {
 				evaluationContext = new StandardEvaluationContext();
 			}
 			this.expression = expressionParser.parseExpression(expression);
 			this.methods = new MapExpressionMethods(evaluationContext, true, false);
+			this.compiled = compile ? compile(this.expression) : null;
 		}
 
 		public MapPartitionResolver(Expression expression, EvaluationContext evaluationContext) {
 			this.expression = expression;
 			this.methods = new MapExpressionMethods(evaluationContext);
+			this.compiled = evaluationContext == null ? compile(expression) : null;
 			log.info("Using expression=[" + this.expression.getExpressionString() + "]");
 		}
 
 		@Override
 		public Path resolvePath(Map<String,Object> partitionKey) {
-			return new Path(methods.getValue(expression, partitionKey, String.class));
+			if (compiled != null) {
+				try {
+					return paths.getPath(compiled.evaluate(partitionKey));
+				} catch (AccessException e) {
+					// fall back to spel which either handles
+					// this or fails with a proper error
+				}
+			}
+			return paths.getPath(methods.getValue(expression, partitionKey, String.class));
+		}
+
+		private static CompiledPartitionExpression compile(Expression expression) {
+			CompiledPartitionExpression compiled = CompiledPartitionExpression.compile(expression);
+			if (compiled != null) {
+				log.info("Compiled expression=[" + expression.getExpressionString() + "]");
+			}
+			return compiled;
 		}
 
 	}
@@ -84,6 +84,8 @@ public class MessagePartitionStrategy<T extends Object> extends AbstractPartitio
 
 		private final MessageExpressionMethods methods;
 
+		private final PartitionPathCache paths = new PartitionPathCache();
+
 		public MessagePartitionResolver(String expression, StandardEvaluationContext evaluationContext, ExpressionParser expressionParser) {
 			if (expressionParser == null) {
 				// default to mixed mode
@@ -102,7 +104,7 @@ public class MessagePartitionStrategy<T extends Object> extends AbstractPartitio
 
 		@Override
 		public Path resolvePath(Message<?> partitionKey) {
-			return new Path(methods.getValue(expression, partitionKey, String.class));
+			return paths.getPath(methods.getValue(expression, partitionKey, String.class));
 		}
 
 	}
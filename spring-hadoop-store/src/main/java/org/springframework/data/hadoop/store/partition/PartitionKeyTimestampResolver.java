@@ -0,0 +1,39 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.store.partition;
+
+/**
+ * A {@code PartitionKeyTimestampResolver} is a strategy interface resolving
+ * an event time from a partition key. Used by partition writers to place
+ * writes into time windows.
+ *
+ * @author agent
+ *
+ * @param <K> the type of a partition key
+ */
+public interface PartitionKeyTimestampResolver<K> {
+
+	/**
+	 * Resolve a timestamp in milliseconds for a given partition key. This
+	 * method may return <code>NULL</code> indicating that there are no
+	 * timestamp available.
+	 *
+	 * @param partitionKey the partition key
+	 * @return the timestamp
+	 */
+	Long resolveTimestamp(K partitionKey);
+
+}
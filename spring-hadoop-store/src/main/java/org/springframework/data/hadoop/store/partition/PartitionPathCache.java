@@ -0,0 +1,146 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.store.partition;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.hadoop.fs.Path;
+import org.springframework.util.Assert;
+
+/**
+ * A small bounded cache of resolved partition {@link Path}s. Constructing
+ * a {@code Path} parses and normalizes it as an uri which is expensive to
+ * do for every written entity while there usually are only few distinct
+ * partitions written at a time.
+ * <p>
+ * Cache is safe to use from multiple threads. When max size is reached
+ * cache is simply cleared which is cheap and good enough as active
+ * partitions are cached again right away.
+ *
+ * @author agent
+ *
+ */
+public class PartitionPathCache {
+
+	/** Default max number of cached paths */
+	public final static int DEFAULT_MAX_SIZE = 1024;
+
+	private final ConcurrentMap<Object, Path> paths = new ConcurrentHashMap<Object, Path>();
+
+	private final int maxSize;
+
+	/**
+	 * Instantiates a new partition path cache with default max size.
+	 */
+	public PartitionPathCache() {
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * Instantiates a new partition path cache.
+	 *
+	 * @param maxSize the max number of cached paths
+	 */
+	public PartitionPathCache(int maxSize) {
+		Assert.isTrue(maxSize > 0, "Max size must be positive");
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Gets a path for a resolved path string.
+	 *
+	 * @param path the path string
+	 * @return the path
+	 */
+	public Path getPath(String path) {
+		Path p = paths.get(path);
+		if (p == null) {
+			p = cache(path, new Path(path));
+		}
+		return p;
+	}
+
+	/**
+	 * Gets a path for path segments which are joined
+	 * with a path separator.
+	 *
+	 * @param segments the path segments
+	 * @return the path
+	 */
+	public Path getPath(String[] segments) {
+		if (segments.length == 1) {
+			return getPath(segments[0]);
+		}
+		Segments key = new Segments(segments);
+		Path p = paths.get(key);
+		if (p == null) {
+			StringBuilder buf = new StringBuilder();
+			for (int i = 0; i < segments.length; i++) {
+				if (i > 0) {
+					buf.append(Path.SEPARATOR);
+				}
+				buf.append(segments[i]);
+			}
+			p = cache(key, new Path(buf.toString()));
+		}
+		return p;
+	}
+
+	/**
+	 * Gets the number of cached paths.
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		return paths.size();
+	}
+
+	private Path cache(Object key, Path path) {
+		if (paths.size() >= maxSize) {
+			paths.clear();
+		}
+		Path existing = paths.putIfAbsent(key, path);
+		return existing != null ? existing : path;
+	}
+
+	/**
+	 * Key for path segments.
+	 */
+	private static class Segments {
+
+		final String[] segments;
+
+		final int hash;
+
+		Segments(String[] segments) {
+			this.segments = segments;
+			this.hash = Arrays.hashCode(segments);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Segments && Arrays.equals(segments, ((Segments) obj).segments);
+		}
+	}
+
+}
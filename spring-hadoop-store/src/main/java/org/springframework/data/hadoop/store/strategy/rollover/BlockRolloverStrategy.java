@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.store.strategy.rollover;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.util.Assert;
+
+/**
+ * A {@code RolloverStrategy} rolling when a file size reaches a multiple of
+ * its block size. Size is compared against a write position which for
+ * compressed streams is the position of the underlying file stream, thus
+ * the compressed bytes on disk. As compressors buffer data and a file
+ * should not spill few bytes into a next block, a fill factor is used to
+ * roll a little before a block is full.
+ * <p>
+ * Block size is given by a writer when a file is opened. If block size is
+ * not known, a default block size is used.
+ *
+ * @author agent
+ *
+ */
+public class BlockRolloverStrategy extends AbstractRolloverStrategy implements OutputAwareRolloverStrategy {
+
+	private final static Log log = LogFactory.getLog(BlockRolloverStrategy.class);
+
+	/** Default fill factor */
+	public static final float DEFAULT_FILL_FACTOR = 0.95f;
+
+	/** Block size used if file system doesn't tell it */
+	public static final long DEFAULT_BLOCK_SIZE = 128 * 1024 * 1024;
+
+	private int blocks;
+
+	private float fillFactor;
+
+	private volatile long blockSize = -1;
+
+	/**
+	 * Instantiates a new block rollover strategy rolling
+	 * on one block with a default fill factor.
+	 */
+	public BlockRolloverStrategy() {
+		this(1, DEFAULT_FILL_FACTOR);
+	}
+
+	/**
+	 * Instantiates a new block rollover strategy.
+	 *
+	 * @param blocks the number of blocks per file
+	 * @param fillFactor the fill factor of a last block
+	 */
+	public BlockRolloverStrategy(int blocks, float fillFactor) {
+		setBlocks(blocks);
+		setFillFactor(fillFactor);
+	}
+
+	@Override
+	public boolean hasRolled() {
+		long rolloverSize = getRolloverSize();
+		if (log.isDebugEnabled()) {
+			log.debug("Checking rolloverSize=" + rolloverSize + " against currentSize=" + getPosition());
+		}
+		return rolloverSize <= getPosition();
+	}
+
+	@Override
+	public void reset() {
+		// nothing to do
+	}
+
+	@Override
+	public void setBlockSize(long blockSize) {
+		this.blockSize = blockSize;
+	}
+
+	@Override
+	public void recordWritten() {
+		// not interested in records
+	}
+
+	/**
+	 * Sets the number of blocks per file.
+	 *
+	 * @param blocks the new number of blocks
+	 */
+	public void setBlocks(int blocks) {
+		Assert.isTrue(blocks > 0, "Blocks must be positive");
+		this.blocks = blocks;
+	}
+
+	/**
+	 * Sets the fill factor of a last block. Value must be
+	 * greater than zero and at most one.
+	 *
+	 * @param fillFactor the new fill factor
+	 */
+	public void setFillFactor(float fillFactor) {
+		Assert.isTrue(fillFactor > 0 && fillFactor <= 1, "Fill factor must be in range (0, 1]");
+		this.fillFactor = fillFactor;
+	}
+
+	/**
+	 * Gets the size in bytes which causes a rollover.
+	 *
+	 * @return the rollover size
+	 */
+	public long getRolloverSize() {
+		long size = blockSize > 0 ? blockSize : DEFAULT_BLOCK_SIZE;
+		return (long) ((blocks - 1) * size + size * (double) fillFactor);
+	}
+
+	@Override
+	public BlockRolloverStrategy createInstance() {
+		BlockRolloverStrategy instance = new BlockRolloverStrategy(blocks, fillFactor);
+		instance.setOrder(getOrder());
+		return instance;
+	}
+
+}
@@ -27,7 +27,7 @@ import org.springframework.data.hadoop.store.support.OrderedComposite;
  * @author Janne Valkealahti
  *
  */
-public class ChainedRolloverStrategy implements RolloverStrategy {
+public class ChainedRolloverStrategy implements OutputAwareRolloverStrategy {
 
 	/** List of ordered composite strategies */
 	private OrderedComposite<RolloverStrategy> strategies;
@@ -73,6 +73,26 @@ public class ChainedRolloverStrategy implements RolloverStrategy {
 		}
 	}
 
+	@Override
+	public void setBlockSize(long blockSize) {
+		for (Iterator<RolloverStrategy> iterator = strategies.iterator(); iterator.hasNext();) {
+			RolloverStrategy strategy = iterator.next();
+			if (strategy instanceof OutputAwareRolloverStrategy) {
+				((OutputAwareRolloverStrategy) strategy).setBlockSize(blockSize);
+			}
+		}
+	}
+
+	@Override
+	public void recordWritten() {
+		for (Iterator<RolloverStrategy> iterator = strategies.iterator(); iterator.hasNext();) {
+			RolloverStrategy strategy = iterator.next();
+			if (strategy instanceof OutputAwareRolloverStrategy) {
+				((OutputAwareRolloverStrategy) strategy).recordWritten();
+			}
+		}
+	}
+
 	@Override
 	public ChainedRolloverStrategy createInstance() {
 		ChainedRolloverStrategy instance = new ChainedRolloverStrategy();
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.store.strategy.rollover;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.util.Assert;
+
+/**
+ * A {@code RolloverStrategy} rolling after a number of written records.
+ *
+ * @author agent
+ *
+ */
+public class CountRolloverStrategy extends AbstractRolloverStrategy implements OutputAwareRolloverStrategy {
+
+	private final long rolloverCount;
+
+	private final AtomicLong count = new AtomicLong();
+
+	/**
+	 * Instantiates a new count rollover strategy.
+	 *
+	 * @param rolloverCount the number of records per file
+	 */
+	public CountRolloverStrategy(long rolloverCount) {
+		Assert.isTrue(rolloverCount > 0, "Rollover count must be positive");
+		this.rolloverCount = rolloverCount;
+	}
+
+	@Override
+	public boolean hasRolled() {
+		return count.get() >= rolloverCount;
+	}
+
+	@Override
+	public void reset() {
+		count.set(0);
+	}
+
+	@Override
+	public void setBlockSize(long blockSize) {
+		// not interested in block size
+	}
+
+	@Override
+	public void recordWritten() {
+		count.incrementAndGet();
+	}
+
+	@Override
+	public CountRolloverStrategy createInstance() {
+		CountRolloverStrategy instance = new CountRolloverStrategy(rolloverCount);
+		instance.setOrder(getOrder());
+		return instance;
+	}
+
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.store.strategy.rollover;
+
+/**
+ * Extension of {@link RolloverStrategy} for strategies which need to know
+ * more about an output than its write position. Writers pass a block size
+ * of a file when it's opened and every write position update is considered
+ * to be a written record.
+ *
+ * @author agent
+ *
+ */
+public interface OutputAwareRolloverStrategy extends RolloverStrategy {
+
+	/**
+	 * Sets the block size of a currently written file.
+	 *
+	 * @param blockSize the block size or negative if not known
+	 */
+	void setBlockSize(long blockSize);
+
+	/**
+	 * Notifies strategy that a record was written.
+	 */
+	void recordWritten();
+
+}
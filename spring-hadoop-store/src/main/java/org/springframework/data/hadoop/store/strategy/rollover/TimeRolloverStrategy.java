@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.store.strategy.rollover;
+
+import org.springframework.util.Assert;
+
+/**
+ * A {@code RolloverStrategy} rolling when a file has been written longer
+ * than a given interval. Interval starts from a first record written into a
+ * file and rollover is only checked when writing, thus a file which doesn't
+ * receive writes is not rolled. Idle timeout of a writer should be used to
+ * close such files.
+ *
+ * @author agent
+ *
+ */
+public class TimeRolloverStrategy extends AbstractRolloverStrategy implements OutputAwareRolloverStrategy {
+
+	private final static long NOT_STARTED = -1;
+
+	private final long rolloverInterval;
+
+	private volatile long started = NOT_STARTED;
+
+	/**
+	 * Instantiates a new time rollover strategy.
+	 *
+	 * @param rolloverInterval the rollover interval in millis
+	 */
+	public TimeRolloverStrategy(long rolloverInterval) {
+		Assert.isTrue(rolloverInterval > 0, "Rollover interval must be positive");
+		this.rolloverInterval = rolloverInterval;
+	}
+
+	@Override
+	public boolean hasRolled() {
+		long s = started;
+		return s != NOT_STARTED && getTime() - s >= rolloverInterval;
+	}
+
+	@Override
+	public void reset() {
+		started = NOT_STARTED;
+	}
+
+	@Override
+	public void setBlockSize(long blockSize) {
+		// not interested in block size
+	}
+
+	@Override
+	public void recordWritten() {
+		if (started == NOT_STARTED) {
+			started = getTime();
+		}
+	}
+
+	@Override
+	public TimeRolloverStrategy createInstance() {
+		TimeRolloverStrategy instance = new TimeRolloverStrategy(rolloverInterval);
+		instance.setOrder(getOrder());
+		return instance;
+	}
+
+	/**
+	 * Gets the current time in millis.
+	 *
+	 * @return the current time
+	 */
+	protected long getTime() {
+		return System.currentTimeMillis();
+	}
+
+}
@@ -0,0 +1,393 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.store.support;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.util.Assert;
+
+/**
+ * A timeout service based on a hashed timing wheel. All deadlines registered
+ * with this service are kept in a fixed size wheel of buckets which is
+ * advanced by a single worker thread, thus registering and cancelling a
+ * timeout is a constant time operation and the number of threads stays
+ * constant regardless of how many store writers are using this service.
+ * <p>
+ * Tasks are executed by the worker thread and are expected to be short,
+ * anything which may block should be handed off to an executor.
+ *
+ * @author agent
+ *
+ */
+public class HashedWheelTimeoutService {
+
+	private final static Log log = LogFactory.getLog(HashedWheelTimeoutService.class);
+
+	/** Default tick duration in millis */
+	public final static long DEFAULT_TICK_DURATION = 100;
+
+	/** Default number of buckets in a wheel */
+	public final static int DEFAULT_TICKS_PER_WHEEL = 512;
+
+	private final static int STATE_INIT = 0;
+
+	private final static int STATE_STARTED = 1;
+
+	private final static int STATE_SHUTDOWN = 2;
+
+	private final static Object sharedLock = new Object();
+
+	private static volatile HashedWheelTimeoutService sharedInstance;
+
+	private final AtomicInteger state = new AtomicInteger(STATE_INIT);
+
+	private final Queue<WheelTimeout> pendingTimeouts = new ConcurrentLinkedQueue<WheelTimeout>();
+
+	private final CountDownLatch startTimeInitialized = new CountDownLatch(1);
+
+	private final long tickDuration;
+
+	private final Bucket[] wheel;
+
+	private final int mask;
+
+	private final Thread workerThread;
+
+	private volatile long startTime;
+
+	/**
+	 * Instantiates a new hashed wheel timeout service with
+	 * default tick duration and wheel size.
+	 */
+	public HashedWheelTimeoutService() {
+		this(DEFAULT_TICK_DURATION, TimeUnit.MILLISECONDS, DEFAULT_TICKS_PER_WHEEL);
+	}
+
+	/**
+	 * Instantiates a new hashed wheel timeout service.
+	 *
+	 * @param tickDuration the duration of one tick
+	 * @param unit the time unit of tick duration
+	 * @param ticksPerWheel the number of buckets in a wheel, rounded up to next power of two
+	 */
+	public HashedWheelTimeoutService(long tickDuration, TimeUnit unit, int ticksPerWheel) {
+		Assert.isTrue(tickDuration > 0, "Tick duration must be positive");
+		Assert.notNull(unit, "Time unit must be set");
+		Assert.isTrue(ticksPerWheel > 0 && ticksPerWheel <= (1 << 30), "Ticks per wheel must be in range 1-2^30");
+		int size = 1;
+		while (size < ticksPerWheel) {
+			size <<= 1;
+		}
+		this.wheel = new Bucket[size];
+		for (int i = 0; i < size; i++) {
+			wheel[i] = new Bucket();
+		}
+		this.mask = size - 1;
+		this.tickDuration = unit.toNanos(tickDuration);
+		this.workerThread = new Thread(new Worker(), "store-timeout-wheel");
+		this.workerThread.setDaemon(true);
+	}
+
+	/**
+	 * Gets the shared instance of this service. Shared instance is started
+	 * lazily and its daemon worker thread lives as long as the jvm.
+	 *
+	 * @return the shared timeout service
+	 */
+	public static HashedWheelTimeoutService getSharedInstance() {
+		HashedWheelTimeoutService instance = sharedInstance;
+		if (instance == null) {
+			synchronized (sharedLock) {
+				instance = sharedInstance;
+				if (instance == null) {
+					sharedInstance = instance = new HashedWheelTimeoutService();
+				}
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Register a new timeout which will execute a given task once
+	 * after a given delay unless it is cancelled.
+	 *
+	 * @param task the task to execute
+	 * @param delay the delay in millis
+	 * @return the timeout handle
+	 */
+	public Timeout newTimeout(Runnable task, long delay) {
+		Assert.notNull(task, "Task must be set");
+		start();
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(delay, 0)) - startTime;
+		WheelTimeout timeout = new WheelTimeout(task, deadline);
+		pendingTimeouts.add(timeout);
+		return timeout;
+	}
+
+	/**
+	 * Stops this service. Timeouts not yet expired are never executed.
+	 */
+	public void stop() {
+		if (Thread.currentThread() == workerThread) {
+			throw new IllegalStateException("Timeout service can't be stopped from its own task");
+		}
+		if (state.getAndSet(STATE_SHUTDOWN) == STATE_STARTED) {
+			workerThread.interrupt();
+			try {
+				workerThread.join(tickDuration / 1000000 * 2 + 100);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private void start() {
+		switch (state.get()) {
+		case STATE_INIT:
+			if (state.compareAndSet(STATE_INIT, STATE_STARTED)) {
+				workerThread.start();
+			}
+			break;
+		case STATE_STARTED:
+			break;
+		default:
+			throw new IllegalStateException("Timeout service has been stopped");
+		}
+		while (startTime == 0) {
+			try {
+				startTimeInitialized.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting timeout service to start", e);
+			}
+		}
+	}
+
+	/**
+	 * A handle to a registered timeout.
+	 */
+	public interface Timeout {
+
+		/**
+		 * Cancels this timeout. Cancelling an already expired
+		 * or cancelled timeout doesn't do anything.
+		 *
+		 * @return true, if timeout was cancelled by this call
+		 */
+		boolean cancel();
+
+		/**
+		 * Checks if this timeout is cancelled.
+		 *
+		 * @return true, if cancelled
+		 */
+		boolean isCancelled();
+
+		/**
+		 * Checks if this timeout has expired and its task executed.
+		 *
+		 * @return true, if expired
+		 */
+		boolean isExpired();
+
+	}
+
+	/**
+	 * Worker advancing the wheel.
+	 */
+	private class Worker implements Runnable {
+
+		private long tick;
+
+		@Override
+		public void run() {
+			long now = System.nanoTime();
+			startTime = now == 0 ? 1 : now;
+			startTimeInitialized.countDown();
+			do {
+				long deadline = waitForNextTick();
+				if (deadline > 0) {
+					transferPendingTimeouts();
+					wheel[(int) (tick & mask)].expireTimeouts();
+					tick++;
+				}
+			} while (state.get() == STATE_STARTED);
+		}
+
+		private long waitForNextTick() {
+			long deadline = tickDuration * (tick + 1);
+			while (true) {
+				long current = System.nanoTime() - startTime;
+				long sleep = (deadline - current + 999999) / 1000000;
+				if (sleep <= 0) {
+					return current;
+				}
+				try {
+					Thread.sleep(sleep);
+				} catch (InterruptedException e) {
+					if (state.get() == STATE_SHUTDOWN) {
+						return -1;
+					}
+				}
+			}
+		}
+
+		private void transferPendingTimeouts() {
+			// limit amount of work per tick so that
+			// a burst of registrations can't stall the wheel
+			for (int i = 0; i < 100000; i++) {
+				WheelTimeout timeout = pendingTimeouts.poll();
+				if (timeout == null) {
+					break;
+				}
+				if (timeout.isCancelled()) {
+					continue;
+				}
+				long calculated = timeout.deadline / tickDuration;
+				timeout.remainingRounds = (calculated - tick) / wheel.length;
+				long ticks = Math.max(calculated, tick);
+				wheel[(int) (ticks & mask)].add(timeout);
+			}
+		}
+	}
+
+	/**
+	 * Bucket in a wheel, a doubly linked list only accessed by a worker thread.
+	 */
+	private static class Bucket {
+
+		private WheelTimeout head;
+
+		private WheelTimeout tail;
+
+		void add(WheelTimeout timeout) {
+			if (head == null) {
+				head = tail = timeout;
+			} else {
+				tail.next = timeout;
+				timeout.prev = tail;
+				tail = timeout;
+			}
+		}
+
+		void expireTimeouts() {
+			WheelTimeout timeout = head;
+			while (timeout != null) {
+				WheelTimeout next = timeout.next;
+				if (timeout.isCancelled()) {
+					remove(timeout);
+				} else if (timeout.remainingRounds <= 0) {
+					// deadline is within this tick
+					remove(timeout);
+					timeout.expire();
+				} else {
+					timeout.remainingRounds--;
+				}
+				timeout = next;
+			}
+		}
+
+		private void remove(WheelTimeout timeout) {
+			WheelTimeout next = timeout.next;
+			if (timeout.prev != null) {
+				timeout.prev.next = next;
+			}
+			if (timeout.next != null) {
+				timeout.next.prev = timeout.prev;
+			}
+			if (timeout == head) {
+				if (timeout == tail) {
+					head = tail = null;
+				} else {
+					head = next;
+				}
+			} else if (timeout == tail) {
+				tail = timeout.prev;
+			}
+			timeout.prev = null;
+			timeout.next = null;
+		}
+	}
+
+	/**
+	 * Timeout kept in a bucket.
+	 */
+	private static class WheelTimeout implements Timeout {
+
+		private final static int ST_INIT = 0;
+
+		private final static int ST_CANCELLED = 1;
+
+		private final static int ST_EXPIRED = 2;
+
+		private final static AtomicIntegerFieldUpdater<WheelTimeout> STATE_UPDATER =
+				AtomicIntegerFieldUpdater.newUpdater(WheelTimeout.class, "state");
+
+		private final Runnable task;
+
+		private final long deadline;
+
+		private volatile int state = ST_INIT;
+
+		// these are only accessed by a worker thread
+		long remainingRounds;
+
+		WheelTimeout next;
+
+		WheelTimeout prev;
+
+		WheelTimeout(Runnable task, long deadline) {
+			this.task = task;
+			this.deadline = deadline;
+		}
+
+		@Override
+		public boolean cancel() {
+			// actual removal from a bucket happens lazily
+			// when worker is processing the bucket
+			return STATE_UPDATER.compareAndSet(this, ST_INIT, ST_CANCELLED);
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return state == ST_CANCELLED;
+		}
+
+		@Override
+		public boolean isExpired() {
+			return state == ST_EXPIRED;
+		}
+
+		void expire() {
+			if (!STATE_UPDATER.compareAndSet(this, ST_INIT, ST_EXPIRED)) {
+				return;
+			}
+			try {
+				task.run();
+			} catch (Throwable t) {
+				log.warn("Timeout task caused exception", t);
+			}
+		}
+	}
+
+}
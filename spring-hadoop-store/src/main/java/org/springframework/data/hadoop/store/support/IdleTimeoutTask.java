@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.store.support;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.util.Assert;
+
+/**
+ * A timeout task executing its callback when there has not been any
+ * activity within a timeout. Marking an activity with {@link #touch()}
+ * doesn't reschedule anything, a deadline is registered only when there
+ * isn't one already and it is moved forward lazily when it expires.
+ *
+ * @author agent
+ *
+ */
+public class IdleTimeoutTask extends TimeoutTaskSupport {
+
+	/**
+	 * In millis last activity. We explicitly use negative value to indicate reset state
+	 * because we can't use long max value which would flip if adding something.
+	 */
+	private final AtomicLong lastActivity = new AtomicLong(Long.MIN_VALUE);
+
+	private final AtomicBoolean armed = new AtomicBoolean();
+
+	private final long timeout;
+
+	/**
+	 * Instantiates a new idle timeout task.
+	 *
+	 * @param timeoutService the timeout service
+	 * @param taskExecutor the task executor, may be null
+	 * @param callback the callback executed on timeout
+	 * @param timeout the idle timeout in millis
+	 */
+	public IdleTimeoutTask(HashedWheelTimeoutService timeoutService, TaskExecutor taskExecutor, Runnable callback,
+			long timeout) {
+		super(timeoutService, taskExecutor, callback);
+		Assert.isTrue(timeout > 0, "Timeout must be positive");
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Mark an activity.
+	 */
+	public void touch() {
+		lastActivity.set(System.currentTimeMillis());
+		arm();
+	}
+
+	@Override
+	protected void onStart() {
+		if (lastActivity.get() != Long.MIN_VALUE) {
+			arm();
+		}
+	}
+
+	@Override
+	public void stop() {
+		super.stop();
+		armed.set(false);
+	}
+
+	@Override
+	protected void onExpired() {
+		while (true) {
+			long last = lastActivity.get();
+			if (last == Long.MIN_VALUE) {
+				disarm();
+				return;
+			}
+			long remaining = last + timeout - System.currentTimeMillis();
+			if (remaining >= 0) {
+				schedule(remaining + 1);
+				return;
+			}
+			if (lastActivity.compareAndSet(last, Long.MIN_VALUE)) {
+				disarm();
+				executeCallback(null);
+				return;
+			}
+		}
+	}
+
+	private void arm() {
+		if (isRunning() && !armed.get() && armed.compareAndSet(false, true)) {
+			schedule(timeout);
+		}
+	}
+
+	private void disarm() {
+		armed.set(false);
+		// activity may have happened while we were still armed
+		if (lastActivity.get() != Long.MIN_VALUE) {
+			arm();
+		}
+	}
+
+}
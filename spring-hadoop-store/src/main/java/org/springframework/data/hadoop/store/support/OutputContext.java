@@ -20,6 +20,7 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.fs.Path;
 import org.springframework.data.hadoop.store.codec.CodecInfo;
 import org.springframework.data.hadoop.store.strategy.naming.FileNamingStrategy;
+import org.springframework.data.hadoop.store.strategy.rollover.OutputAwareRolloverStrategy;
 import org.springframework.data.hadoop.store.strategy.rollover.RolloverStrategy;
 
 /**
@@ -43,13 +44,28 @@ public class OutputContext {
 	}
 
 	/**
-	 * Sets the write position.
+	 * Sets the write position. Writers call this after every
+	 * write, thus it also counts as a written record.
 	 *
 	 * @param position the new write position
 	 */
 	public void setWritePosition(long position) {
 		if (rolloverStrategy != null) {
 			rolloverStrategy.setWritePosition(position);
+			if (rolloverStrategy instanceof OutputAwareRolloverStrategy) {
+				((OutputAwareRolloverStrategy) rolloverStrategy).recordWritten();
+			}
+		}
+	}
+
+	/**
+	 * Sets the block size of a file opened for writing.
+	 *
+	 * @param blockSize the block size or negative if not known
+	 */
+	public void setBlockSize(long blockSize) {
+		if (rolloverStrategy instanceof OutputAwareRolloverStrategy) {
+			((OutputAwareRolloverStrategy) rolloverStrategy).setBlockSize(blockSize);
 		}
 	}
 
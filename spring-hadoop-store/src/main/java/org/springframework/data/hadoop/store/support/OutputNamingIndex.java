@@ -0,0 +1,207 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.store.support;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.springframework.util.Assert;
+
+/**
+ * An index of file names in output directories. A directory is listed only
+ * once when it's first needed and after that the index is kept up to date
+ * with files created and renamed by writers, thus finding a next free file
+ * name doesn't need to list a directory or probe if paths exist.
+ * <p>
+ * Index doesn't see files created outside of writers using it, so it
+ * should only be used when a single process writes into a directory.
+ * Stream writers still create files without overwrite meaning that a
+ * missed file results a failed create and a roll to a next name, instead
+ * of overwriting a file.
+ * <p>
+ * Index is safe to use from multiple threads. When max number of
+ * directories is reached index is simply cleared and directories are
+ * listed again when needed.
+ *
+ * @author agent
+ *
+ */
+public class OutputNamingIndex {
+
+	private final static Log log = LogFactory.getLog(OutputNamingIndex.class);
+
+	/** Default max number of indexed directories */
+	public final static int DEFAULT_MAX_DIRECTORIES = 1024;
+
+	private final ConcurrentMap<Path, Directory> directories = new ConcurrentHashMap<Path, Directory>();
+
+	private final int maxDirectories;
+
+	/**
+	 * Instantiates a new output naming index with default
+	 * max number of directories.
+	 */
+	public OutputNamingIndex() {
+		this(DEFAULT_MAX_DIRECTORIES);
+	}
+
+	/**
+	 * Instantiates a new output naming index.
+	 *
+	 * @param maxDirectories the max number of indexed directories
+	 */
+	public OutputNamingIndex(int maxDirectories) {
+		Assert.isTrue(maxDirectories > 0, "Max directories must be positive");
+		this.maxDirectories = maxDirectories;
+	}
+
+	/**
+	 * Gets an indexed directory listing it if it's not yet indexed.
+	 *
+	 * @param fs the file system
+	 * @param path the directory path
+	 * @return the indexed directory
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public Directory getDirectory(FileSystem fs, Path path) throws IOException {
+		Path key = fs.makeQualified(path);
+		Directory directory = directories.get(key);
+		if (directory == null) {
+			if (directories.size() >= maxDirectories) {
+				directories.clear();
+			}
+			directory = new Directory();
+			Directory existing = directories.putIfAbsent(key, directory);
+			if (existing != null) {
+				directory = existing;
+			}
+		}
+		directory.seed(fs, key);
+		return directory;
+	}
+
+	/**
+	 * Clears the index.
+	 */
+	public void clear() {
+		directories.clear();
+	}
+
+	/**
+	 * File names of an indexed directory.
+	 */
+	public static class Directory {
+
+		/** Names ordered from oldest to newest */
+		private final List<String> names = new ArrayList<String>();
+
+		private final Set<String> lookup = new HashSet<String>();
+
+		private boolean seeded;
+
+		private synchronized void seed(FileSystem fs, Path path) throws IOException {
+			if (seeded) {
+				return;
+			}
+			FileStatus[] statuses;
+			try {
+				statuses = fs.listStatus(path);
+			} catch (FileNotFoundException e) {
+				statuses = new FileStatus[0];
+			}
+			Arrays.sort(statuses, new Comparator<FileStatus>() {
+
+				@Override
+				public int compare(FileStatus f1, FileStatus f2) {
+					return Long.valueOf(f1.getModificationTime()).compareTo(f2.getModificationTime());
+				}
+			});
+			for (FileStatus status : statuses) {
+				add(status.getPath().getName());
+			}
+			seeded = true;
+			log.info("Indexed " + names.size() + " files from " + path);
+		}
+
+		/**
+		 * Checks if a file with a given name exists.
+		 *
+		 * @param name the file name
+		 * @return true, if file exists
+		 */
+		public synchronized boolean contains(String name) {
+			return lookup.contains(name);
+		}
+
+		/**
+		 * Adds a created file as a newest file.
+		 *
+		 * @param name the file name
+		 */
+		public synchronized void add(String name) {
+			if (lookup.add(name)) {
+				names.add(name);
+			}
+		}
+
+		/**
+		 * Renames a file keeping its position in the index.
+		 *
+		 * @param from the current file name
+		 * @param to the new file name
+		 */
+		public synchronized void rename(String from, String to) {
+			if (!lookup.remove(from)) {
+				add(to);
+				return;
+			}
+			// renamed files are usually the newest ones
+			int index = names.lastIndexOf(from);
+			if (lookup.add(to)) {
+				names.set(index, to);
+			} else {
+				names.remove(index);
+			}
+		}
+
+		/**
+		 * Gets the file names ordered from newest to oldest.
+		 *
+		 * @return the file names
+		 */
+		public synchronized List<String> getNames() {
+			List<String> copy = new ArrayList<String>(names.size());
+			for (int i = names.size() - 1; i >= 0; i--) {
+				copy.add(names.get(i));
+			}
+			return copy;
+		}
+	}
+
+}
@@ -63,6 +63,12 @@ public abstract class OutputStoreObjectSupport extends StoreObjectSupport {
 	/** Flag enabling Syncable hflush*/
 	private boolean syncable = false;
 
+	/** Jvm wide index of output file names */
+	private final static OutputNamingIndex namingIndex = new OutputNamingIndex();
+
+	/** Flag enabling use of naming index */
+	private boolean indexedNaming = false;
+
 	/**
 	 * Instantiates a new abstract output store support.
 	 *
@@ -90,22 +96,37 @@ public abstract class OutputStoreObjectSupport extends StoreObjectSupport {
 		if (internalInitDone) {
 			return;
 		}
-		for (FileStatus status : findInitFiles(getPath())) {
-			String name = status.getPath().getName();
-			if (StringUtils.hasText(prefix) && name.startsWith(prefix)) {
-				name = name.substring(prefix.length());
-			}
-			if (StringUtils.hasText(suffix) && name.endsWith(suffix)) {
-				name = name.substring(0, name.length() - suffix.length());
+		if (indexedNaming) {
+			Path basePath = getPath();
+			OutputNamingIndex.Directory directory = namingIndex.getDirectory(
+					basePath.getFileSystem(getConfiguration()), basePath);
+			for (String name : directory.getNames()) {
+				if (!initOutputContext(new Path(basePath, name))) {
+					break;
+				}
 			}
-			Path path = new Path(status.getPath().getParent(), name);
-			if (outputContext.init(path) == null) {
-				break;
+		} else {
+			for (FileStatus status : findInitFiles(getPath())) {
+				if (!initOutputContext(status.getPath())) {
+					break;
+				}
 			}
 		}
 		internalInitDone = true;
 	}
 
+	private boolean initOutputContext(Path existing) {
+		String name = existing.getName();
+		if (StringUtils.hasText(prefix) && name.startsWith(prefix)) {
+			name = name.substring(prefix.length());
+		}
+		if (StringUtils.hasText(suffix) && name.endsWith(suffix)) {
+			name = name.substring(0, name.length() - suffix.length());
+		}
+		Path path = new Path(existing.getParent(), name);
+		return outputContext.init(path) != null;
+	}
+
 	protected FileStatus[] findInitFiles(Path basePath) throws Exception {
 		FileSystem fileSystem = basePath.getFileSystem(getConfiguration());
 		if (fileSystem.exists(basePath)) {
@@ -237,6 +258,45 @@ public abstract class OutputStoreObjectSupport extends StoreObjectSupport {
 		this.syncable = syncable;
 	}
 
+	/**
+	 * Checks if naming index is used.
+	 *
+	 * @return true, if naming index is used
+	 */
+	public boolean isIndexedNaming() {
+		return indexedNaming;
+	}
+
+	/**
+	 * Sets if a jvm wide {@link OutputNamingIndex} is used to find existing
+	 * files. When enabled, an output directory is listed only once per jvm
+	 * and existence of files is checked from an index, thus initializing
+	 * a writer and resolving a next file name doesn't cause namenode calls.
+	 * Should only be enabled when a single process writes into a directory.
+	 * This is disabled by default.
+	 *
+	 * @param indexedNaming the indexed naming flag
+	 */
+	public void setIndexedNaming(boolean indexedNaming) {
+		this.indexedNaming = indexedNaming;
+	}
+
+	/**
+	 * Marks a file as existing in a naming index. Writers should call
+	 * this when a file is created or found to exist.
+	 *
+	 * @param path the path
+	 */
+	protected void markFileExists(Path path) {
+		if (!indexedNaming) {
+			return;
+		}
+		OutputNamingIndex.Directory directory = getIndexedDirectory(path.getParent());
+		if (directory != null) {
+			directory.add(path.getName());
+		}
+	}
+
 	/**
 	 * Gets the resolved path.
 	 *
@@ -314,6 +374,12 @@ public abstract class OutputStoreObjectSupport extends StoreObjectSupport {
 			if (!succeed) {
 				throw new StoreException("Failed renaming from " + path + " to " + toPath + " because hdfs returned false");
 			}
+			if (indexedNaming) {
+				OutputNamingIndex.Directory directory = getIndexedDirectory(path.getParent());
+				if (directory != null) {
+					directory.rename(path.getName(), toPath.getName());
+				}
+			}
 		}
 		catch (IOException e) {
 			log.error("Error renaming file", e);
@@ -322,7 +388,22 @@ public abstract class OutputStoreObjectSupport extends StoreObjectSupport {
 		return toPath;
 	}
 
+	private OutputNamingIndex.Directory getIndexedDirectory(Path path) {
+		try {
+			return namingIndex.getDirectory(path.getFileSystem(getConfiguration()), path);
+		} catch (IOException e) {
+			log.warn("Unable to index directory " + path, e);
+			return null;
+		}
+	}
+
 	private boolean pathExists(Path path) {
+		if (indexedNaming) {
+			OutputNamingIndex.Directory directory = getIndexedDirectory(path.getParent());
+			if (directory != null) {
+				return directory.contains(path.getName());
+			}
+		}
 		try {
 			return path.getFileSystem(getConfiguration()).exists(path);
 		} catch (IOException e) {
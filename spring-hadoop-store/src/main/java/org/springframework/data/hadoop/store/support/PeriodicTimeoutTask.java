@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.store.support;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.util.Assert;
+
+/**
+ * A timeout task executing its callback periodically. Next deadline
+ * is registered after callback has completed, thus period is
+ * counted from a last completion.
+ *
+ * @author agent
+ *
+ */
+public class PeriodicTimeoutTask extends TimeoutTaskSupport {
+
+	private final long period;
+
+	private final Runnable reschedule = new Runnable() {
+
+		@Override
+		public void run() {
+			schedule(period);
+		}
+	};
+
+	/**
+	 * Instantiates a new periodic timeout task.
+	 *
+	 * @param timeoutService the timeout service
+	 * @param taskExecutor the task executor, may be null
+	 * @param callback the callback executed on timeout
+	 * @param period the period in millis
+	 */
+	public PeriodicTimeoutTask(HashedWheelTimeoutService timeoutService, TaskExecutor taskExecutor, Runnable callback,
+			long period) {
+		super(timeoutService, taskExecutor, callback);
+		Assert.isTrue(period > 0, "Period must be positive");
+		this.period = period;
+	}
+
+	@Override
+	protected void onStart() {
+		schedule(period);
+	}
+
+	@Override
+	protected void onExpired() {
+		executeCallback(reschedule);
+	}
+
+}
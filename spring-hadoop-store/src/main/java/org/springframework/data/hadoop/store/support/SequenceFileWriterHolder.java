@@ -33,6 +33,8 @@ public class SequenceFileWriterHolder<T extends Closeable> implements Closeable
 
 	private Path path;
 
+	private Closeable stream;
+
 	/**
 	 * Instantiates a new sequence file writer holder.
 	 */
@@ -54,13 +56,32 @@ public class SequenceFileWriterHolder<T extends Closeable> implements Closeable
 	 * @param path the path
 	 */
 	public SequenceFileWriterHolder(T writer, Path path) {
+		this(writer, path, null);
+	}
+
+	/**
+	 * Instantiates a new sequence file writer holder with a stream
+	 * not owned by a writer.
+	 *
+	 * @param writer the writer
+	 * @param path the path
+	 * @param stream the stream closed after writer
+	 */
+	public SequenceFileWriterHolder(T writer, Path path, Closeable stream) {
 		this.writer = writer;
 		this.path = path;
+		this.stream = stream;
 	}
 
 	@Override
 	public void close() throws IOException {
-		writer.close();
+		try {
+			writer.close();
+		} finally {
+			if (stream != null) {
+				stream.close();
+			}
+		}
 	}
 
 	/**
@@ -72,6 +93,15 @@ public class SequenceFileWriterHolder<T extends Closeable> implements Closeable
 		return writer;
 	}
 
+	/**
+	 * Gets the stream not owned by a writer.
+	 *
+	 * @return the stream or null if writer owns its stream
+	 */
+	public Closeable getStream() {
+		return stream;
+	}
+
 	/**
 	 * Gets the path.
 	 *
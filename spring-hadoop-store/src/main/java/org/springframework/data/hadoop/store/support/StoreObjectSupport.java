@@ -19,10 +19,11 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
-import org.springframework.core.task.TaskExecutor;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.util.ReflectionUtils;
 import org.springframework.data.hadoop.store.codec.CodecInfo;
-import org.springframework.scheduling.TaskScheduler;
-import org.springframework.scheduling.Trigger;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
 
 /**
  * Base implementation of a store objects sharing a common functionality among store formats.
@@ -43,30 +44,20 @@ public abstract class StoreObjectSupport extends LifecycleObjectSupport {
 	/** Hdfs path into a store */
 	private final Path basePath;
 
-	/** Poller checking idle timeouts */
-	private IdleTimeoutPoller idlePoller;
+	/** Codec resolved from codec info */
+	private volatile CompressionCodec compressionCodec;
 
-	/** Trigger in poller */
-	private volatile IdleTimeoutTrigger idleTrigger;
+	/** Task checking idle timeouts */
+	private volatile IdleTimeoutTask idleTask;
 
-	/** Poller checking idle timeouts */
-	private CloseTimeoutPoller closePoller;
+	/** Task handling close timeouts */
+	private PeriodicTimeoutTask closeTask;
 
-	/** Trigger in poller */
-	private volatile IdleTimeoutTrigger closeTrigger;
+	/** Task handling flush timeouts */
+	private PeriodicTimeoutTask flushTask;
 
-	/** Poller checking flush timeouts */
-	private FlushTimeoutPoller flushPoller;
-
-	/** Trigger in flush poller */
-	private volatile IdleTimeoutTrigger flushTrigger;
-
-	/**
-	 * In millis last idle time reset. We explicitly use negative value to indicate reset state
-	 * because we can't use long max value which would flip if adding something. We reset this
-	 * state when idle timeout happens so that we can wait next idle time.
-	 */
-	private volatile long lastIdle = Long.MIN_VALUE;
+	/** Service where timeout deadlines are registered */
+	private HashedWheelTimeoutService timeoutService;
 
 	/** In millis an idle timeout for writer/reader. */
 	private volatile long idleTimeout;
@@ -92,56 +83,73 @@ public abstract class StoreObjectSupport extends LifecycleObjectSupport {
 
 	@Override
 	protected void onInit() throws Exception {
-		// if we have idle timeout, enable polling by creating it
+		HashedWheelTimeoutService service = getTimeoutService();
+		// if we have idle timeout, enable tracking by creating it
 		if (idleTimeout > 0) {
-			idleTrigger = new IdleTimeoutTrigger(idleTimeout);
-			idlePoller = new IdleTimeoutPoller(getTaskScheduler(), getTaskExecutor(), idleTrigger);
-			idlePoller.init();
+			idleTask = new IdleTimeoutTask(service, getTaskExecutor(), new Runnable() {
+
+				@Override
+				public void run() {
+					if (log.isDebugEnabled()) {
+						log.debug("Idle timeout detected, calling handleTimeout()");
+					}
+					handleTimeout();
+				}
+			}, idleTimeout);
 		}
-		// if we have close timeout, setup trigger with delay
+		// if we have close timeout, setup periodic task
 		if (closeTimeout > 0) {
-			closeTrigger = new IdleTimeoutTrigger(closeTimeout);
-			closeTrigger.setInitialDelay(closeTimeout);
-			closePoller = new CloseTimeoutPoller(getTaskScheduler(), getTaskExecutor(), closeTrigger);
-			closePoller.init();
+			closeTask = new PeriodicTimeoutTask(service, getTaskExecutor(), new Runnable() {
+
+				@Override
+				public void run() {
+					if (log.isDebugEnabled()) {
+						log.debug("Close timeout detected, calling handleTimeout()");
+					}
+					handleTimeout();
+				}
+			}, closeTimeout);
 		}
-		// if we have flush timeout, setup trigger with delay
+		// if we have flush timeout, setup periodic task
 		if (flushTimeout > 0) {
-			flushTrigger = new IdleTimeoutTrigger(flushTimeout);
-			flushTrigger.setInitialDelay(flushTimeout);
-			flushPoller = new FlushTimeoutPoller(getTaskScheduler(), getTaskExecutor(), flushTrigger);
-			flushPoller.init();
+			flushTask = new PeriodicTimeoutTask(service, getTaskExecutor(), new Runnable() {
+
+				@Override
+				public void run() {
+					if (log.isDebugEnabled()) {
+						log.debug("Flush timeout detected, calling flushTimeout()");
+					}
+					flushTimeout();
+				}
+			}, flushTimeout);
 		}
 	}
 
 	@Override
 	protected void doStart() {
-		if (idlePoller != null) {
-			idlePoller.start();
+		if (idleTask != null) {
+			idleTask.start();
 		}
-		if (closePoller != null) {
-			closePoller.start();
+		if (closeTask != null) {
+			closeTask.start();
 		}
-		if (flushPoller != null) {
-			flushPoller.start();
+		if (flushTask != null) {
+			flushTask.start();
 		}
 	}
 
 	@Override
 	protected void doStop() {
 		// stop flush before others
-		if (flushPoller != null) {
-			flushPoller.stop();
+		if (flushTask != null) {
+			flushTask.stop();
 		}
-		flushPoller = null;
-		if (idlePoller != null) {
-			idlePoller.stop();
+		if (idleTask != null) {
+			idleTask.stop();
 		}
-		idlePoller = null;
-		if (closePoller != null) {
-			closePoller.stop();
+		if (closeTask != null) {
+			closeTask.stop();
 		}
-		closePoller = null;
 	}
 
 	/**
@@ -180,6 +188,41 @@ public abstract class StoreObjectSupport extends LifecycleObjectSupport {
 		return codecInfo != null;
 	}
 
+	/**
+	 * Gets the compression codec for codec info. Codec is created once
+	 * per store object instead of instantiating it every time a file is
+	 * opened, unless one was given with {@link #setCompressionCodec(CompressionCodec)}.
+	 *
+	 * @return the compression codec or null if store is not compressed
+	 */
+	protected CompressionCodec getCompressionCodec() {
+		if (codecInfo == null) {
+			return null;
+		}
+		CompressionCodec codec = compressionCodec;
+		if (codec == null) {
+			Class<?> clazz = ClassUtils.resolveClassName(codecInfo.getCodecClass(), getClass().getClassLoader());
+			codec = (CompressionCodec) ReflectionUtils.newInstance(clazz, configuration);
+			compressionCodec = codec;
+		}
+		return codec;
+	}
+
+	/**
+	 * Sets the compression codec instance used with codec info. This allows
+	 * a partitioned writer to share its codec with writers it creates. Codec
+	 * needs to be an instance of a class defined in codec info.
+	 *
+	 * @param compressionCodec the compression codec
+	 */
+	public void setCompressionCodec(CompressionCodec compressionCodec) {
+		Assert.notNull(compressionCodec, "Compression codec must be set");
+		Assert.state(codecInfo != null, "Store is not compressed");
+		Assert.isTrue(compressionCodec.getClass().getName().equals(codecInfo.getCodecClass()),
+				"Compression codec is not a " + codecInfo.getCodecClass());
+		this.compressionCodec = compressionCodec;
+	}
+
 	/**
 	 * Sets the idle timeout.
 	 *
@@ -207,11 +250,38 @@ public abstract class StoreObjectSupport extends LifecycleObjectSupport {
 		this.flushTimeout = flushTimeout;
 	}
 
+	/**
+	 * Sets the timeout service used to track idle, close and flush
+	 * timeouts. If not set, a shared {@link HashedWheelTimeoutService}
+	 * is used.
+	 *
+	 * @param timeoutService the new timeout service
+	 */
+	public void setTimeoutService(HashedWheelTimeoutService timeoutService) {
+		Assert.notNull(timeoutService, "Timeout service must not be null");
+		this.timeoutService = timeoutService;
+	}
+
+	/**
+	 * Gets the timeout service.
+	 *
+	 * @return the timeout service
+	 */
+	protected HashedWheelTimeoutService getTimeoutService() {
+		if (timeoutService == null) {
+			timeoutService = HashedWheelTimeoutService.getSharedInstance();
+		}
+		return timeoutService;
+	}
+
 	/**
 	 * Reset idle timeout.
 	 */
 	public void resetIdleTimeout() {
-		lastIdle = System.currentTimeMillis();
+		IdleTimeoutTask task = idleTask;
+		if (task != null) {
+			task.touch();
+		}
 	}
 
 	/**
@@ -230,90 +300,4 @@ public abstract class StoreObjectSupport extends LifecycleObjectSupport {
 	protected void flushTimeout() {
 	}
 
-	/**
-	 * Poller which checks idle timeout by last write and closes a writer if timeout has occurred.
-	 */
-	private class IdleTimeoutPoller extends PollingTaskSupport<Boolean> {
-
-		public IdleTimeoutPoller(TaskScheduler taskScheduler, TaskExecutor taskExecutor, Trigger trigger) {
-			super(taskScheduler, taskExecutor, trigger);
-		}
-
-		@Override
-		protected Boolean doPoll() {
-			if (log.isDebugEnabled()) {
-				log.debug("Polling idle timeout with idleTimeout=" + idleTimeout + " lastIdle=" + lastIdle);
-			}
-			// return true if we've been idle too long
-			return idleTimeout > 0 && lastIdle > 0 && lastIdle + idleTimeout < System.currentTimeMillis();
-		}
-
-		@Override
-		protected void onPollResult(Boolean result) {
-			if (result) {
-				try {
-					if (log.isDebugEnabled()) {
-						log.debug("Idle timeout detected, calling handleTimeout()");
-					}
-					handleTimeout();
-				} catch (Exception e) {
-					// TODO: handle error
-					log.error("error closing", e);
-				} finally {
-					// reset lastIdle so we can wait new timeout
-					lastIdle = Long.MIN_VALUE;
-				}
-			}
-		}
-
-	}
-
-	/**
-	 * Poller which gets called by a close timeout and closes a writer.
-	 */
-	private class CloseTimeoutPoller extends PollingTaskSupport<Void> {
-
-		public CloseTimeoutPoller(TaskScheduler taskScheduler, TaskExecutor taskExecutor, Trigger trigger) {
-			super(taskScheduler, taskExecutor, trigger);
-		}
-
-		@Override
-		protected Void doPoll() {
-			try {
-				if (log.isDebugEnabled()) {
-					log.debug("Close timeout detected, calling handleTimeout()");
-				}
-				handleTimeout();
-			} catch (Exception e) {
-				// TODO: handle error
-				log.error("error closing", e);
-			}
-			return null;
-		}
-	}
-
-	/**
-	 * Poller which gets called by a flush timeout and flushes a writer.
-	 */
-	private class FlushTimeoutPoller extends PollingTaskSupport<Void> {
-
-		public FlushTimeoutPoller(TaskScheduler taskScheduler, TaskExecutor taskExecutor, Trigger trigger) {
-			super(taskScheduler, taskExecutor, trigger);
-		}
-
-		@Override
-		protected Void doPoll() {
-			try {
-				if (log.isDebugEnabled()) {
-					log.debug("Flush timeout detected, calling flushTimeout()");
-				}
-				flushTimeout();
-			} catch (Exception e) {
-				// TODO: handle error
-				log.error("error flushing", e);
-			}
-			return null;
-		}
-	}
-
 }
@@ -19,6 +19,8 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.hadoop.fs.Path;
 import org.springframework.util.Assert;
@@ -40,6 +42,8 @@ public class StreamsHolder<T extends Closeable> implements Closeable {
 
 	private Path path;
 
+	private List<Runnable> closeCallbacks;
+
 	/**
 	 * Instantiates a new streams holder.
 	 */
@@ -78,19 +82,39 @@ public class StreamsHolder<T extends Closeable> implements Closeable {
 	 */
 	@Override
 	public void close() throws IOException {
-		if (stream != null) {
-			stream.close();
-		}
-		if (wrappedStream != null) {
-			try {
-				wrappedStream.close();
+		try {
+			if (stream != null) {
+				stream.close();
 			}
-			catch (IOException e) {
-				// try to close but eat IOException because it was
-				// already closed by the main stream or something
-				// else happened what we should not care about
+			if (wrappedStream != null) {
+				try {
+					wrappedStream.close();
+				}
+				catch (IOException e) {
+					// try to close but eat IOException because it was
+					// already closed by the main stream or something
+					// else happened what we should not care about
+				}
 			}
 		}
+		finally {
+			runCloseCallbacks();
+		}
+	}
+
+	/**
+	 * Adds a callback which is run once after streams in this holder
+	 * has been closed, regardless if closing streams succeeded or not.
+	 * Callbacks are run in order they were added.
+	 *
+	 * @param callback the callback
+	 */
+	public void addCloseCallback(Runnable callback) {
+		Assert.notNull(callback, "Callback must not be null");
+		if (closeCallbacks == null) {
+			closeCallbacks = new ArrayList<Runnable>(2);
+		}
+		closeCallbacks.add(callback);
 	}
 
 	/**
@@ -147,4 +171,15 @@ public class StreamsHolder<T extends Closeable> implements Closeable {
 		this.path = path;
 	}
 
+	private void runCloseCallbacks() {
+		if (closeCallbacks == null) {
+			return;
+		}
+		List<Runnable> callbacks = closeCallbacks;
+		closeCallbacks = null;
+		for (Runnable callback : callbacks) {
+			callback.run();
+		}
+	}
+
 }
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.store.support;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.hadoop.store.support.HashedWheelTimeoutService.Timeout;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.Assert;
+
+/**
+ * Base class for tasks registering their deadlines with a
+ * {@link HashedWheelTimeoutService}. Actual timeout callback is
+ * executed using a {@code TaskExecutor} if one is set, otherwise
+ * with a small shared pool of daemon threads. Callbacks are never run
+ * by a timeout service worker thread as these usually block on hdfs
+ * calls and would delay all other timeouts.
+ *
+ * @author agent
+ *
+ */
+public abstract class TimeoutTaskSupport {
+
+	private static final Log log = LogFactory.getLog(TimeoutTaskSupport.class);
+
+	/** Max number of threads in a default callback pool */
+	private static final int DEFAULT_CALLBACK_THREADS = 4;
+
+	private final HashedWheelTimeoutService timeoutService;
+
+	private final TaskExecutor taskExecutor;
+
+	private final Runnable callback;
+
+	private final Runnable expiry = new Runnable() {
+
+		@Override
+		public void run() {
+			if (running) {
+				onExpired();
+			}
+		}
+	};
+
+	private volatile boolean running;
+
+	private volatile Timeout timeout;
+
+	/**
+	 * Instantiates a new timeout task support.
+	 *
+	 * @param timeoutService the timeout service
+	 * @param taskExecutor the task executor, shared default pool is used if null
+	 * @param callback the callback executed on timeout
+	 */
+	public TimeoutTaskSupport(HashedWheelTimeoutService timeoutService, TaskExecutor taskExecutor, Runnable callback) {
+		Assert.notNull(timeoutService, "Timeout service must be set");
+		Assert.notNull(callback, "Callback must be set");
+		this.timeoutService = timeoutService;
+		this.taskExecutor = (taskExecutor != null ? taskExecutor : DefaultCallbackExecutor.EXECUTOR);
+		this.callback = callback;
+	}
+
+	/**
+	 * Starts the task.
+	 */
+	public void start() {
+		running = true;
+		onStart();
+	}
+
+	/**
+	 * Stops the task and cancels a pending timeout if any.
+	 */
+	public void stop() {
+		running = false;
+		Timeout t = timeout;
+		if (t != null) {
+			t.cancel();
+		}
+		timeout = null;
+	}
+
+	/**
+	 * Checks if this task is running.
+	 *
+	 * @return true, if running
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Called when task is started. Default implementation
+	 * doesn't do anything.
+	 */
+	protected void onStart() {
+	}
+
+	/**
+	 * Called by a timeout service worker thread when a registered
+	 * deadline has expired. Implementation should not block.
+	 */
+	protected abstract void onExpired();
+
+	/**
+	 * Register a new deadline with a timeout service.
+	 *
+	 * @param delay the delay in millis
+	 */
+	protected void schedule(long delay) {
+		if (running) {
+			timeout = timeoutService.newTimeout(expiry, delay);
+		}
+	}
+
+	/**
+	 * Execute a callback using a task executor.
+	 *
+	 * @param andThen the runnable to run after the callback, may be null
+	 */
+	protected void executeCallback(final Runnable andThen) {
+		Runnable task = new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					callback.run();
+				} catch (Exception e) {
+					log.error("Error executing timeout callback", e);
+				} finally {
+					if (andThen != null) {
+						andThen.run();
+					}
+				}
+			}
+		};
+		taskExecutor.execute(task);
+	}
+
+	/**
+	 * Holder for a default callback pool created on first use.
+	 */
+	private static class DefaultCallbackExecutor {
+
+		static final TaskExecutor EXECUTOR = create();
+
+		private static TaskExecutor create() {
+			ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+			executor.setThreadNamePrefix("store-timeout-");
+			executor.setDaemon(true);
+			executor.setCorePoolSize(DEFAULT_CALLBACK_THREADS);
+			executor.setMaxPoolSize(DEFAULT_CALLBACK_THREADS);
+			// callbacks are rare and must not get lost, thus queue is unbounded
+			executor.setQueueCapacity(Integer.MAX_VALUE);
+			executor.setAllowCoreThreadTimeOut(true);
+			executor.initialize();
+			return executor;
+		}
+	}
+
+}
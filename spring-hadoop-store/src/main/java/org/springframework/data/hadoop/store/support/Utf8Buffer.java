@@ -0,0 +1,230 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.store.support;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.springframework.util.Assert;
+
+/**
+ * A reusable growable byte buffer which encodes characters as UTF-8
+ * directly into its backing array. Buffer is meant to be owned by a single
+ * writer and reset after every record, thus encoding a record doesn't
+ * allocate anything once buffer has grown big enough.
+ * <p>
+ * Malformed surrogates are replaced with {@code '?'} similarly to
+ * {@link String#getBytes(String)}.
+ *
+ * @author agent
+ *
+ */
+public class Utf8Buffer {
+
+	/** Default initial capacity */
+	public final static int DEFAULT_CAPACITY = 256;
+
+	/** Default max capacity kept over reset */
+	public final static int DEFAULT_MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+	private final int initialCapacity;
+
+	private final int maxRetainedCapacity;
+
+	private byte[] bytes;
+
+	private int length;
+
+	/**
+	 * Instantiates a new utf8 buffer with default capacities.
+	 */
+	public Utf8Buffer() {
+		this(DEFAULT_CAPACITY, DEFAULT_MAX_RETAINED_CAPACITY);
+	}
+
+	/**
+	 * Instantiates a new utf8 buffer. If buffer has grown bigger than
+	 * max retained capacity, reset will shrink it back to initial capacity
+	 * so that a single huge record doesn't hold memory forever.
+	 *
+	 * @param initialCapacity the initial capacity
+	 * @param maxRetainedCapacity the max capacity kept over reset
+	 */
+	public Utf8Buffer(int initialCapacity, int maxRetainedCapacity) {
+		Assert.isTrue(initialCapacity > 0, "Initial capacity must be positive");
+		Assert.isTrue(maxRetainedCapacity >= initialCapacity, "Max retained capacity must not be less than initial");
+		this.initialCapacity = initialCapacity;
+		this.maxRetainedCapacity = maxRetainedCapacity;
+		this.bytes = new byte[initialCapacity];
+	}
+
+	/**
+	 * Appends characters encoded as UTF-8.
+	 *
+	 * @param chars the characters
+	 * @return this buffer
+	 */
+	public Utf8Buffer append(CharSequence chars) {
+		return append(chars, 0, chars.length());
+	}
+
+	/**
+	 * Appends a range of characters encoded as UTF-8.
+	 *
+	 * @param chars the characters
+	 * @param start the start index, inclusive
+	 * @param end the end index, exclusive
+	 * @return this buffer
+	 */
+	public Utf8Buffer append(CharSequence chars, int start, int end) {
+		// worst case is three bytes per char, surrogate
+		// pairs take four bytes but consume two chars
+		ensureCapacity(length + (end - start) * 3);
+		byte[] b = bytes;
+		int pos = length;
+		int i = start;
+
+		// fast path for ascii
+		while (i < end) {
+			char c = chars.charAt(i);
+			if (c >= 0x80) {
+				break;
+			}
+			b[pos++] = (byte) c;
+			i++;
+		}
+
+		while (i < end) {
+			char c = chars.charAt(i++);
+			if (c < 0x80) {
+				b[pos++] = (byte) c;
+			} else if (c < 0x800) {
+				b[pos++] = (byte) (0xc0 | (c >> 6));
+				b[pos++] = (byte) (0x80 | (c & 0x3f));
+			} else if (Character.isSurrogate(c)) {
+				char low;
+				if (Character.isHighSurrogate(c) && i < end
+						&& Character.isLowSurrogate(low = chars.charAt(i))) {
+					i++;
+					int cp = Character.toCodePoint(c, low);
+					b[pos++] = (byte) (0xf0 | (cp >> 18));
+					b[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+					b[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+					b[pos++] = (byte) (0x80 | (cp & 0x3f));
+				} else {
+					b[pos++] = '?';
+				}
+			} else {
+				b[pos++] = (byte) (0xe0 | (c >> 12));
+				b[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+				b[pos++] = (byte) (0x80 | (c & 0x3f));
+			}
+		}
+		length = pos;
+		return this;
+	}
+
+	/**
+	 * Appends bytes as is.
+	 *
+	 * @param b the bytes
+	 * @return this buffer
+	 */
+	public Utf8Buffer append(byte[] b) {
+		return append(b, 0, b.length);
+	}
+
+	/**
+	 * Appends a range of bytes as is.
+	 *
+	 * @param b the bytes
+	 * @param off the offset
+	 * @param len the length
+	 * @return this buffer
+	 */
+	public Utf8Buffer append(byte[] b, int off, int len) {
+		ensureCapacity(length + len);
+		System.arraycopy(b, off, bytes, length, len);
+		length += len;
+		return this;
+	}
+
+	/**
+	 * Appends remaining bytes of a buffer as is. Buffer position
+	 * is moved to its limit.
+	 *
+	 * @param b the byte buffer
+	 * @return this buffer
+	 */
+	public Utf8Buffer append(ByteBuffer b) {
+		int len = b.remaining();
+		ensureCapacity(length + len);
+		b.get(bytes, length, len);
+		length += len;
+		return this;
+	}
+
+	/**
+	 * Writes buffered bytes into an output stream.
+	 *
+	 * @param out the output stream
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		out.write(bytes, 0, length);
+	}
+
+	/**
+	 * Resets this buffer to be empty.
+	 */
+	public void reset() {
+		length = 0;
+		if (bytes.length > maxRetainedCapacity) {
+			bytes = new byte[initialCapacity];
+		}
+	}
+
+	/**
+	 * Gets the backing array. Only bytes up to {@link #getLength()}
+	 * are valid.
+	 *
+	 * @return the backing array
+	 */
+	public byte[] getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Gets the length of buffered bytes.
+	 *
+	 * @return the length
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity < 0) {
+			throw new OutOfMemoryError("Required buffer size is too large");
+		}
+		if (capacity > bytes.length) {
+			bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length << 1));
+		}
+	}
+
+}
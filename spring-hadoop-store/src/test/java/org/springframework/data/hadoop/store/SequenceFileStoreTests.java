@@ -17,15 +17,23 @@ package org.springframework.data.hadoop.store;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertNotNull;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile.CompressionType;
 import org.junit.Test;
 import org.springframework.data.hadoop.store.codec.Codecs;
 import org.springframework.data.hadoop.store.input.TextSequenceFileReader;
 import org.springframework.data.hadoop.store.output.TextSequenceFileWriter;
+import org.springframework.data.hadoop.store.split.Split;
+import org.springframework.data.hadoop.store.split.Splitter;
+import org.springframework.data.hadoop.store.split.StaticLengthSplitter;
 import org.springframework.data.hadoop.store.strategy.naming.RollingFileNamingStrategy;
 import org.springframework.data.hadoop.store.strategy.rollover.SizeRolloverStrategy;
 import org.springframework.data.hadoop.test.context.HadoopDelegatingSmartContextLoader;
@@ -90,6 +98,55 @@ public class SequenceFileStoreTests extends AbstractStoreTests {
 		TestUtils.readDataAndAssert(reader, DATA09ARRAY);
 	}
 
+	@Test
+	public void testWriteReadManyLinesWithBzip2BlockCompression() throws IOException {
+		TextSequenceFileWriter writer = new TextSequenceFileWriter(getConfiguration(), testDefaultPath,
+				Codecs.BZIP2.getCodecInfo());
+		writer.setCompressionType(CompressionType.BLOCK);
+		writer.setSyncInterval(1024);
+		for (String line : DATA09ARRAY) {
+			writer.write(line);
+		}
+		// flush writes buffered block
+		writer.hflush();
+		writer.close();
+
+		TextSequenceFileReader reader = new TextSequenceFileReader(getConfiguration(), testDefaultPath,
+				Codecs.BZIP2.getCodecInfo());
+		TestUtils.readDataAndAssert(reader, DATA09ARRAY);
+	}
+
+	@Test
+	public void testWriteReadSplitManyLines() throws IOException {
+		TextSequenceFileWriter writer = new TextSequenceFileWriter(getConfiguration(), testDefaultPath, null);
+		for (int i = 0; i < 100; i++) {
+			TestUtils.writeData(writer, DATA09ARRAY, false);
+		}
+		TestUtils.writeData(writer, DATA09ARRAY, true);
+
+		// sync markers are written roughly every 2000 bytes
+		Splitter splitter = new StaticLengthSplitter(getConfiguration(), 3000l);
+		List<Split> inputSplits = splitter.getSplits(testDefaultPath);
+		assertNotNull(inputSplits);
+		assertThat(inputSplits.size() > 1, is(true));
+
+		List<String> readData = new ArrayList<String>();
+		for (Split split : inputSplits) {
+			TextSequenceFileReader reader = new TextSequenceFileReader(getConfiguration(), testDefaultPath, null, split);
+			readData.addAll(TestUtils.readData(reader));
+		}
+
+		assertThat(readData.size(), is(1010));
+		Map<String, Integer> counts = new HashMap<String, Integer>();
+		for (String line : readData) {
+			Integer count = counts.get(line);
+			counts.put(line, count != null ? count + 1 : 1);
+		}
+		for (String line : DATA09ARRAY) {
+			assertThat(counts.get(line), is(101));
+		}
+	}
+
 	@Test
 	public void testWriteReadManyLinesWithNamingAndRollover() throws IOException {
 		TextSequenceFileWriter writer = new TextSequenceFileWriter(getConfiguration(), testDefaultPath, null);
@@ -18,12 +18,18 @@ package org.springframework.data.hadoop.store;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.apache.hadoop.fs.Path;
 import org.junit.Test;
 import org.springframework.data.hadoop.store.codec.Codecs;
+import org.springframework.data.hadoop.store.input.ParallelDataStoreReader;
+import org.springframework.data.hadoop.store.input.SplitReaderFactory;
 import org.springframework.data.hadoop.store.input.TextFileReader;
 import org.springframework.data.hadoop.store.output.TextFileWriter;
 import org.springframework.data.hadoop.store.split.Split;
@@ -102,4 +108,62 @@ public class TextFileStoreSplitTests extends AbstractStoreTests {
 		assertThat(readData1.size()+readData2.size()+readData3.size(), is(30));
 	}
 
+	@Test
+	public void testParallelReadSplitTextManyLines() throws IOException {
+		TextFileWriter writer = new TextFileWriter(getConfiguration(), testDefaultPath, null);
+		for (int i = 0; i < 10; i++) {
+			TestUtils.writeData(writer, DATA09ARRAY, false);
+		}
+		TestUtils.writeData(writer, DATA09ARRAY, true);
+
+		Splitter splitter = new StaticLengthSplitter(getConfiguration(), 110l);
+		ParallelDataStoreReader<String> reader = new ParallelDataStoreReader<String>(getConfiguration(),
+				testDefaultPath, splitter, new SplitReaderFactory<String>() {
+
+					@Override
+					public DataStoreReader<String> createReader(Path path, Split split) throws IOException {
+						return new TextFileReader(getConfiguration(), path, null, split, null);
+					}
+				});
+		reader.setParallelism(3);
+		reader.setBatchSize(4);
+		reader.setBufferSize(2);
+		List<String> readData = TestUtils.readData(reader);
+
+		assertThat(readData.size(), is(110));
+		Map<String, Integer> counts = new HashMap<String, Integer>();
+		for (String line : readData) {
+			Integer count = counts.get(line);
+			counts.put(line, count != null ? count + 1 : 1);
+		}
+		for (String line : DATA09ARRAY) {
+			assertThat(counts.get(line), is(11));
+		}
+	}
+
+	@Test
+	public void testParallelReadFailureThrownOnEveryRead() throws IOException {
+		TextFileWriter writer = new TextFileWriter(getConfiguration(), testDefaultPath, null);
+		TestUtils.writeData(writer, DATA09ARRAY, true);
+
+		Splitter splitter = new StaticLengthSplitter(getConfiguration(), 110l);
+		ParallelDataStoreReader<String> reader = new ParallelDataStoreReader<String>(getConfiguration(),
+				testDefaultPath, splitter, new SplitReaderFactory<String>() {
+
+					@Override
+					public DataStoreReader<String> createReader(Path path, Split split) throws IOException {
+						throw new IOException("simulated failure");
+					}
+				});
+		for (int i = 0; i < 2; i++) {
+			try {
+				reader.read();
+				fail("Expected IOException");
+			} catch (IOException e) {
+				assertThat(e.getMessage(), is("simulated failure"));
+			}
+		}
+		reader.close();
+	}
+
 }
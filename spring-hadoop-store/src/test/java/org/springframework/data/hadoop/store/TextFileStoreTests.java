@@ -17,16 +17,26 @@ package org.springframework.data.hadoop.store;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.instanceOf;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.compress.CodecPool;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.DefaultCodec;
+import org.apache.hadoop.util.ReflectionUtils;
 import org.junit.Test;
+import org.springframework.data.hadoop.store.codec.CodecInfo;
 import org.springframework.data.hadoop.store.codec.Codecs;
+import org.springframework.data.hadoop.store.codec.DefaultCodecInfo;
 import org.springframework.data.hadoop.store.input.TextFileReader;
+import org.springframework.data.hadoop.store.input.TextRecordCallback;
 import org.springframework.data.hadoop.store.output.TextFileWriter;
 import org.springframework.data.hadoop.store.strategy.naming.ChainedFileNamingStrategy;
 import org.springframework.data.hadoop.store.strategy.naming.CodecFileNamingStrategy;
@@ -64,6 +74,39 @@ public class TextFileStoreTests extends AbstractStoreTests {
 		TestUtils.readDataAndAssert(reader, dataArray);
 	}
 
+	@Test
+	public void testWriteReadMultiByteTextReusingBuffer() throws IOException {
+		String[] dataArray = new String[] { "\u00e4\u00f6\u00e5 \u20ac", DATA10, "\ud83d\ude00" };
+
+		TextFileWriter writer = new TextFileWriter(getConfiguration(), testDefaultPath, null);
+		TestUtils.writeData(writer, dataArray);
+
+		TextFileReader reader = new TextFileReader(getConfiguration(), testDefaultPath, null);
+		TestUtils.readDataAndAssert(reader, dataArray);
+
+		reader = new TextFileReader(getConfiguration(), testDefaultPath, null);
+		final List<String> lines = new ArrayList<String>();
+		long count = reader.read(new TextRecordCallback() {
+
+			@Override
+			public boolean doWithRecord(byte[] bytes, int offset, int length) throws IOException {
+				lines.add(Text.decode(bytes, offset, length));
+				return true;
+			}
+		});
+		reader.close();
+		assertThat(count, is(3l));
+		assertThat(lines, contains(dataArray));
+
+		reader = new TextFileReader(getConfiguration(), testDefaultPath, null);
+		Text first = reader.readText();
+		assertThat(first.toString(), is(dataArray[0]));
+		Text second = reader.readText();
+		assertThat(second == first, is(true));
+		assertThat(second.toString(), is(dataArray[1]));
+		reader.close();
+	}
+
 	@Test
 	public void testWriteReadTextManyLines() throws IOException {
 		TextFileWriter writer = new TextFileWriter(getConfiguration(), testDefaultPath, null);
@@ -95,6 +138,21 @@ public class TextFileStoreTests extends AbstractStoreTests {
 		TestUtils.readDataAndAssert(reader, DATA09ARRAY);
 	}
 
+	@Test
+	public void testCompressorReturnedToPoolOnClose() throws IOException {
+		// deflate always has a compressor, java one if native zlib is missing
+		CodecInfo codecInfo = new DefaultCodecInfo(DefaultCodec.class.getName(), false, "deflate");
+		CompressionCodec codec = ReflectionUtils.newInstance(DefaultCodec.class, getConfiguration());
+		int leased = CodecPool.getLeasedCompressorsCount(codec);
+
+		TextFileWriter writer = new TextFileWriter(getConfiguration(), testDefaultPath, codecInfo);
+		TestUtils.writeData(writer, DATA09ARRAY, false);
+		assertThat(CodecPool.getLeasedCompressorsCount(codec), is(leased + 1));
+
+		writer.close();
+		assertThat(CodecPool.getLeasedCompressorsCount(codec), is(leased));
+	}
+
 	@Test
 	public void testWriteReadManyLinesWithLzo() throws IOException {
 		// Add lzo and native libs with project properties to run this test
@@ -148,6 +206,30 @@ public class TextFileStoreTests extends AbstractStoreTests {
 		assertThat(splitData1.size() + splitData2.size() + splitData3.size(), is(DATA09ARRAY.length));
 	}
 
+	@Test
+	public void testWriteReadManyLinesWithNamingAndAsyncRollover() throws IOException {
+
+		TextFileWriter writer = new TextFileWriter(getConfiguration(), testDefaultPath, null);
+		writer.setFileNamingStrategy(new RollingFileNamingStrategy());
+		writer.setRolloverStrategy(new SizeRolloverStrategy(40));
+		writer.setInWritingSuffix(".tmp");
+		writer.setAsyncRolloverClose(true);
+
+		// close waits rolled over files to get renamed
+		TestUtils.writeData(writer, DATA09ARRAY);
+
+		TextFileReader reader1 = new TextFileReader(getConfiguration(), new Path(testDefaultPath, "0"), null);
+		List<String> splitData1 = TestUtils.readData(reader1);
+
+		TextFileReader reader2 = new TextFileReader(getConfiguration(), new Path(testDefaultPath, "1"), null);
+		List<String> splitData2 = TestUtils.readData(reader2);
+
+		TextFileReader reader3 = new TextFileReader(getConfiguration(), new Path(testDefaultPath, "2"), null);
+		List<String> splitData3 = TestUtils.readData(reader3);
+
+		assertThat(splitData1.size() + splitData2.size() + splitData3.size(), is(DATA09ARRAY.length));
+	}
+
 	@Test
 	public void testWriteReadManyLinesWithNamingAndRolloverWithGzip() throws IOException {
 
@@ -220,6 +302,35 @@ public class TextFileStoreTests extends AbstractStoreTests {
 		assertThat(splitData1.size() + splitData2.size() + splitData3.size(), is(3));
 	}
 
+	@Test
+	public void testContinueStrategiesWithIndexedNaming() throws IOException {
+		String[] dataArray = new String[] { DATA10 };
+
+		// index keeps files in creation order so
+		// we don't need to wait modification times
+		for (int i = 0; i < 3; i++) {
+			TextFileWriter writer = new TextFileWriter(getConfiguration(), testDefaultPath, null);
+			ChainedFileNamingStrategy fileNamingStrategy = new ChainedFileNamingStrategy();
+			fileNamingStrategy.register(new StaticFileNamingStrategy("data"));
+			fileNamingStrategy.register(new RollingFileNamingStrategy());
+			writer.setFileNamingStrategy(fileNamingStrategy);
+			writer.setInWritingSuffix(".tmp");
+			writer.setIndexedNaming(true);
+			TestUtils.writeData(writer, dataArray);
+		}
+
+		TextFileReader reader1 = new TextFileReader(getConfiguration(), new Path(testDefaultPath, "data-0"), null);
+		List<String> splitData1 = TestUtils.readData(reader1);
+
+		TextFileReader reader2 = new TextFileReader(getConfiguration(), new Path(testDefaultPath, "data-1"), null);
+		List<String> splitData2 = TestUtils.readData(reader2);
+
+		TextFileReader reader3 = new TextFileReader(getConfiguration(), new Path(testDefaultPath, "data-2"), null);
+		List<String> splitData3 = TestUtils.readData(reader3);
+
+		assertThat(splitData1.size() + splitData2.size() + splitData3.size(), is(3));
+	}
+
 	@Test
 	public void testContinueStrategiesWithCodec() throws IOException, InterruptedException {
 		String[] dataArray = new String[] { DATA10 };
@@ -20,10 +20,12 @@ import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.hadoop.store.DataStoreReader;
 import org.springframework.data.hadoop.test.junit.AbstractHadoopClusterTests;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -97,4 +99,43 @@ public abstract class AbstractDatasetTemplateTests extends AbstractHadoopCluster
 		assertTrue(sorted.get(2).getId().equals(48L));
 	}
 
+	@Test
+	public void testReadSavedPojoInBatches() {
+		datasetOperations.write(records);
+		TestPojo pojo3 = new TestPojo();
+		pojo3.setId(31L);
+		pojo3.setName("Eric");
+		pojo3.setBirthDate(new Date());
+		datasetOperations.write(Collections.singletonList(pojo3));
+		((DatasetTemplate) datasetOperations).setReadBatchSize(2);
+		final List<Integer> batchSizes = new ArrayList<Integer>();
+		final List<TestPojo> results = new ArrayList<TestPojo>();
+		datasetOperations.read(TestPojo.class, new RecordBatchCallback<TestPojo>() {
+
+			@Override
+			public void doInBatch(List<TestPojo> records) {
+				batchSizes.add(records.size());
+				results.addAll(records);
+			}
+		});
+		assertEquals(Arrays.asList(2, 1), batchSizes);
+		assertEquals(3, results.size());
+	}
+
+	@Test
+	public void testReadSavedPojoWithReader() throws IOException {
+		datasetOperations.write(records);
+		DataStoreReader<TestPojo> reader = datasetOperations.getReader(TestPojo.class);
+		List<TestPojo> results = new ArrayList<TestPojo>();
+		try {
+			TestPojo pojo;
+			while ((pojo = reader.read()) != null) {
+				results.add(pojo);
+			}
+		} finally {
+			reader.close();
+		}
+		assertEquals(2, results.size());
+	}
+
 }
@@ -20,6 +20,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -34,6 +35,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.kitesdk.data.DatasetDescriptor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.hadoop.test.context.HadoopDelegatingSmartContextLoader;
 import org.springframework.data.hadoop.test.context.MiniHadoopCluster;
 import org.springframework.test.annotation.DirtiesContext;
@@ -47,6 +49,9 @@ import org.kitesdk.data.spi.DatasetRepository;
 @MiniHadoopCluster
 public class DatasetTemplateTests extends AbstractDatasetTemplateTests {
 
+	@Autowired
+	private DatasetRepositoryFactory datasetRepositoryFactory;
+
 	@Before
 	public void setUp() {
 		TestPojo pojo1 = new TestPojo();
@@ -139,4 +144,48 @@ public class DatasetTemplateTests extends AbstractDatasetTemplateTests {
 		assertNull(desc2);
 	}
 
+	@Test
+	public void testReuseWritersWithRollover() throws Exception {
+		DatasetTemplate template = new DatasetTemplate(datasetRepositoryFactory);
+		template.afterPropertiesSet();
+		template.setReuseWriters(true);
+		template.setWriterRolloverRecords(3);
+		template.setWriteParallelism(2);
+		for (int i = 0; i < 5; i++) {
+			TestPojo pojo = new TestPojo();
+			pojo.setId(100L + i);
+			pojo.setName("name" + i);
+			pojo.setBirthDate(new Date());
+			template.write(Collections.singletonList(pojo));
+		}
+		template.write(records);
+		try {
+			template.setWriteParallelism(4);
+			fail("Expected IllegalStateException");
+		} catch (IllegalStateException e) {
+		}
+		template.destroy();
+
+		Collection<TestPojo> results = datasetOperations.read(TestPojo.class);
+		assertEquals(7, results.size());
+	}
+
+	@Test
+	public void testReusedWriterRolledOverWithoutWrites() throws Exception {
+		DatasetTemplate template = new DatasetTemplate(datasetRepositoryFactory);
+		template.afterPropertiesSet();
+		template.setReuseWriters(true);
+		template.setWriterRolloverInterval(200);
+		template.write(records);
+
+		// nothing is written anymore, scheduled check needs to close the file
+		Collection<TestPojo> results = datasetOperations.read(TestPojo.class);
+		for (int i = 0; i < 50 && results.size() < 2; i++) {
+			Thread.sleep(100);
+			results = datasetOperations.read(TestPojo.class);
+		}
+		assertEquals(2, results.size());
+		template.destroy();
+	}
+
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.store.dataset;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.reflect.ReflectData;
+import org.junit.Test;
+import org.springframework.data.hadoop.store.StoreException;
+
+/**
+ * Tests for {@link GenericRecordMapper}.
+ *
+ * @author agent
+ *
+ */
+public class GenericRecordMapperTests {
+
+	@Test
+	public void testMapSimpleFields() {
+		Schema schema = ReflectData.get().getSchema(SimplePojo.class);
+		GenericRecordMapper mapper = GenericRecordMapper.getMapper(SimplePojo.class, schema);
+		assertThat(GenericRecordMapper.getMapper(SimplePojo.class, schema), sameInstance(mapper));
+
+		SimplePojo pojo = new SimplePojo();
+		pojo.setId(22L);
+		pojo.setName("Sven");
+		pojo.setBirthDate(1000L);
+		GenericRecord record = mapper.toRecord(pojo);
+		assertThat((Long) record.get("id"), is(22L));
+		assertThat(record.get("name").toString(), is("Sven"));
+		assertThat((Long) record.get("birthDate"), is(1000L));
+	}
+
+	@Test
+	public void testNullForNonNullableFieldFails() {
+		Schema schema = ReflectData.get().getSchema(SimplePojo.class);
+		GenericRecordMapper mapper = GenericRecordMapper.getMapper(SimplePojo.class, schema);
+
+		SimplePojo pojo = new SimplePojo();
+		pojo.setId(22L);
+		pojo.setBirthDate(1000L);
+		try {
+			mapper.toRecord(pojo);
+			fail("Expected StoreException for null name");
+		} catch (StoreException e) {
+			assertThat(e.getMessage(), containsString("name"));
+		}
+	}
+
+	@Test
+	public void testMapNestedRecordsUnionsAndArrays() {
+		Schema schema = ReflectData.AllowNull.get().getSchema(Outer.class);
+		GenericRecordMapper mapper = GenericRecordMapper.getMapper(Outer.class, schema);
+
+		Outer outer = new Outer();
+		outer.name = "outer";
+		outer.inner = new Inner("first", 1);
+		outer.inners = Arrays.asList(new Inner("second", 2), new Inner("third", 3));
+		outer.tags = new String[] { "a", "b" };
+		outer.data = new byte[] { 1, 2, 3 };
+		GenericRecord record = mapper.toRecord(outer);
+
+		assertThat(record.get("name").toString(), is("outer"));
+		GenericRecord inner = (GenericRecord) record.get("inner");
+		assertThat(inner.get("value").toString(), is("first"));
+		assertThat((Integer) inner.get("count"), is(1));
+		List<?> inners = (List<?>) record.get("inners");
+		assertThat(inners.size(), is(2));
+		assertThat(((GenericRecord) inners.get(1)).get("value").toString(), is("third"));
+		assertThat(record.get("tags"), instanceOf(GenericData.Array.class));
+		assertThat(((List<?>) record.get("tags")).size(), is(2));
+		assertThat(record.get("data"), instanceOf(ByteBuffer.class));
+
+		outer.inner = null;
+		outer.inners = null;
+		record = mapper.toRecord(outer);
+		assertThat(record.get("inner"), nullValue());
+		assertThat(record.get("inners"), nullValue());
+	}
+
+	@Test
+	public void testMapRecordBackToEntity() {
+		Schema schema = ReflectData.AllowNull.get().getSchema(Outer.class);
+		GenericRecordMapper mapper = GenericRecordMapper.getMapper(Outer.class, schema);
+
+		Outer outer = new Outer();
+		outer.name = "outer";
+		outer.inner = new Inner("first", 1);
+		outer.inners = Arrays.asList(new Inner("second", 2), new Inner("third", 3));
+		outer.tags = new String[] { "a", "b" };
+		outer.data = new byte[] { 1, 2, 3 };
+		Outer read = (Outer) mapper.toEntity(mapper.toRecord(outer));
+
+		assertThat(read.name, is("outer"));
+		assertThat(read.inner.getValue(), is("first"));
+		assertThat(read.inner.getCount(), is(1));
+		assertThat(read.inners.size(), is(2));
+		assertThat(read.inners.get(1).getValue(), is("third"));
+		assertThat(read.tags, is(new String[] { "a", "b" }));
+		assertThat(read.data, is(new byte[] { 1, 2, 3 }));
+		assertThat(mapper.getReadSchema(), sameInstance(schema));
+	}
+
+	public static class Outer {
+
+		String name;
+
+		Inner inner;
+
+		List<Inner> inners;
+
+		String[] tags;
+
+		byte[] data;
+	}
+
+	public static class Inner {
+
+		private String value;
+
+		private int count;
+
+		public Inner() {
+		}
+
+		public Inner(String value, int count) {
+			this.value = value;
+			this.count = count;
+		}
+
+		public String getValue() {
+			return value;
+		}
+
+		public int getCount() {
+			return count;
+		}
+	}
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.store.input;
+
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.UnsupportedEncodingException;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link DelimitedTextTokenizer}.
+ *
+ * @author agent
+ *
+ */
+public class DelimitedTextTokenizerTests {
+
+	@Test
+	public void testSimpleFields() throws Exception {
+		DelimitedTextTokenizer tokenizer = new DelimitedTextTokenizer(bytes(","));
+		assertThat(fields(tokenizer, "a,bb,ccc"), arrayContaining("a", "bb", "ccc"));
+		assertThat(fields(tokenizer, "a,,c,"), arrayContaining("a", "", "c", ""));
+		assertThat(fields(tokenizer, ""), arrayContaining(""));
+		assertThat(fields(tokenizer, "\u00e4,\u20ac"), arrayContaining("\u00e4", "\u20ac"));
+	}
+
+	@Test
+	public void testRegexMetacharAndMultiByteDelimiters() throws Exception {
+		DelimitedTextTokenizer tokenizer = new DelimitedTextTokenizer(bytes("|"));
+		assertThat(fields(tokenizer, "a|b.c|*"), arrayContaining("a", "b.c", "*"));
+
+		tokenizer = new DelimitedTextTokenizer(bytes("::"));
+		assertThat(fields(tokenizer, "a::b:c::"), arrayContaining("a", "b:c", ""));
+	}
+
+	@Test
+	public void testQuotedFields() throws Exception {
+		DelimitedTextTokenizer tokenizer = new DelimitedTextTokenizer(bytes(","), DelimitedTextTokenizer.DOUBLE_QUOTE);
+		assertThat(fields(tokenizer, "\"a,b\",c"), arrayContaining("a,b", "c"));
+		assertThat(fields(tokenizer, "\"say \"\"hi\"\"\",\"\""), arrayContaining("say \"hi\"", ""));
+		assertThat(fields(tokenizer, "a\"b,c"), arrayContaining("a\"b", "c"));
+		assertThat(fields(tokenizer, "\"unterminated,x"), arrayContaining("unterminated,x"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNonAsciiQuoteRejected() throws Exception {
+		new DelimitedTextTokenizer(bytes(","), 0xff);
+	}
+
+	@Test
+	public void testProjection() throws Exception {
+		DelimitedTextTokenizer tokenizer = new DelimitedTextTokenizer(bytes(","));
+		byte[] line = bytes("a,b,c,d");
+		tokenizer.tokenize(line, 0, line.length);
+		String[] fields = new String[3];
+		assertThat(tokenizer.getFields(fields, new int[] { 3, 0, 7 }), is(3));
+		assertThat(fields[0], is("d"));
+		assertThat(fields[1], is("a"));
+		assertThat(fields[2], nullValue());
+	}
+
+	@Test
+	public void testManyFieldsAndOffset() throws Exception {
+		DelimitedTextTokenizer tokenizer = new DelimitedTextTokenizer(bytes(","));
+		StringBuilder buf = new StringBuilder("xx");
+		for (int i = 0; i < 100; i++) {
+			buf.append(i).append(',');
+		}
+		byte[] line = bytes(buf.toString());
+		assertThat(tokenizer.tokenize(line, 2, line.length - 2), is(101));
+		assertThat(tokenizer.getField(0), is("0"));
+		assertThat(tokenizer.getField(99), is("99"));
+		assertThat(tokenizer.getField(100), is(""));
+	}
+
+	private static String[] fields(DelimitedTextTokenizer tokenizer, String line) throws Exception {
+		byte[] bytes = bytes(line);
+		String[] fields = new String[tokenizer.tokenize(bytes, 0, bytes.length)];
+		tokenizer.getFields(fields, null);
+		return fields;
+	}
+
+	private static byte[] bytes(String value) throws UnsupportedEncodingException {
+		return value.getBytes("UTF-8");
+	}
+
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.store.output;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.springframework.data.hadoop.store.DataStoreWriter;
+import org.springframework.data.hadoop.store.StoreException;
+import org.springframework.data.hadoop.store.output.AsyncDataStoreWriter.OverflowPolicy;
+import org.springframework.util.concurrent.ListenableFuture;
+
+/**
+ * Tests for {@link AsyncDataStoreWriter}.
+ *
+ * @author agent
+ *
+ */
+public class AsyncDataStoreWriterTests {
+
+	@Test
+	public void testWritesInOrderAndFlush() throws Exception {
+		TestWriter delegate = new TestWriter();
+		AsyncDataStoreWriter<String> writer = new AsyncDataStoreWriter<String>(delegate, 16);
+		writer.setBatchSize(4);
+		List<String> expected = new ArrayList<String>();
+		for (int i = 0; i < 1000; i++) {
+			writer.write("line" + i);
+			expected.add("line" + i);
+		}
+		writer.flush();
+		assertThat(delegate.written, is(expected));
+		assertThat(delegate.flushes, is(1));
+
+		writer.close();
+		assertThat(delegate.closed, is(true));
+		assertThat(writer.getDroppedCount(), is(0l));
+
+		try {
+			writer.write("foo");
+			fail("Expected StoreException");
+		} catch (StoreException e) {
+		}
+	}
+
+	@Test
+	public void testDropWhenFull() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		TestWriter delegate = new TestWriter(release);
+		AsyncDataStoreWriter<String> writer = new AsyncDataStoreWriter<String>(delegate, 2);
+		writer.setOverflowPolicy(OverflowPolicy.DROP);
+		for (int i = 0; i < 10; i++) {
+			writer.write("line" + i);
+		}
+		assertThat(writer.getDroppedCount() > 0, is(true));
+		release.countDown();
+		writer.close();
+		assertThat(delegate.written.size() + writer.getDroppedCount(), is(10l));
+	}
+
+	@Test
+	public void testFailWhenFull() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		TestWriter delegate = new TestWriter(release);
+		AsyncDataStoreWriter<String> writer = new AsyncDataStoreWriter<String>(delegate, 2);
+		writer.setOverflowPolicy(OverflowPolicy.FAIL);
+		try {
+			for (int i = 0; i < 10; i++) {
+				writer.write("line" + i);
+			}
+			fail("Expected StoreException");
+		} catch (StoreException e) {
+		}
+		release.countDown();
+		writer.close();
+	}
+
+	@Test
+	public void testWriteErrorSurfaces() throws Exception {
+		TestWriter delegate = new TestWriter();
+		delegate.failOn = "line5";
+		AsyncDataStoreWriter<String> writer = new AsyncDataStoreWriter<String>(delegate);
+		for (int i = 0; i < 10; i++) {
+			writer.write("line" + i);
+		}
+		ListenableFuture<Void> flush = writer.flushAsync();
+		try {
+			flush.get(2, TimeUnit.SECONDS);
+			fail("Expected ExecutionException");
+		} catch (ExecutionException e) {
+			assertThat(e.getCause(), instanceOf(IOException.class));
+		}
+		assertThat(delegate.written.size(), is(5));
+		assertThat(writer.getDroppedCount(), is(4l));
+
+		try {
+			writer.write("foo");
+			fail("Expected StoreException");
+		} catch (StoreException e) {
+		}
+		try {
+			writer.close();
+			fail("Expected IOException");
+		} catch (IOException e) {
+		}
+		assertThat(delegate.closed, is(true));
+	}
+
+	@Test
+	public void testErrorFromDelegateDoesNotHang() throws Exception {
+		TestWriter delegate = new TestWriter();
+		delegate.errorOn = "line3";
+		AsyncDataStoreWriter<String> writer = new AsyncDataStoreWriter<String>(delegate);
+		for (int i = 0; i < 10; i++) {
+			writer.write("line" + i);
+		}
+		try {
+			writer.flushAsync().get(2, TimeUnit.SECONDS);
+			fail("Expected ExecutionException");
+		} catch (ExecutionException e) {
+			assertThat(e.getCause(), instanceOf(AssertionError.class));
+		}
+		assertThat(writer.getDroppedCount(), is(6l));
+		try {
+			writer.closeAsync().get(2, TimeUnit.SECONDS);
+			fail("Expected ExecutionException");
+		} catch (ExecutionException e) {
+			assertThat(e.getCause(), instanceOf(AssertionError.class));
+		}
+		assertThat(delegate.closed, is(true));
+	}
+
+	@Test
+	public void testFlushesRacingCloseComplete() throws Exception {
+		final TestWriter delegate = new TestWriter();
+		final AsyncDataStoreWriter<String> writer = new AsyncDataStoreWriter<String>(delegate, 4);
+		writer.setBatchSize(2);
+		final List<ListenableFuture<Void>> flushes = Collections.synchronizedList(new ArrayList<ListenableFuture<Void>>());
+		final AtomicLong accepted = new AtomicLong();
+		final CountDownLatch started = new CountDownLatch(4);
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < 4; i++) {
+			Thread thread = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					started.countDown();
+					try {
+						while (true) {
+							writer.write("line");
+							accepted.incrementAndGet();
+							flushes.add(writer.flushAsync());
+						}
+					} catch (StoreException e) {
+						// closed
+					} catch (IOException e) {
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		started.await();
+		Thread.sleep(50);
+		writer.close();
+		for (Thread thread : threads) {
+			thread.join(2000);
+			assertThat(thread.isAlive(), is(false));
+		}
+		synchronized (flushes) {
+			for (ListenableFuture<Void> flush : flushes) {
+				try {
+					flush.get(2, TimeUnit.SECONDS);
+				} catch (ExecutionException e) {
+					assertThat(e.getCause(), instanceOf(StoreException.class));
+				}
+			}
+		}
+		// every accepted write lands before a close
+		assertThat((long) delegate.written.size(), is(accepted.get()));
+		assertThat(writer.getDroppedCount(), is(0l));
+	}
+
+	private static class TestWriter implements DataStoreWriter<String> {
+
+		final List<String> written = Collections.synchronizedList(new ArrayList<String>());
+
+		final CountDownLatch release;
+
+		volatile String failOn;
+
+		volatile String errorOn;
+
+		volatile int flushes;
+
+		volatile boolean closed;
+
+		TestWriter() {
+			this(null);
+		}
+
+		TestWriter(CountDownLatch release) {
+			this.release = release;
+		}
+
+		@Override
+		public void write(String entity) throws IOException {
+			if (release != null) {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			if (entity.equals(failOn)) {
+				throw new IOException("Simulated error");
+			}
+			if (entity.equals(errorOn)) {
+				throw new AssertionError("Simulated error");
+			}
+			written.add(entity);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			flushes++;
+		}
+
+		@Override
+		public void close() throws IOException {
+			closed = true;
+		}
+	}
+
+}
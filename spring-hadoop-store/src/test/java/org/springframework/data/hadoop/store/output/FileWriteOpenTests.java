@@ -17,11 +17,15 @@ package org.springframework.data.hadoop.store.output;
 
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 
+import java.util.Map;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.junit.Test;
 import org.springframework.data.hadoop.store.AbstractStoreTests;
@@ -95,6 +99,69 @@ public class FileWriteOpenTests extends AbstractStoreTests {
 		// we're ok if we don't get exceptions
 	}
 
+	@Test
+	public void testClaimReleasedOnClose() throws Exception {
+		String[] dataArray = new String[] { DATA10 };
+		FileSystem fs = testDefaultPath.getFileSystem(getConfiguration());
+		Path qualified = fs.makeQualified(testDefaultPath);
+
+		TestTextFileWriter writer1 = new TestTextFileWriter(getConfiguration(), testDefaultPath, null);
+		writer1.setMaxOpenAttempts(1);
+		TestUtils.writeData(writer1, dataArray, false);
+		Map<Path, Object> openPaths = TestUtils.readField("openPaths", writer1);
+		assertThat(openPaths.containsKey(qualified), is(true));
+
+		// same path is claimed, second writer must not open it
+		TestTextFileWriter writer2 = new TestTextFileWriter(getConfiguration(), testDefaultPath, null);
+		writer2.setMaxOpenAttempts(1);
+		writer2.setAppendable(true);
+		Exception catched = null;
+		try {
+			TestUtils.writeData(writer2, dataArray, false);
+		} catch (Exception e) {
+			catched = e;
+		}
+		assertThat(catched, instanceOf(StoreException.class));
+
+		TestUtils.close(writer1);
+		assertThat(openPaths.containsKey(qualified), is(false));
+
+		// claim released, now append into same path
+		TestUtils.writeData(writer2, dataArray, true);
+		assertThat(openPaths.containsKey(qualified), is(false));
+		assertThat(fs.getFileStatus(testDefaultPath).getLen(), is((long) (DATA10.length() + 1) * 2));
+	}
+
+	@Test
+	public void testClaimReleasedOnFailedOpen() throws Exception {
+		String[] dataArray = new String[] { DATA10 };
+		FileSystem fs = testDefaultPath.getFileSystem(getConfiguration());
+		Path path = new Path(testDefaultPath, "data");
+		Path qualified = fs.makeQualified(path);
+
+		// parent of a path is a file so creating a stream fails
+		fs.create(testDefaultPath).close();
+		TestTextFileWriter writer1 = new TestTextFileWriter(getConfiguration(), path, null);
+		writer1.setMaxOpenAttempts(1);
+		Exception catched = null;
+		try {
+			TestUtils.writeData(writer1, dataArray, false);
+		} catch (Exception e) {
+			catched = e;
+		}
+		assertThat(catched, instanceOf(StoreException.class));
+		Map<Path, Object> openPaths = TestUtils.readField("openPaths", writer1);
+		assertThat(openPaths.containsKey(qualified), is(false));
+
+		// failed writer is not closed, its claim must not block others
+		fs.delete(testDefaultPath, false);
+		TestTextFileWriter writer2 = new TestTextFileWriter(getConfiguration(), path, null);
+		writer2.setMaxOpenAttempts(1);
+		TestUtils.writeData(writer2, dataArray, true);
+		assertThat(fs.exists(path), is(true));
+		TestUtils.close(writer1);
+	}
+
 	private static class TestTextFileWriter extends TextFileWriter {
 
 		private Path path;
@@ -43,6 +43,8 @@ import org.springframework.data.hadoop.store.TestUtils;
 import org.springframework.data.hadoop.store.event.DefaultStoreEventPublisher;
 import org.springframework.data.hadoop.store.event.LoggingListener;
 import org.springframework.data.hadoop.store.event.StoreEventPublisher;
+import org.springframework.data.hadoop.store.partition.DefaultPartitionKey;
+import org.springframework.data.hadoop.store.partition.DefaultPartitionStrategy;
 import org.springframework.data.hadoop.store.partition.PartitionKeyResolver;
 import org.springframework.data.hadoop.store.partition.PartitionResolver;
 import org.springframework.data.hadoop.store.partition.PartitionStrategy;
@@ -78,6 +80,14 @@ public class PartitionTextFileWriterSmokeTests extends AbstractStoreTests {
 
 	private final static String PATH3 = "/tmp/PartitionTextFileWriterSmokeTests/testWritePartitionsWithRolloverAndContextClose/default";
 
+	private final static String PATH4 = "/tmp/PartitionTextFileWriterSmokeTests/testWritePartitionsConcurrent/default";
+
+	private final static String PATH5 = "/tmp/PartitionTextFileWriterSmokeTests/testWritePartitionsWithMaxOpenWriters/default";
+
+	private final static String PATH6 = "/tmp/PartitionTextFileWriterSmokeTests/testWritePartitionsWithTimeWindows/default";
+
+	private final static long HOUR = 3600000l;
+
 	@Test
 	public void testWritePartitions() throws Exception {
 		Assume.group(TestGroup.PERFORMANCE);
@@ -197,6 +207,124 @@ public class PartitionTextFileWriterSmokeTests extends AbstractStoreTests {
 
 	}
 
+	@Test
+	public void testWritePartitionsConcurrent() throws Exception {
+		Assume.group(TestGroup.PERFORMANCE);
+
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		ctx.setParent(context);
+		ctx.register(BaseConfig.class, Config4.class);
+		ctx.refresh();
+
+		int threads = 30;
+		int count = 20000;
+		int iterations = 10;
+
+		@SuppressWarnings("unchecked")
+		PartitionTextFileWriter<String> writer = ctx.getBean("writer1", PartitionTextFileWriter.class);
+		assertNotNull(writer);
+		assertThat(writer.isConcurrent(), is(true));
+
+		for (int i = 0; i < iterations; i++) {
+			doConcurrentWrites(writer, threads, count);
+		}
+		Thread.sleep(3000);
+
+		ctx.close();
+		Map<Path, DataStoreWriter<String>> writers = TestUtils.readField("writers", writer);
+		TestUtils.printLsR(PATH4, getConfiguration());
+		assertThat(writers.size(), is(0));
+
+		// assuming items in DATA09ARRAY have same length
+		assertThat(getTotalWritten(PATH4), is((long) count * (DATA10.length() + 1) * threads * iterations));
+
+		@SuppressWarnings("resource")
+		FsShell shell = new FsShell(getConfiguration());
+		Collection<FileStatus> files = shell.ls(true, PATH4);
+		Collection<String> names = statusesToNames(files);
+		assertThat(names, everyItem(not(endsWith("tmp"))));
+	}
+
+	@Test
+	public void testWritePartitionsWithMaxOpenWriters() throws Exception {
+		Assume.group(TestGroup.PERFORMANCE);
+
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		ctx.setParent(context);
+		ctx.register(BaseConfig.class, Config5.class);
+		ctx.refresh();
+
+		int threads = 30;
+		int count = 2000;
+		int iterations = 2;
+
+		@SuppressWarnings("unchecked")
+		PartitionTextFileWriter<String> writer = ctx.getBean("writer1", PartitionTextFileWriter.class);
+		assertNotNull(writer);
+
+		for (int i = 0; i < iterations; i++) {
+			doConcurrentWrites(writer, threads, count);
+		}
+		assertThat(writer.getEvictedWriterCount() > 0, is(true));
+
+		ctx.close();
+		Map<Path, DataStoreWriter<String>> writers = TestUtils.readField("writers", writer);
+		TestUtils.printLsR(PATH5, getConfiguration());
+		assertThat(writers.size(), is(0));
+
+		// assuming items in DATA09ARRAY have same length
+		assertThat(getTotalWritten(PATH5), is((long) count * (DATA10.length() + 1) * threads * iterations));
+
+		@SuppressWarnings("resource")
+		FsShell shell = new FsShell(getConfiguration());
+		Collection<FileStatus> files = shell.ls(true, PATH5);
+		Collection<String> names = statusesToNames(files);
+		assertThat(names, everyItem(not(endsWith("tmp"))));
+	}
+
+	@Test
+	public void testWritePartitionsWithTimeWindows() throws Exception {
+		Assume.group(TestGroup.PERFORMANCE);
+
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		ctx.setParent(context);
+		ctx.register(BaseConfig.class, Config6.class);
+		ctx.refresh();
+
+		@SuppressWarnings("unchecked")
+		PartitionTextFileWriter<Map<String, Object>> writer = ctx.getBean("writer1", PartitionTextFileWriter.class);
+		assertNotNull(writer);
+
+		// 2017-01-01T00:00:00Z
+		long start = 1483228800000l;
+		int hours = 5;
+		int count = 100;
+		for (int h = 0; h < hours; h++) {
+			for (int i = 0; i < count; i++) {
+				writer.write(DATA10, new DefaultPartitionKey(start + h * HOUR + i * 1000l));
+			}
+		}
+		assertThat(writer.getWatermark(), is(start + (hours - 1) * HOUR + (count - 1) * 1000l));
+		assertThat(writer.getOpenWriterCount(), is(1));
+		assertThat(writer.getWindowClosedWriterCount(), is((long) hours - 1));
+		assertThat(writer.getLateWriteCount(), is(0l));
+
+		writer.write(DATA10, new DefaultPartitionKey(start));
+		assertThat(writer.getLateWriteCount(), is(1l));
+		assertThat(writer.getOpenWriterCount(), is(2));
+
+		ctx.close();
+		Map<Path, DataStoreWriter<String>> writers = TestUtils.readField("writers", writer);
+		TestUtils.printLsR(PATH6, getConfiguration());
+		assertThat(writers.size(), is(0));
+		assertThat(getTotalWritten(PATH6), is((long) (hours * count + 1) * (DATA10.length() + 1)));
+
+		@SuppressWarnings("resource")
+		FsShell shell = new FsShell(getConfiguration());
+		Collection<String> names = statusesToNames(shell.ls(true, PATH6));
+		assertThat(names, everyItem(not(endsWith("tmp"))));
+	}
+
 	private long getTotalWritten(String path) {
 		@SuppressWarnings("resource")
 		FsShell shell = new FsShell(hadoopConfiguration);
@@ -384,6 +512,115 @@ public class PartitionTextFileWriterSmokeTests extends AbstractStoreTests {
 
 	}
 
+	@Configuration
+	public static class Config4 {
+
+		@Autowired
+		private org.apache.hadoop.conf.Configuration hadoopConfiguration;
+
+		@Bean
+		public Path testBasePath() {
+			return new Path(PATH4);
+		}
+
+		@Bean
+		public FileNamingStrategy fileNamingStrategy() {
+			return new RollingFileNamingStrategy();
+		}
+
+		@Bean
+		public RolloverStrategy rolloverStrategy() {
+			return new SizeRolloverStrategy("1M");
+		}
+
+		@Bean
+		public PartitionStrategy<String, String> partitionStrategy() {
+			return new TestPartitionStrategy();
+		}
+
+		@Bean
+		public PartitionTextFileWriter<String> writer1() {
+			PartitionTextFileWriter<String> writer = new PartitionTextFileWriter<String>(hadoopConfiguration,
+					testBasePath(), null, partitionStrategy());
+			writer.setIdleTimeout(1000);
+			writer.setConcurrent(true);
+			writer.setFileNamingStrategyFactory(fileNamingStrategy());
+			writer.setRolloverStrategyFactory(rolloverStrategy());
+			writer.setInWritingSuffix(".tmp");
+			return writer;
+		}
+
+	}
+
+	@Configuration
+	public static class Config5 {
+
+		@Autowired
+		private org.apache.hadoop.conf.Configuration hadoopConfiguration;
+
+		@Bean
+		public Path testBasePath() {
+			return new Path(PATH5);
+		}
+
+		@Bean
+		public FileNamingStrategy fileNamingStrategy() {
+			return new RollingFileNamingStrategy();
+		}
+
+		@Bean
+		public PartitionStrategy<String, String> partitionStrategy() {
+			return new TestPartitionStrategy();
+		}
+
+		@Bean
+		public PartitionTextFileWriter<String> writer1() {
+			PartitionTextFileWriter<String> writer = new PartitionTextFileWriter<String>(hadoopConfiguration,
+					testBasePath(), null, partitionStrategy());
+			writer.setIdleTimeout(60000);
+			writer.setConcurrent(true);
+			writer.setMaxOpenWriters(3);
+			writer.setFileNamingStrategyFactory(fileNamingStrategy());
+			writer.setInWritingSuffix(".tmp");
+			return writer;
+		}
+
+	}
+
+	@Configuration
+	public static class Config6 {
+
+		@Autowired
+		private org.apache.hadoop.conf.Configuration hadoopConfiguration;
+
+		@Bean
+		public Path testBasePath() {
+			return new Path(PATH6);
+		}
+
+		@Bean
+		public FileNamingStrategy fileNamingStrategy() {
+			return new RollingFileNamingStrategy();
+		}
+
+		@Bean
+		public PartitionStrategy<String, Map<String, Object>> partitionStrategy() {
+			return new DefaultPartitionStrategy<String>("dateFormat('yyyy/MM/dd/HH',timestamp)");
+		}
+
+		@Bean
+		public PartitionTextFileWriter<Map<String, Object>> writer1() {
+			PartitionTextFileWriter<Map<String, Object>> writer = new PartitionTextFileWriter<Map<String, Object>>(
+					hadoopConfiguration, testBasePath(), null, partitionStrategy());
+			writer.setIdleTimeout(60000);
+			writer.setTimeWindow(HOUR, 0);
+			writer.setFileNamingStrategyFactory(fileNamingStrategy());
+			writer.setInWritingSuffix(".tmp");
+			return writer;
+		}
+
+	}
+
 	@Configuration
 	public static class BaseConfig {
 
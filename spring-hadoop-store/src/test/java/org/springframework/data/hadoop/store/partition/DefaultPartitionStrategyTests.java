@@ -26,6 +26,8 @@ import java.util.Map;
 
 import org.apache.hadoop.fs.Path;
 import org.junit.Test;
+import org.springframework.expression.spel.SpelEvaluationException;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
 
 /**
  * Tests for {@link DefaultPartitionStrategyTests}.
@@ -142,4 +144,35 @@ public class DefaultPartitionStrategyTests {
 		assertThat(resolvedPartitionKey, notNullValue());
 	}
 
+	@Test
+	public void testCompiledSameAsSpel() {
+		String[] expressions = new String[] {
+				"path(dateFormat('yyyy/MM/dd/HH', timestamp), hash(region, 3))",
+				"path(region, list(region,{{'nordic','fin','swe'},{'britain','eng','sco'}}), range(size,{10,20,30}))",
+				"path(dateFormat('yyyy/MM', date, 'yyyy-MM-dd'), dateFormat('yyyy', day))",
+				"hash(size, 2)",
+				"path(path(region, 'static'), 'file')" };
+		DefaultPartitionKey key = new DefaultPartitionKey(1420070400000l);
+		key.put("region", "fin");
+		key.put("size", 15);
+		key.put("date", "2015-03-04");
+		key.put("day", "2015-03-04");
+
+		for (String expression : expressions) {
+			DefaultPartitionStrategy<String> compiled = new DefaultPartitionStrategy<String>(expression);
+			DefaultPartitionStrategy<String> spel = new DefaultPartitionStrategy<String>(expression,
+					new StandardEvaluationContext());
+			Path path = compiled.getPartitionResolver().resolvePath(key);
+			assertThat(path, is(spel.getPartitionResolver().resolvePath(key)));
+			// same instance from cache
+			assertThat(compiled.getPartitionResolver().resolvePath(key) == path, is(true));
+		}
+	}
+
+	@Test(expected = SpelEvaluationException.class)
+	public void testCompiledFallsBackToSpelErrors() {
+		DefaultPartitionStrategy<String> strategy = new DefaultPartitionStrategy<String>("path(region)");
+		strategy.getPartitionResolver().resolvePath(new DefaultPartitionKey());
+	}
+
 }
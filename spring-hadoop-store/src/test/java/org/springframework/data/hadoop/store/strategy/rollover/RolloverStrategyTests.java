@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.store.strategy.rollover;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.springframework.data.hadoop.store.support.OutputContext;
+
+/**
+ * Tests for block, count and time based rollover strategies.
+ *
+ * @author agent
+ *
+ */
+public class RolloverStrategyTests {
+
+	@Test
+	public void testBlockRollover() {
+		BlockRolloverStrategy strategy = new BlockRolloverStrategy(2, 0.5f);
+		strategy.setBlockSize(1000);
+		assertThat(strategy.getRolloverSize(), is(1500l));
+		strategy.setWritePosition(1499);
+		assertThat(strategy.hasRolled(), is(false));
+		strategy.setWritePosition(1500);
+		assertThat(strategy.hasRolled(), is(true));
+
+		strategy = new BlockRolloverStrategy();
+		assertThat(strategy.getRolloverSize(),
+				is((long) (BlockRolloverStrategy.DEFAULT_BLOCK_SIZE * (double) BlockRolloverStrategy.DEFAULT_FILL_FACTOR)));
+	}
+
+	@Test
+	public void testCountRollover() {
+		CountRolloverStrategy strategy = new CountRolloverStrategy(3);
+		OutputContext context = new OutputContext();
+		context.setRolloverStrategy(strategy);
+		context.setWritePosition(10);
+		context.setWritePosition(20);
+		assertThat(context.getRolloverState(), is(false));
+		context.setWritePosition(30);
+		assertThat(context.getRolloverState(), is(true));
+		context.rollStrategies();
+		assertThat(context.getRolloverState(), is(false));
+	}
+
+	@Test
+	public void testTimeRollover() {
+		TestTimeRolloverStrategy strategy = new TestTimeRolloverStrategy(100);
+		strategy.time = 1000;
+		assertThat(strategy.hasRolled(), is(false));
+		strategy.recordWritten();
+		strategy.time = 1099;
+		strategy.recordWritten();
+		assertThat(strategy.hasRolled(), is(false));
+		strategy.time = 1100;
+		assertThat(strategy.hasRolled(), is(true));
+		strategy.reset();
+		assertThat(strategy.hasRolled(), is(false));
+	}
+
+	@Test
+	public void testChainedRollover() {
+		BlockRolloverStrategy block = new BlockRolloverStrategy(1, 1f);
+		CountRolloverStrategy count = new CountRolloverStrategy(2);
+		ChainedRolloverStrategy chained = new ChainedRolloverStrategy(Arrays.asList(block, count)).createInstance();
+		OutputContext context = new OutputContext();
+		context.setRolloverStrategy(chained);
+		context.setBlockSize(100);
+		context.setWritePosition(50);
+		assertThat(context.getRolloverState(), is(false));
+		context.setWritePosition(100);
+		assertThat(context.getRolloverState(), is(true));
+		context.rollStrategies();
+		context.setWritePosition(10);
+		assertThat(context.getRolloverState(), is(false));
+		context.setWritePosition(20);
+		assertThat(context.getRolloverState(), is(true));
+	}
+
+	private static class TestTimeRolloverStrategy extends TimeRolloverStrategy {
+
+		long time;
+
+		TestTimeRolloverStrategy(long rolloverInterval) {
+			super(rolloverInterval);
+		}
+
+		@Override
+		protected long getTime() {
+			return time;
+		}
+	}
+
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.store.support;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.hadoop.store.support.HashedWheelTimeoutService.Timeout;
+
+/**
+ * Tests for {@code HashedWheelTimeoutService} and tasks using it.
+ *
+ * @author agent
+ *
+ */
+public class HashedWheelTimeoutServiceTests {
+
+	private HashedWheelTimeoutService service;
+
+	@Before
+	public void setup() {
+		service = new HashedWheelTimeoutService(10, TimeUnit.MILLISECONDS, 8);
+	}
+
+	@After
+	public void clean() {
+		service.stop();
+	}
+
+	@Test
+	public void testTimeoutExpires() throws InterruptedException {
+		final CountDownLatch latch = new CountDownLatch(1);
+		long start = System.currentTimeMillis();
+		Timeout timeout = service.newTimeout(new Runnable() {
+
+			@Override
+			public void run() {
+				latch.countDown();
+			}
+		}, 200);
+		assertThat(latch.await(2, TimeUnit.SECONDS), is(true));
+		assertThat(System.currentTimeMillis() - start, greaterThanOrEqualTo(190l));
+		assertThat(timeout.isExpired(), is(true));
+	}
+
+	@Test
+	public void testCancelledTimeoutNeverExpires() throws InterruptedException {
+		final AtomicInteger counter = new AtomicInteger();
+		Timeout timeout = service.newTimeout(new Runnable() {
+
+			@Override
+			public void run() {
+				counter.incrementAndGet();
+			}
+		}, 100);
+		assertThat(timeout.cancel(), is(true));
+		Thread.sleep(300);
+		assertThat(counter.get(), is(0));
+		assertThat(timeout.isCancelled(), is(true));
+		assertThat(timeout.isExpired(), is(false));
+	}
+
+	@Test
+	public void testManyTimeoutsOverSeveralRounds() throws InterruptedException {
+		int count = 1000;
+		final CountDownLatch latch = new CountDownLatch(count);
+		for (int i = 0; i < count; i++) {
+			// wheel is 8 ticks of 10ms so these spread over many rounds
+			service.newTimeout(new Runnable() {
+
+				@Override
+				public void run() {
+					latch.countDown();
+				}
+			}, i % 300);
+		}
+		assertThat(latch.await(2, TimeUnit.SECONDS), is(true));
+	}
+
+	@Test
+	public void testPeriodicTimeoutTask() throws InterruptedException {
+		final AtomicInteger counter = new AtomicInteger();
+		PeriodicTimeoutTask task = new PeriodicTimeoutTask(service, null, new Runnable() {
+
+			@Override
+			public void run() {
+				counter.incrementAndGet();
+			}
+		}, 100);
+		task.start();
+		Thread.sleep(550);
+		task.stop();
+		int count = counter.get();
+		assertThat(count >= 4 && count <= 5, is(true));
+		Thread.sleep(300);
+		assertThat(counter.get(), is(count));
+	}
+
+	@Test
+	public void testIdleTimeoutTask() throws InterruptedException {
+		final AtomicInteger counter = new AtomicInteger();
+		IdleTimeoutTask task = new IdleTimeoutTask(service, null, new Runnable() {
+
+			@Override
+			public void run() {
+				counter.incrementAndGet();
+			}
+		}, 200);
+		task.start();
+
+		// nothing happens without activity
+		Thread.sleep(300);
+		assertThat(counter.get(), is(0));
+
+		// keep active longer than a timeout
+		for (int i = 0; i < 6; i++) {
+			task.touch();
+			Thread.sleep(100);
+		}
+		assertThat(counter.get(), is(0));
+
+		Thread.sleep(300);
+		assertThat(counter.get(), is(1));
+
+		// only one timeout per idle period
+		Thread.sleep(300);
+		assertThat(counter.get(), is(1));
+
+		task.touch();
+		task.stop();
+		Thread.sleep(300);
+		assertThat(counter.get(), is(1));
+	}
+
+	@Test
+	public void testCallbackWithoutExecutorNotRunOnWheelThread() throws InterruptedException {
+		final CountDownLatch latch = new CountDownLatch(1);
+		final AtomicReference<String> threadName = new AtomicReference<String>();
+		PeriodicTimeoutTask task = new PeriodicTimeoutTask(service, null, new Runnable() {
+
+			@Override
+			public void run() {
+				threadName.set(Thread.currentThread().getName());
+				latch.countDown();
+			}
+		}, 50);
+		task.start();
+		try {
+			assertThat(latch.await(2, TimeUnit.SECONDS), is(true));
+			assertThat(threadName.get(), startsWith("store-timeout-"));
+		} finally {
+			task.stop();
+		}
+	}
+
+}
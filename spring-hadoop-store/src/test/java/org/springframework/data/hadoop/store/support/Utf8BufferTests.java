@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.hadoop.store.support;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link Utf8Buffer}.
+ *
+ * @author agent
+ *
+ */
+public class Utf8BufferTests {
+
+	@Test
+	public void testEncodeSameAsString() throws Exception {
+		String[] values = new String[] { "", "hello", "\u00e4\u00f6\u00e5", "\u20ac100", "a\ud83d\ude00b",
+				"mixed \u00e4 \u20ac \ud83d\ude00 text" };
+		Utf8Buffer buffer = new Utf8Buffer(4, 16);
+		for (String value : values) {
+			buffer.reset();
+			buffer.append(value);
+			assertThat(toBytes(buffer), is(value.getBytes("UTF-8")));
+		}
+	}
+
+	@Test
+	public void testMalformedSurrogates() throws Exception {
+		Utf8Buffer buffer = new Utf8Buffer();
+		buffer.append("a\ud83db").append("\ude00");
+		assertThat(toBytes(buffer), is("a?b?".getBytes("UTF-8")));
+	}
+
+	@Test
+	public void testAppendRangesAndBytes() throws Exception {
+		Utf8Buffer buffer = new Utf8Buffer(1, 1024);
+		buffer.append(new StringBuilder("xxhelloxx"), 2, 7);
+		buffer.append(",".getBytes("UTF-8"));
+		buffer.append(ByteBuffer.wrap("world".getBytes("UTF-8")));
+		assertThat(toBytes(buffer), is("hello,world".getBytes("UTF-8")));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		buffer.writeTo(out);
+		assertThat(out.toString("UTF-8"), is("hello,world"));
+	}
+
+	@Test
+	public void testResetShrinksBigBuffer() {
+		Utf8Buffer buffer = new Utf8Buffer(8, 64);
+		char[] chars = new char[100];
+		Arrays.fill(chars, 'a');
+		buffer.append(new String(chars));
+		assertThat(buffer.getLength(), is(100));
+		buffer.reset();
+		assertThat(buffer.getLength(), is(0));
+		assertThat(buffer.getBytes().length, is(8));
+
+		buffer.append("abc");
+		byte[] bytes = buffer.getBytes();
+		buffer.reset();
+		assertThat(buffer.getBytes() == bytes, is(true));
+	}
+
+	private static byte[] toBytes(Utf8Buffer buffer) {
+		return Arrays.copyOf(buffer.getBytes(), buffer.getLength());
+	}
+
+}